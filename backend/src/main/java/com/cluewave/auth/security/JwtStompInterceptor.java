@@ -0,0 +1,68 @@
+// ---------------------------------------------------------------------
+// JWT STOMP INTERCEPTOR
+// Authenticates WebSocket clients once, on the STOMP CONNECT frame. The JWT from the
+// Authorization header is parsed and its user loaded a single time; the resulting
+// UserPrincipal is bound to the session, so later frames carry it without any token
+// parsing or database access. Frames from sessions that never authenticated are rejected.
+// ---------------------------------------------------------------------
+
+package com.cluewave.auth.security;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+@Component
+public class JwtStompInterceptor implements ChannelInterceptor {
+
+    private final JwtUtils jwtUtils;
+    private final UserDetailsService userDetailsService;
+
+    public JwtStompInterceptor(JwtUtils jwtUtils, UserDetailsService userDetailsService) {
+        this.jwtUtils = jwtUtils;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        if (type == SimpMessageType.CONNECT) {
+            StompHeaderAccessor accessor = StompHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+            if (accessor != null && accessor.isMutable()) {
+                // the sub-protocol handler remembers this user for the rest of the session
+                accessor.setUser(authenticate(accessor.getFirstNativeHeader("Authorization")));
+                return message;
+            }
+            StompHeaderAccessor copy = StompHeaderAccessor.wrap(message);
+            copy.setUser(authenticate(copy.getFirstNativeHeader("Authorization")));
+            return MessageBuilder.createMessage(message.getPayload(), copy.getMessageHeaders());
+        }
+        if ((type == SimpMessageType.SUBSCRIBE || type == SimpMessageType.MESSAGE)
+                && SimpMessageHeaderAccessor.getUser(message.getHeaders()) == null) {
+            throw new BadCredentialsException("STOMP session is not authenticated");
+        }
+        return message;
+    }
+
+    private UsernamePasswordAuthenticationToken authenticate(String header) {
+        if (header == null || !header.startsWith("Bearer ")) {
+            throw new BadCredentialsException("Missing bearer token on CONNECT");
+        }
+        // extractUsername verifies the signature and expiry, so the token is parsed only once
+        String username = jwtUtils.extractUsername(header.substring(7));
+        if (username == null) {
+            throw new BadCredentialsException("Invalid or expired token");
+        }
+        UserDetails user = userDetailsService.loadUserByUsername(username);
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+}
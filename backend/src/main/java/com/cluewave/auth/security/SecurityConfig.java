@@ -46,7 +46,8 @@ public class SecurityConfig {
                                 "/manifest.webmanifest"
                         ).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
-                        .requestMatchers("/ws/**").permitAll()
+                        // the handshake cannot carry headers; STOMP CONNECT is authenticated instead
+                        .requestMatchers("/ws-game", "/ws-game/**").permitAll()
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
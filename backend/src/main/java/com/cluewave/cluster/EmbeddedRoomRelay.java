@@ -0,0 +1,89 @@
+// ---------------------------------------------------------------------
+// EMBEDDED ROOM RELAY
+// In-JVM RoomRelay for running several nodes on one machine, e.g. in tests and
+// benchmarks. Frames, with their still unencoded binary body, are handed to each receiving node's own delivery thread, so a slow
+// node never holds up the publisher and frames from one origin stay in order. Commands
+// run directly on the calling thread against the target node.
+// ---------------------------------------------------------------------
+
+package com.cluewave.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public class EmbeddedRoomRelay implements RoomRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedRoomRelay.class);
+
+    private final Map<String, Node> nodes = new ConcurrentHashMap<>();
+    private final LongAdder delivered = new LongAdder();
+
+    private record Node(Receiver receiver, ExecutorService inbox) {}
+
+    @Override
+    public void register(String nodeId, Receiver receiver) {
+        Node node = new Node(receiver, Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("room-relay-" + nodeId).daemon().factory()));
+        Node previous = nodes.put(nodeId, node);
+        if (previous != null) {
+            previous.inbox().shutdown();
+        }
+    }
+
+    @Override
+    public void unregister(String nodeId) {
+        Node node = nodes.remove(nodeId);
+        if (node != null) {
+            node.inbox().shutdown();
+        }
+    }
+
+    @Override
+    public void publish(String origin, String destination, byte[] json, Supplier<byte[]> binary) {
+        for (Map.Entry<String, Node> entry : nodes.entrySet()) {
+            if (entry.getKey().equals(origin)) {
+                continue;
+            }
+            Receiver receiver = entry.getValue().receiver();
+            entry.getValue().inbox().execute(() -> {
+                try {
+                    receiver.onFrame(destination, json, binary);
+                    delivered.increment();
+                } catch (RuntimeException ex) {
+                    log.warn("Relayed frame for {} failed on node {}", destination, entry.getKey(), ex);
+                }
+            });
+        }
+    }
+
+    @Override
+    public CompletableFuture<Object> request(String nodeId, RoomCommand command) {
+        Node node = nodes.get(nodeId);
+        if (node == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Node not connected: " + nodeId));
+        }
+        try {
+            return CompletableFuture.completedFuture(node.receiver().onCommand(command));
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    public void shutdown() {
+        for (String nodeId : nodes.keySet()) {
+            unregister(nodeId);
+        }
+    }
+
+    public long framesDelivered() {
+        return delivered.sum();
+    }
+}
@@ -0,0 +1,99 @@
+// ---------------------------------------------------------------------
+// ROOM AFFINITY
+// Maps every room code to the node that owns it. Nodes are listed in cluster.nodes and
+// this node names itself with cluster.node-id; without a node list the application runs
+// as a single node that owns every room. Ownership uses rendezvous hashing of the code,
+// so each node owns an even share and adding a node only moves the rooms it takes over.
+// ---------------------------------------------------------------------
+
+package com.cluewave.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Component
+public class RoomAffinity {
+
+    private static final String SINGLE_NODE = "local";
+
+    private final String nodeId;
+    private final String[] nodes;
+    private final int[] nodeHashes;
+
+    public RoomAffinity(@Value("${cluster.node-id:}") String nodeId,
+                        @Value("${cluster.nodes:}") String nodes) {
+        String[] list = Arrays.stream(nodes.split(","))
+                .map(String::trim)
+                .filter(node -> !node.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+        if (list.length == 0) {
+            list = new String[] {nodeId.isBlank() ? SINGLE_NODE : nodeId.trim()};
+        }
+        String self = nodeId.isBlank() && list.length == 1 ? list[0] : nodeId.trim();
+        if (!Arrays.asList(list).contains(self)) {
+            throw new IllegalArgumentException("cluster.node-id must be one of cluster.nodes: " + self);
+        }
+        this.nodeId = self;
+        this.nodes = list;
+        this.nodeHashes = new int[list.length];
+        for (int i = 0; i < list.length; i++) {
+            nodeHashes[i] = list[i].hashCode();
+        }
+    }
+
+    public static RoomAffinity single() {
+        return new RoomAffinity("", "");
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public List<String> nodes() {
+        return List.of(nodes);
+    }
+
+    public boolean isClustered() {
+        return nodes.length > 1;
+    }
+
+    // Fraction of all room codes owned by this node.
+    public double share() {
+        return 1.0 / nodes.length;
+    }
+
+    public boolean isLocal(String code) {
+        return nodes.length == 1 || nodeId.equals(owner(code));
+    }
+
+    public String owner(String code) {
+        if (nodes.length == 1) {
+            return nodes[0];
+        }
+        int codeHash = code.hashCode();
+        int best = 0;
+        long bestScore = Long.MIN_VALUE;
+        for (int i = 0; i < nodes.length; i++) {
+            long score = mix(codeHash, nodeHashes[i]);
+            if (score > bestScore) {
+                bestScore = score;
+                best = i;
+            }
+        }
+        return nodes[best];
+    }
+
+    // 64-bit finalizer of the pair, so similar codes spread over all nodes.
+    private static long mix(int codeHash, int nodeHash) {
+        long h = ((long) codeHash << 32) ^ (nodeHash & 0xFFFFFFFFL);
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
@@ -0,0 +1,36 @@
+// ---------------------------------------------------------------------
+// ROOM COMMAND
+// A room command forwarded by RoomRouter to the node that owns the room. Plain strings
+// only, so a networked relay can serialize it as is: the room code, plus the player name,
+// player id, host email, version, or guessed position the command needs in argument
+// and value, and for joins and guesses the account of the signed-in caller.
+// ---------------------------------------------------------------------
+
+package com.cluewave.cluster;
+
+public record RoomCommand(Type type, String code, String argument, String value, String account) {
+
+    public enum Type {
+        JOIN,
+        JOIN_BY_EMAIL,
+        STATE,
+        ETAG,
+        START_ROUND,
+        GUESS,
+        LOCK_GUESS,
+        REVEAL,
+        FINISH,
+        CLOSE,
+        SET_AWAY,
+        REMOVE_PLAYER,
+        OWNS_PLAYER
+    }
+
+    public static RoomCommand of(Type type, String code) {
+        return new RoomCommand(type, code, null, null, null);
+    }
+
+    public static RoomCommand of(Type type, String code, String argument) {
+        return new RoomCommand(type, code, argument, null, null);
+    }
+}
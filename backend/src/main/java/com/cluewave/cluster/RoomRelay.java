@@ -0,0 +1,33 @@
+// ---------------------------------------------------------------------
+// ROOM RELAY
+// Transport between the nodes of a cluster. Room frames published by the owner node are
+// delivered to every other node, in publish order per origin, for its local subscribers;
+// room commands are sent to one node and answered with the command's result, or fail
+// with the exception the owner raised. The binary body of a frame is a memoized supplier
+// so it is encoded only if some session needs it: a receiver hands it to its broker,
+// which asks for it only for binary sessions, and a networked relay should ship it only
+// to nodes that report binary subscribers. EmbeddedRoomRelay connects nodes in one JVM;
+// a networked relay registers itself as the RoomRelay bean instead.
+// ---------------------------------------------------------------------
+
+package com.cluewave.cluster;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+public interface RoomRelay {
+
+    void register(String nodeId, Receiver receiver);
+
+    void unregister(String nodeId);
+
+    void publish(String origin, String destination, byte[] json, Supplier<byte[]> binary);
+
+    CompletableFuture<Object> request(String nodeId, RoomCommand command);
+
+    interface Receiver {
+        void onFrame(String destination, byte[] json, Supplier<byte[]> binary);
+
+        Object onCommand(RoomCommand command);
+    }
+}
@@ -0,0 +1,258 @@
+// ---------------------------------------------------------------------
+// ROOM ROUTER
+// Entry point of the controllers for room commands in single-node and cluster mode.
+// Commands on a room run on this node's RoomService when it owns the room code and are
+// forwarded over the RoomRelay to the owner otherwise; new rooms are always created
+// locally, with a code from this node's share. Room frames broadcast here are published
+// on the relay, and frames relayed from other nodes go to the local broker, so clients
+// may connect to any node. Without cluster.nodes everything runs locally.
+// ---------------------------------------------------------------------
+
+package com.cluewave.cluster;
+
+import com.cluewave.dto.PlayerDTO;
+import com.cluewave.dto.RoomDTO;
+import com.cluewave.dto.RoundDTO;
+import com.cluewave.service.GameBroadcastService;
+import com.cluewave.service.RoomService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+@Component
+public class RoomRouter implements RoomRelay.Receiver, MeterBinder {
+
+    private final RoomService roomService;
+    private final RoomAffinity affinity;
+    private final RoomRelay relay;
+    private final GameBroadcastService broadcastService;
+    private final long requestTimeoutMs;
+
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder framesOut = new LongAdder();
+    private final LongAdder framesIn = new LongAdder();
+
+    @Autowired
+    public RoomRouter(RoomService roomService, RoomAffinity affinity, RoomRelay relay,
+                      GameBroadcastService broadcastService,
+                      @Value("${cluster.request-timeout-ms:5000}") long requestTimeoutMs) {
+        this.roomService = roomService;
+        this.affinity = affinity;
+        this.relay = relay;
+        this.broadcastService = broadcastService;
+        this.requestTimeoutMs = requestTimeoutMs;
+        if (affinity.isClustered()) {
+            relay.register(affinity.nodeId(), this);
+            broadcastService.addFrameListener(this::relayFrame);
+        }
+    }
+
+    // Single-node router that runs every command on the given service.
+    public static RoomRouter local(RoomService roomService) {
+        return new RoomRouter(roomService, RoomAffinity.single(), null, null, 0);
+    }
+
+    public RoomDTO createRoom(String hostName, String hostEmail) {
+        return roomService.createRoom(hostName, hostEmail);
+    }
+
+    public RoomDTO createRoom(String hostName, String hostEmail, int capacity) {
+        return roomService.createRoom(hostName, hostEmail, capacity);
+    }
+
+    public PlayerDTO joinRoom(String code, String playerName, String account) {
+        return route(code, () -> roomService.joinRoom(code, playerName, account),
+                new RoomCommand(RoomCommand.Type.JOIN, code, playerName, null, account));
+    }
+
+    // The host email index is per node, so other nodes are asked in turn when the host's
+    // room is not here.
+    public RoomDTO joinRoomByEmail(String email, String playerName, String account) {
+        IllegalArgumentException notFound;
+        try {
+            return roomService.joinRoomByEmail(email, playerName, account);
+        } catch (IllegalArgumentException ex) {
+            notFound = ex;
+        }
+        for (String node : affinity.nodes()) {
+            if (node.equals(affinity.nodeId())) {
+                continue;
+            }
+            try {
+                return (RoomDTO) request(node,
+                        new RoomCommand(RoomCommand.Type.JOIN_BY_EMAIL, null, email, playerName, account));
+            } catch (IllegalArgumentException ex) {
+                notFound = ex;
+            }
+        }
+        throw notFound;
+    }
+
+    public RoomDTO getRoomState(String code) {
+        return route(code, () -> roomService.getRoomState(code), RoomCommand.of(RoomCommand.Type.STATE, code));
+    }
+
+    public String getRoomETag(String code) {
+        return route(code, () -> roomService.getRoomETag(code), RoomCommand.of(RoomCommand.Type.ETAG, code));
+    }
+
+    public String getRoomETag(String code, long version) {
+        return route(code, () -> roomService.getRoomETag(code, version),
+                RoomCommand.of(RoomCommand.Type.ETAG, code, Long.toString(version)));
+    }
+
+    public RoundDTO startRound(String code) {
+        return route(code, () -> roomService.startRound(code), RoomCommand.of(RoomCommand.Type.START_ROUND, code));
+    }
+
+    public void submitGuess(String code, String playerId, double position, boolean lock, String account) {
+        route(code, () -> {
+            roomService.submitGuess(code, playerId, position, lock, account);
+            return null;
+        }, new RoomCommand(lock ? RoomCommand.Type.LOCK_GUESS : RoomCommand.Type.GUESS, code, playerId,
+                Double.toString(position), account));
+    }
+
+    public RoundDTO revealRound(String code) {
+        return route(code, () -> roomService.revealRound(code), RoomCommand.of(RoomCommand.Type.REVEAL, code));
+    }
+
+    public RoomDTO finishGame(String code) {
+        return route(code, () -> roomService.finishGame(code), RoomCommand.of(RoomCommand.Type.FINISH, code));
+    }
+
+    public void closeRoom(String code) {
+        route(code, () -> {
+            roomService.closeRoom(code);
+            return null;
+        }, RoomCommand.of(RoomCommand.Type.CLOSE, code));
+    }
+
+    // A remote owner gets the flag as it is now; only local rooms re-read it on the mailbox.
+    public boolean setPlayerAway(String code, String playerId, BooleanSupplier away) {
+        if (affinity.isLocal(code)) {
+            return roomService.setPlayerAway(code, playerId, away);
+        }
+        return (Boolean) request(affinity.owner(code), new RoomCommand(RoomCommand.Type.SET_AWAY, code,
+                playerId, Boolean.toString(away.getAsBoolean()), null));
+    }
+
+    public boolean removePlayer(String code, String playerId) {
+        return route(code, () -> roomService.removePlayer(code, playerId),
+                RoomCommand.of(RoomCommand.Type.REMOVE_PLAYER, code, playerId));
+    }
+
+    public boolean ownsPlayer(String code, String playerId, String account) {
+        return route(code, () -> roomService.ownsPlayer(code, playerId, account),
+                new RoomCommand(RoomCommand.Type.OWNS_PLAYER, code, playerId, null, account));
+    }
+
+    @Override
+    public Object onCommand(RoomCommand command) {
+        String code = command.code();
+        return switch (command.type()) {
+            case JOIN -> roomService.joinRoom(code, command.argument(), command.account());
+            case JOIN_BY_EMAIL -> roomService.joinRoomByEmail(command.argument(), command.value(), command.account());
+            case STATE -> roomService.getRoomState(code);
+            case ETAG -> command.argument() == null ? roomService.getRoomETag(code)
+                    : roomService.getRoomETag(code, Long.parseLong(command.argument()));
+            case START_ROUND -> roomService.startRound(code);
+            case GUESS, LOCK_GUESS -> {
+                roomService.submitGuess(code, command.argument(), Double.parseDouble(command.value()),
+                        command.type() == RoomCommand.Type.LOCK_GUESS, command.account());
+                yield null;
+            }
+            case REVEAL -> roomService.revealRound(code);
+            case FINISH -> roomService.finishGame(code);
+            case CLOSE -> {
+                roomService.closeRoom(code);
+                yield null;
+            }
+            case SET_AWAY -> roomService.setPlayerAway(code, command.argument(), Boolean.parseBoolean(command.value()));
+            case REMOVE_PLAYER -> roomService.removePlayer(code, command.argument());
+            case OWNS_PLAYER -> roomService.ownsPlayer(code, command.argument(), command.account());
+        };
+    }
+
+    @Override
+    public void onFrame(String destination, byte[] json, Supplier<byte[]> binary) {
+        framesIn.increment();
+        broadcastService.sendRelayed(destination, json, binary);
+    }
+
+    public long commandsForwarded() {
+        return forwarded.sum();
+    }
+
+    public long framesRelayedOut() {
+        return framesOut.sum();
+    }
+
+    public long framesRelayedIn() {
+        return framesIn.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cluster.commands.forwarded", this, RoomRouter::commandsForwarded)
+                .description("Room commands forwarded to the node owning the room")
+                .register(registry);
+        FunctionCounter.builder("cluster.frames.relayed.out", this, RoomRouter::framesRelayedOut)
+                .description("Room frames of local rooms published to the other nodes")
+                .register(registry);
+        FunctionCounter.builder("cluster.frames.relayed.in", this, RoomRouter::framesRelayedIn)
+                .description("Room frames from other nodes delivered to local subscribers")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (affinity.isClustered()) {
+            relay.unregister(affinity.nodeId());
+        }
+    }
+
+    // The binary body stays unencoded until a node has a binary session for it, then is
+    // encoded once and shared by every node.
+    private void relayFrame(String destination, byte[] json, Supplier<byte[]> binary) {
+        framesOut.increment();
+        relay.publish(affinity.nodeId(), destination, json, binary);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T route(String code, Supplier<T> local, RoomCommand command) {
+        if (affinity.isLocal(code)) {
+            return local.get();
+        }
+        return (T) request(affinity.owner(code), command);
+    }
+
+    // Rethrows the owner's own exception, like a local command would.
+    private Object request(String node, RoomCommand command) {
+        forwarded.increment();
+        try {
+            return relay.request(node, command).get(requestTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Room command failed on node " + node, ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new IllegalStateException("Node " + node + " did not answer in time");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for node " + node);
+        }
+    }
+}
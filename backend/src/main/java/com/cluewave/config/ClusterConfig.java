@@ -0,0 +1,32 @@
+// ---------------------------------------------------------------------
+// CLUSTER CONFIGURATION
+// Provides the RoomRelay that connects the nodes listed in cluster.nodes.
+// cluster.relay=embedded uses the in-JVM EmbeddedRoomRelay; any other value leaves it
+// out so a networked RoomRelay bean can be supplied instead. A single node defaults to
+// the embedded relay, but a node list requires cluster.relay to be set: the embedded
+// relay only reaches nodes in the same JVM, so separate processes would fail every
+// forwarded command with "Node not connected".
+// ---------------------------------------------------------------------
+
+package com.cluewave.config;
+
+import com.cluewave.cluster.EmbeddedRoomRelay;
+import com.cluewave.cluster.RoomAffinity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ClusterConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "cluster.relay", havingValue = "embedded", matchIfMissing = true)
+    public EmbeddedRoomRelay roomRelay(RoomAffinity affinity, @Value("${cluster.relay:}") String relay) {
+        if (affinity.isClustered() && relay.isBlank()) {
+            throw new IllegalStateException("cluster.relay must be set when cluster.nodes lists several nodes: "
+                    + affinity.nodes());
+        }
+        return new EmbeddedRoomRelay();
+    }
+}
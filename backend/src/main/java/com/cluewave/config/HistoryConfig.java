@@ -0,0 +1,40 @@
+// ---------------------------------------------------------------------
+// MATCH HISTORY CONFIGURATION
+// Provides the Postgres-backed MatchHistoryStore that the history API reads from, and,
+// unless rooms.history.enabled=false, the MatchHistoryWriter that stores finished games
+// behind the game. The writer starts once every bean exists and stores what is still
+// queued on shutdown, before the connection pool closes.
+// ---------------------------------------------------------------------
+
+package com.cluewave.config;
+
+import com.cluewave.history.JdbcMatchHistoryStore;
+import com.cluewave.history.MatchHistoryStore;
+import com.cluewave.history.MatchHistoryWriter;
+import com.cluewave.service.RoomService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+public class HistoryConfig {
+
+    @Bean
+    public MatchHistoryStore matchHistoryStore(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        return new JdbcMatchHistoryStore(jdbcTemplate, transactionTemplate);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "rooms.history.enabled", havingValue = "true", matchIfMissing = true)
+    public MatchHistoryWriter matchHistoryWriter(RoomService roomService, MatchHistoryStore store,
+                                                 @Value("${rooms.history.queue-capacity:10000}") int queueCapacity,
+                                                 @Value("${rooms.history.batch-size:200}") int batchSize,
+                                                 @Value("${rooms.history.linger-ms:1000}") long lingerMs,
+                                                 @Value("${rooms.history.max-attempts:5}") int maxAttempts,
+                                                 @Value("${rooms.history.retry-backoff-ms:500}") long backoffMs) {
+        return new MatchHistoryWriter(roomService, store, queueCapacity, batchSize, lingerMs, maxAttempts, backoffMs);
+    }
+}
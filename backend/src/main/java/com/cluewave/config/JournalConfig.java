@@ -0,0 +1,40 @@
+// ---------------------------------------------------------------------
+// JOURNAL CONFIGURATION
+// Provides the RoomJournal when rooms.journal.enabled=true. The journal replays its
+// segments from rooms.journal.dir once every bean exists, before the web server starts,
+// and flushes what is still queued on shutdown. Provides the RoomSnapshotStore when
+// rooms.snapshot.enabled=true, which saves the live rooms to rooms.snapshot.file on
+// graceful shutdown and restores them on the next startup.
+// ---------------------------------------------------------------------
+
+package com.cluewave.config;
+
+import com.cluewave.journal.RoomJournal;
+import com.cluewave.journal.RoomSnapshotStore;
+import com.cluewave.service.RoomService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class JournalConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "rooms.journal.enabled", havingValue = "true")
+    public RoomJournal roomJournal(RoomService roomService,
+                                   @Value("${rooms.journal.dir:data/journal}") String dir,
+                                   @Value("${rooms.journal.segment-bytes:67108864}") int segmentBytes,
+                                   @Value("${rooms.journal.flush-ms:20}") long flushMs) {
+        return new RoomJournal(roomService, Path.of(dir), segmentBytes, flushMs);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "rooms.snapshot.enabled", havingValue = "true")
+    public RoomSnapshotStore roomSnapshotStore(RoomService roomService,
+                                               @Value("${rooms.snapshot.file:data/rooms.snapshot}") String file) {
+        return new RoomSnapshotStore(roomService, Path.of(file));
+    }
+}
@@ -0,0 +1,32 @@
+// ---------------------------------------------------------------------
+// ROOM EXECUTOR CONFIGURATION
+// Provides the shared executor that drains per-room mailboxes.
+// Runs on virtual threads by default, or on a fixed pool of platform threads
+// when rooms.executor.mode=pool (sized by rooms.executor.threads, 0 = one per core).
+// ---------------------------------------------------------------------
+
+package com.cluewave.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class RoomExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService roomExecutor(@Value("${rooms.executor.mode:virtual}") String mode,
+                                        @Value("${rooms.executor.threads:0}") int threads) {
+        if ("pool".equalsIgnoreCase(mode)) {
+            int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+            return Executors.newFixedThreadPool(size, Thread.ofPlatform().name("room-", 0).daemon().factory());
+        }
+        if (!"virtual".equalsIgnoreCase(mode)) {
+            throw new IllegalArgumentException("Unknown rooms.executor.mode: " + mode);
+        }
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("room-", 0).factory());
+    }
+}
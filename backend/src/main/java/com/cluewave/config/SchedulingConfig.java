@@ -0,0 +1,15 @@
+// ---------------------------------------------------------------------
+// SCHEDULING CONFIGURATION
+// Enables Spring's @Scheduled support used by background maintenance tasks
+// such as the room reaper.
+// ---------------------------------------------------------------------
+
+package com.cluewave.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
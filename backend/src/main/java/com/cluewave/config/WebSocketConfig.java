@@ -1,29 +1,131 @@
 // ---------------------------------------------------------------------
 // WEBSOCKET CONFIGURATION
 // Enables STOMP over WebSocket and registers endpoints and message broker settings.
-// Configures a /ws-game endpoint for SockJS connections and /topic prefixes for broadcasting.
+// Configures a /ws-game endpoint for SockJS connections, /topic prefixes for broadcasting and
+// /queue for per-user replies to /app commands.
+// Inbound frames are authenticated once at CONNECT by JwtStompInterceptor; the wire format
+// interceptor records the session's format on CONNECT and rewrites room frames outbound.
+// The simple broker uses RoomSubscriptionRegistry for its per-room topics. Client channels
+// run on the executors of WebSocketExecutorConfig; inbound order is preserved per session and
+// outbound frames go through the per-session queues of SlowConsumerGuard. The broker channel
+// stays synchronous, so room frames keep the order their sender produced. The broker
+// exchanges STOMP heartbeats with clients that ask for them and drops sessions that go
+// silent, which lets PresenceTracker notice dead connections. Outbound frame bodies may be
+// deflated by FrameCompressionInterceptor; unless websocket.compression.mode=native the
+// container's own permessage-deflate is not negotiated.
 // ---------------------------------------------------------------------
 
 package com.cluewave.config;
 
+import com.cluewave.auth.security.JwtStompInterceptor;
+import com.cluewave.websocket.FrameCompressionInterceptor;
+import com.cluewave.websocket.NoContainerExtensionsUpgradeStrategy;
+import com.cluewave.websocket.RoomSubscriptionRegistry;
+import com.cluewave.websocket.SlowConsumerGuard;
+import com.cluewave.websocket.WireFormatInterceptor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.StompWebSocketEndpointRegistration;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.util.concurrent.Executor;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final JwtStompInterceptor jwtStompInterceptor;
+    private final WireFormatInterceptor wireFormatInterceptor;
+    private final SlowConsumerGuard slowConsumerGuard;
+    private final FrameCompressionInterceptor frameCompression;
+    private final Executor inboundExecutor;
+    private final Executor outboundExecutor;
+    private final long heartbeatMs;
+
+    public WebSocketConfig(JwtStompInterceptor jwtStompInterceptor,
+                           WireFormatInterceptor wireFormatInterceptor,
+                           SlowConsumerGuard slowConsumerGuard,
+                           FrameCompressionInterceptor frameCompression,
+                           @Qualifier("stompInboundExecutor") Executor inboundExecutor,
+                           @Qualifier("stompOutboundExecutor") Executor outboundExecutor,
+                           @Value("${websocket.heartbeat-ms:10000}") long heartbeatMs) {
+        this.jwtStompInterceptor = jwtStompInterceptor;
+        this.wireFormatInterceptor = wireFormatInterceptor;
+        this.slowConsumerGuard = slowConsumerGuard;
+        this.frameCompression = frameCompression;
+        this.inboundExecutor = inboundExecutor;
+        this.outboundExecutor = outboundExecutor;
+        this.heartbeatMs = heartbeatMs;
+    }
+
+    // One shared thread checks every session's heartbeat deadlines on each tick.
+    @Bean
+    public ThreadPoolTaskScheduler stompHeartbeatScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("stomp-heartbeat-");
+        return scheduler;
+    }
+
+    // The broker registration has no hook for the registry, so it is swapped in after creation.
+    @Bean
+    static BeanPostProcessor roomSubscriptionRegistryInstaller() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof SimpleBrokerMessageHandler broker) {
+                    broker.setSubscriptionRegistry(new RoomSubscriptionRegistry());
+                }
+                return bean;
+            }
+        };
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
-        registry.addEndpoint("/ws-game").setAllowedOrigins("*");
+        StompWebSocketEndpointRegistration endpoint = registry.addEndpoint("/ws-game");
+        if (frameCompression.mode() != FrameCompressionInterceptor.Mode.NATIVE) {
+            endpoint.setHandshakeHandler(new DefaultHandshakeHandler(new NoContainerExtensionsUpgradeStrategy()));
+        }
+        endpoint.setAllowedOrigins("*");
+        registry.setPreserveReceiveOrder(true);
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic");
+        registry.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(new long[] {heartbeatMs, heartbeatMs})
+                .setTaskScheduler(stompHeartbeatScheduler());
         registry.setApplicationDestinationPrefixes("/app");
     }
-}
\ No newline at end of file
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.executor(inboundExecutor)
+                .interceptors(jwtStompInterceptor, wireFormatInterceptor, frameCompression);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // the guard must come first so queued frames are converted only once released,
+        // and compression last so it sees the final body
+        registration.executor(outboundExecutor)
+                .interceptors(slowConsumerGuard, wireFormatInterceptor, frameCompression);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.addDecoratorFactory(slowConsumerGuard);
+    }
+}
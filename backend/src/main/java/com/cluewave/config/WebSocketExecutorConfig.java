@@ -0,0 +1,63 @@
+// ---------------------------------------------------------------------
+// WEBSOCKET EXECUTOR CONFIGURATION
+// Provides the executors behind the STOMP client inbound and outbound channels.
+// 'pool' mode uses fixed platform thread pools (websocket.channels.threads, 0 = two per
+// core) with an optional bounded queue that pushes back on the caller when full;
+// 'virtual' mode runs every message on its own virtual thread. Per-session ordering is
+// kept by WebSocketConfig in both modes.
+// ---------------------------------------------------------------------
+
+package com.cluewave.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class WebSocketExecutorConfig {
+
+    private final String mode;
+    private final int threads;
+    private final int queueCapacity;
+
+    public WebSocketExecutorConfig(@Value("${websocket.channels.mode:pool}") String mode,
+                                   @Value("${websocket.channels.threads:0}") int threads,
+                                   @Value("${websocket.channels.queue-capacity:0}") int queueCapacity) {
+        if (!"pool".equalsIgnoreCase(mode) && !"virtual".equalsIgnoreCase(mode)) {
+            throw new IllegalArgumentException("Unknown websocket.channels.mode: " + mode);
+        }
+        this.mode = mode;
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService stompInboundExecutor() {
+        return create(mode, threads, queueCapacity, "stomp-in-");
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService stompOutboundExecutor() {
+        return create(mode, threads, queueCapacity, "stomp-out-");
+    }
+
+    static ExecutorService create(String mode, int threads, int queueCapacity, String prefix) {
+        if ("virtual".equalsIgnoreCase(mode)) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory());
+        }
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors() * 2;
+        BlockingQueue<Runnable> queue = queueCapacity > 0
+                ? new ArrayBlockingQueue<>(queueCapacity) : new LinkedBlockingQueue<>();
+        // a full queue makes the sending thread run the message itself instead of failing it
+        return new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, queue,
+                Thread.ofPlatform().name(prefix, 0).daemon().factory(), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
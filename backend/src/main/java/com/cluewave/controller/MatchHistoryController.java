@@ -0,0 +1,46 @@
+// ---------------------------------------------------------------------
+// MATCH HISTORY REST CONTROLLER
+// Pages through the finished games the signed-in user hosted or played in, newest first,
+// matched by the account they joined with. A page
+// holds at most limit games (1 to 100) and the id to pass as before for the next page,
+// or null on the last one. Reads go straight to the store; games still waiting in the
+// write-behind queue show up once they are stored.
+// ---------------------------------------------------------------------
+
+package com.cluewave.controller;
+
+import com.cluewave.auth.security.UserPrincipal;
+import com.cluewave.history.MatchHistoryStore;
+import com.cluewave.history.MatchRecord;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/history")
+public class MatchHistoryController {
+
+    static final int MAX_LIMIT = 100;
+
+    private final MatchHistoryStore store;
+
+    public MatchHistoryController(MatchHistoryStore store) {
+        this.store = store;
+    }
+
+    public record HistoryPage(List<MatchRecord> matches, Long next) {}
+
+    @GetMapping
+    public HistoryPage history(@RequestParam(required = false) Long before,
+                               @RequestParam(defaultValue = "20") int limit,
+                               @AuthenticationPrincipal UserPrincipal principal) {
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<MatchRecord> matches = store.findByParticipant(principal.getUser().getEmail(), before, size);
+        Long next = matches.size() == size ? matches.get(matches.size() - 1).id() : null;
+        return new HistoryPage(matches, next);
+    }
+}
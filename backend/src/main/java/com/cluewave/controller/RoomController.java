@@ -1,7 +1,12 @@
 // ---------------------------------------------------------------------
 // ROOM REST CONTROLLER
 // Exposes HTTP endpoints for creating, joining, and managing game rooms.
-// Delegates business logic to RoomService and returns DTO representations.
+// Delegates business logic to RoomService through RoomRouter, which forwards commands
+// on rooms owned by another cluster node, and returns DTO representations.
+// Room reads carry a strong ETag so unchanged polls get a bodyless 304.
+// Players are tied to the signed-in account that joined; guesses are only accepted from
+// that account, with 204. The reveal returns the scored round, and finishing the game
+// returns the room with its final scores.
 // ---------------------------------------------------------------------
 
 package com.cluewave.controller;
@@ -9,28 +14,37 @@ package com.cluewave.controller;
 import com.cluewave.dto.PlayerDTO;
 import com.cluewave.dto.RoomDTO;
 import com.cluewave.dto.RoundDTO;
-import com.cluewave.service.RoomService;
 import com.cluewave.auth.security.UserPrincipal;
+import com.cluewave.cluster.RoomRouter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
 @RequestMapping("/api/rooms")
 public class RoomController {
-    private final RoomService roomService;
+    private final RoomRouter rooms;
 
-    public RoomController(RoomService roomService) {
-        this.roomService = roomService;
+    public RoomController(RoomRouter rooms) {
+        this.rooms = rooms;
     }
 
+    public record CreateRoomRequest(Integer capacity) {}
     public record JoinRequest(String playerName) {}
     public record JoinByEmailRequest(String email, String playerName) {}
+    public record GuessRequest(String playerId, double position, boolean lock) {}
 
     @PostMapping
-    public RoomDTO createRoom(@AuthenticationPrincipal UserPrincipal principal) {
+    public RoomDTO createRoom(@RequestBody(required = false) CreateRoomRequest req,
+                              @AuthenticationPrincipal UserPrincipal principal) {
         String username = principal.getUser().getUsername();
         String email = principal.getUser().getEmail();
-        return roomService.createRoom(username, email);
+        if (req != null && req.capacity() != null) {
+            return rooms.createRoom(username, email, req.capacity());
+        }
+        return rooms.createRoom(username, email);
     }
 
     @PostMapping("/{code}/join")
@@ -38,7 +52,7 @@ public class RoomController {
                               @AuthenticationPrincipal UserPrincipal principal) {
         String name = req.playerName() != null && !req.playerName().isBlank()
                 ? req.playerName() : principal.getUser().getUsername();
-        return roomService.joinRoom(code, name);
+        return rooms.joinRoom(code, name, principal.getUser().getEmail());
     }
 
     @PostMapping("/join-by-email")
@@ -46,16 +60,61 @@ public class RoomController {
                                @AuthenticationPrincipal UserPrincipal principal) {
         String name = req.playerName() != null && !req.playerName().isBlank()
                 ? req.playerName() : principal.getUser().getUsername();
-        return roomService.joinRoomByEmail(req.email(), name);
+        return rooms.joinRoomByEmail(req.email(), name, principal.getUser().getEmail());
     }
 
     @GetMapping("/{code}")
-    public RoomDTO getRoom(@PathVariable String code) {
-        return roomService.getRoomState(code);
+    public ResponseEntity<RoomDTO> getRoom(@PathVariable String code,
+                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                           String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            String current = rooms.getRoomETag(code);
+            if (matchesAny(ifNoneMatch, current)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current).build();
+            }
+        }
+        RoomDTO dto = rooms.getRoomState(code);
+        return ResponseEntity.ok()
+                .eTag(rooms.getRoomETag(code, dto.getVersion()))
+                .body(dto);
     }
 
     @PostMapping("/{code}/start-round")
     public RoundDTO startRound(@PathVariable String code) {
-        return roomService.startRound(code);
+        return rooms.startRound(code);
+    }
+
+    @PostMapping("/{code}/guesses")
+    public ResponseEntity<Void> submitGuess(@PathVariable String code, @RequestBody GuessRequest req,
+                                            @AuthenticationPrincipal UserPrincipal principal) {
+        rooms.submitGuess(code, req.playerId(), req.position(), req.lock(), principal.getUser().getEmail());
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/{code}/reveal")
+    public RoundDTO revealRound(@PathVariable String code) {
+        return rooms.revealRound(code);
+    }
+
+    @PostMapping("/{code}/finish")
+    public RoomDTO finishGame(@PathVariable String code) {
+        return rooms.finishGame(code);
+    }
+
+    // If-None-Match uses weak comparison and may list several tags or be "*".
+    static boolean matchesAny(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
     }
-}
\ No newline at end of file
+}
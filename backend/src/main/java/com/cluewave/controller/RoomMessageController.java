@@ -0,0 +1,99 @@
+// ---------------------------------------------------------------------
+// ROOM STOMP CONTROLLER
+// Exposes the room commands over the open WebSocket under the /app prefix, e.g.
+// /app/room/{code}/join and /app/room/{code}/start-round, as a cheaper path than REST.
+// Replies go to the calling session only on /user/queue/...; failures are reported
+// on /user/queue/errors. Room state changes still reach everyone on /topic/room/{code}.
+// Guesses get no reply; their results reach everyone with the reveal. A guess is only
+// accepted for a player that the session's account joined as.
+// A successful join binds the session to the new player for presence tracking.
+// ---------------------------------------------------------------------
+
+package com.cluewave.controller;
+
+import com.cluewave.auth.security.UserPrincipal;
+import com.cluewave.cluster.RoomRouter;
+import com.cluewave.dto.PlayerDTO;
+import com.cluewave.dto.RoomDTO;
+import com.cluewave.dto.RoundDTO;
+import com.cluewave.websocket.PresenceTracker;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+
+@Controller
+@MessageMapping("/room")
+public class RoomMessageController {
+    private final RoomRouter rooms;
+    private final PresenceTracker presenceTracker;
+
+    public RoomMessageController(RoomRouter rooms, PresenceTracker presenceTracker) {
+        this.rooms = rooms;
+        this.presenceTracker = presenceTracker;
+    }
+
+    public record CommandError(String destination, String error) {}
+
+    @MessageMapping("/{code}/join")
+    @SendToUser(destinations = "/queue/join", broadcast = false)
+    public PlayerDTO joinRoom(@DestinationVariable String code,
+                              @Payload(required = false) RoomController.JoinRequest req,
+                              Principal principal,
+                              @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        String name = req != null && req.playerName() != null && !req.playerName().isBlank()
+                ? req.playerName() : user(principal).getUser().getUsername();
+        PlayerDTO player = rooms.joinRoom(code, name, user(principal).getUser().getEmail());
+        presenceTracker.bind(sessionId, code, player.getId());
+        return player;
+    }
+
+    @MessageMapping("/{code}/state")
+    @SendToUser(destinations = "/queue/state", broadcast = false)
+    public RoomDTO getRoom(@DestinationVariable String code) {
+        return rooms.getRoomState(code);
+    }
+
+    @MessageMapping("/{code}/start-round")
+    @SendToUser(destinations = "/queue/round", broadcast = false)
+    public RoundDTO startRound(@DestinationVariable String code) {
+        return rooms.startRound(code);
+    }
+
+    @MessageMapping("/{code}/guess")
+    public void submitGuess(@DestinationVariable String code, @Payload RoomController.GuessRequest req,
+                            Principal principal) {
+        rooms.submitGuess(code, req.playerId(), req.position(), req.lock(), user(principal).getUser().getEmail());
+    }
+
+    @MessageMapping("/{code}/reveal")
+    @SendToUser(destinations = "/queue/round", broadcast = false)
+    public RoundDTO revealRound(@DestinationVariable String code) {
+        return rooms.revealRound(code);
+    }
+
+    @MessageMapping("/{code}/finish")
+    @SendToUser(destinations = "/queue/state", broadcast = false)
+    public RoomDTO finishGame(@DestinationVariable String code) {
+        return rooms.finishGame(code);
+    }
+
+    @MessageExceptionHandler({IllegalArgumentException.class, IllegalStateException.class})
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public CommandError handleError(RuntimeException ex,
+                                    @Header(SimpMessageHeaderAccessor.DESTINATION_HEADER) String destination) {
+        return new CommandError(destination, ex.getMessage());
+    }
+
+    // The principal was bound once at CONNECT by JwtStompInterceptor.
+    private static UserPrincipal user(Principal principal) {
+        return (UserPrincipal) ((Authentication) principal).getPrincipal();
+    }
+}
@@ -0,0 +1,31 @@
+// ---------------------------------------------------------------------
+// GUESS DTO
+// One player's result in a revealed round: the slider position they guessed
+// (null when they did not guess) and the points it scored.
+// ---------------------------------------------------------------------
+
+package com.cluewave.dto;
+
+public class GuessDTO {
+    private final String playerId;
+    private final Double position;
+    private final int points;
+
+    public GuessDTO(String playerId, Double position, int points) {
+        this.playerId = playerId;
+        this.position = position;
+        this.points = points;
+    }
+
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    public Double getPosition() {
+        return position;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+}
@@ -1,6 +1,6 @@
 // ---------------------------------------------------------------------
 // PLAYER DTO
-// Represents a player in a game room with an id, name, and score.
+// Represents a player in a game room with an id, name, score, and away flag.
 // Used to send player information to clients without exposing internal model.
 // ---------------------------------------------------------------------
 
@@ -10,11 +10,17 @@ public class PlayerDTO {
     private final String id;
     private final String name;
     private final int score;
+    private final boolean away;
 
     public PlayerDTO(String id, String name, int score) {
+        this(id, name, score, false);
+    }
+
+    public PlayerDTO(String id, String name, int score, boolean away) {
         this.id = id;
         this.name = name;
         this.score = score;
+        this.away = away;
     }
 
     public String getId() {
@@ -28,4 +34,8 @@ public class PlayerDTO {
     public int getScore() {
         return score;
     }
+
+    public boolean isAway() {
+        return away;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+// ---------------------------------------------------------------------
+// ROOM CLOSED DTO
+// Final message published on a room topic when the room is removed from memory.
+// Carries the room code, the terminal "closed" state, and the reason for closing.
+// ---------------------------------------------------------------------
+
+package com.cluewave.dto;
+
+public class RoomClosedDTO {
+    private final String code;
+    private final String reason;
+
+    public RoomClosedDTO(String code, String reason) {
+        this.code = code;
+        this.reason = reason;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getState() {
+        return "closed";
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
@@ -1,7 +1,8 @@
 // ---------------------------------------------------------------------
 // ROOM DTO
 // Represents the state of a game room including players, current round, and host info.
-// Encapsulates room code, list of PlayerDTOs, current round, state, and host details.
+// Encapsulates room code, list of PlayerDTOs, current round, state, host details, capacity,
+// and the room version it was built from. Instances are immutable snapshots shared by readers.
 // ---------------------------------------------------------------------
 
 package com.cluewave.dto;
@@ -15,15 +16,19 @@ public class RoomDTO {
     private final String state;
     private final String hostName;
     private final String hostEmail;
+    private final int capacity;
+    private final long version;
 
     public RoomDTO(String code, List<PlayerDTO> players, RoundDTO currentRound,
-                   String state, String hostName, String hostEmail) {
+                   String state, String hostName, String hostEmail, int capacity, long version) {
         this.code = code;
         this.players = players;
         this.currentRound = currentRound;
         this.state = state;
         this.hostName = hostName;
         this.hostEmail = hostEmail;
+        this.capacity = capacity;
+        this.version = version;
     }
 
     public String getCode() {
@@ -49,4 +54,12 @@ public class RoomDTO {
     public String getHostEmail() {
         return hostEmail;
     }
-}
\ No newline at end of file
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,62 @@
+// ---------------------------------------------------------------------
+// ROOM PATCH DTO
+// Delta between two versions of a room, broadcast instead of a full RoomDTO.
+// Only changed fields are serialized; clients apply it when their version equals
+// fromVersion and otherwise fall back to a full snapshot from GET /api/rooms/{code}.
+// ---------------------------------------------------------------------
+
+package com.cluewave.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RoomPatchDTO {
+    private final String code;
+    private final long fromVersion;
+    private final long version;
+    private final String state;
+    private final RoundDTO currentRound;
+    private final List<PlayerDTO> players;
+    private final List<String> removedPlayers;
+
+    public RoomPatchDTO(String code, long fromVersion, long version, String state, RoundDTO currentRound,
+                        List<PlayerDTO> players, List<String> removedPlayers) {
+        this.code = code;
+        this.fromVersion = fromVersion;
+        this.version = version;
+        this.state = state;
+        this.currentRound = currentRound;
+        this.players = players;
+        this.removedPlayers = removedPlayers;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public long getFromVersion() {
+        return fromVersion;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public RoundDTO getCurrentRound() {
+        return currentRound;
+    }
+
+    public List<PlayerDTO> getPlayers() {
+        return players;
+    }
+
+    public List<String> getRemovedPlayers() {
+        return removedPlayers;
+    }
+}
@@ -1,20 +1,43 @@
 // ---------------------------------------------------------------------
 // ROUND DTO
 // Represents the prompts and reveal state for a single round of the game.
-// Contains left and right prompts and whether the answer has been revealed.
+// Contains left and right prompts and whether the answer has been revealed; once it
+// has, also the target position and every player's guess and points. The round id only
+// tells rounds apart on the server and is not sent to clients.
 // ---------------------------------------------------------------------
 
 package com.cluewave.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
 public class RoundDTO {
     private final String promptLeft;
     private final String promptRight;
     private final boolean revealed;
+    private final Double targetPosition;
+    private final List<GuessDTO> results;
+    private final long roundId;
 
     public RoundDTO(String promptLeft, String promptRight, boolean revealed) {
+        this(promptLeft, promptRight, revealed, null, null);
+    }
+
+    public RoundDTO(String promptLeft, String promptRight, boolean revealed, Double targetPosition,
+                    List<GuessDTO> results) {
+        this(promptLeft, promptRight, revealed, targetPosition, results, 0);
+    }
+
+    public RoundDTO(String promptLeft, String promptRight, boolean revealed, Double targetPosition,
+                    List<GuessDTO> results, long roundId) {
         this.promptLeft = promptLeft;
         this.promptRight = promptRight;
         this.revealed = revealed;
+        this.targetPosition = targetPosition;
+        this.results = results;
+        this.roundId = roundId;
     }
 
     public String getPromptLeft() {
@@ -28,4 +51,19 @@ public class RoundDTO {
     public boolean isRevealed() {
         return revealed;
     }
-}
\ No newline at end of file
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Double getTargetPosition() {
+        return targetPosition;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public List<GuessDTO> getResults() {
+        return results;
+    }
+
+    @JsonIgnore
+    public long getRoundId() {
+        return roundId;
+    }
+}
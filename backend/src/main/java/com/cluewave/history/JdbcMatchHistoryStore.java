@@ -0,0 +1,121 @@
+// ---------------------------------------------------------------------
+// JDBC MATCH HISTORY STORE
+// Postgres-backed MatchHistoryStore over the match_history and match_participants tables
+// (db/match_history.sql). A batch is one JDBC batch of games and one of participants in
+// one transaction, so it holds a single pooled connection for two round trips. Player
+// names and scores are parallel text[] and int[] columns; every participant gets a row
+// keyed by account and game id. A game is identified by its room code and creation time,
+// so a batch retried after a commit whose acknowledgement was lost inserts nothing twice.
+// Accounts are stored trimmed and lower-cased, and pages are read from an account's
+// participant rows by game id with a keyset condition.
+// ---------------------------------------------------------------------
+
+package com.cluewave.history;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+public class JdbcMatchHistoryStore implements MatchHistoryStore {
+
+    private static final String INSERT = """
+            INSERT INTO match_history (room_code, host_email, host_name, started_at, finished_at,
+                                       player_names, player_scores)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (room_code, started_at) DO NOTHING""";
+
+    private static final String INSERT_PARTICIPANT = """
+            INSERT INTO match_participants (account, match_id)
+            SELECT ?, id FROM match_history WHERE room_code = ? AND started_at = ?
+            ON CONFLICT DO NOTHING""";
+
+    private static final String SELECT = """
+            SELECT m.id, m.room_code, m.host_email, m.host_name, m.started_at, m.finished_at,
+                   m.player_names, m.player_scores
+            FROM match_participants p JOIN match_history m ON m.id = p.match_id
+            WHERE p.account = ?""";
+
+    private record Participant(String account, MatchRecord record) {}
+
+    private static final RowMapper<MatchRecord> ROW = (rs, row) -> {
+        String[] names = (String[]) rs.getArray("player_names").getArray();
+        Integer[] scores = (Integer[]) rs.getArray("player_scores").getArray();
+        List<MatchRecord.PlayerResult> players = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            players.add(new MatchRecord.PlayerResult(names[i], scores[i]));
+        }
+        return new MatchRecord(rs.getLong("id"), rs.getString("room_code"), rs.getString("host_email"),
+                rs.getString("host_name"), rs.getTimestamp("started_at").getTime(),
+                rs.getTimestamp("finished_at").getTime(), players, List.of());
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcMatchHistoryStore(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void saveAll(List<MatchRecord> records) {
+        List<Participant> participants = new ArrayList<>();
+        for (MatchRecord record : records) {
+            Set<String> accounts = new LinkedHashSet<>();
+            accounts.add(normalize(record.hostEmail()));
+            for (String account : record.participants()) {
+                if (account != null) {
+                    accounts.add(normalize(account));
+                }
+            }
+            for (String account : accounts) {
+                participants.add(new Participant(account, record));
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT, records, records.size(), (ps, record) -> {
+                String[] names = new String[record.players().size()];
+                Integer[] scores = new Integer[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = record.players().get(i).name();
+                    scores[i] = record.players().get(i).score();
+                }
+                Array nameArray = ps.getConnection().createArrayOf("text", names);
+                Array scoreArray = ps.getConnection().createArrayOf("integer", scores);
+                ps.setString(1, record.roomCode());
+                ps.setString(2, normalize(record.hostEmail()));
+                ps.setString(3, record.hostName());
+                ps.setTimestamp(4, new Timestamp(record.startedAt()));
+                ps.setTimestamp(5, new Timestamp(record.finishedAt()));
+                ps.setArray(6, nameArray);
+                ps.setArray(7, scoreArray);
+            });
+            jdbcTemplate.batchUpdate(INSERT_PARTICIPANT, participants, participants.size(), (ps, p) -> {
+                ps.setString(1, p.account());
+                ps.setString(2, p.record().roomCode());
+                ps.setTimestamp(3, new Timestamp(p.record().startedAt()));
+            });
+        });
+    }
+
+    @Override
+    public List<MatchRecord> findByParticipant(String account, Long before, int limit) {
+        if (before == null) {
+            return jdbcTemplate.query(SELECT + " ORDER BY p.match_id DESC LIMIT ?", ROW, normalize(account), limit);
+        }
+        return jdbcTemplate.query(SELECT + " AND p.match_id < ? ORDER BY p.match_id DESC LIMIT ?", ROW,
+                normalize(account), before, limit);
+    }
+
+    static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,20 @@
+// ---------------------------------------------------------------------
+// MATCH HISTORY STORE
+// Where finished games are persisted. MatchHistoryWriter hands it whole batches from its
+// single writer thread; reads page through the games one account took part in, newest
+// first, by id.
+// ---------------------------------------------------------------------
+
+package com.cluewave.history;
+
+import java.util.List;
+
+public interface MatchHistoryStore {
+
+    // Stores every record of the batch or none of them.
+    void saveAll(List<MatchRecord> records);
+
+    // At most limit games the account took part in, newest first, with an id below before
+    // when it is set.
+    List<MatchRecord> findByParticipant(String account, Long before, int limit);
+}
@@ -0,0 +1,230 @@
+// ---------------------------------------------------------------------
+// MATCH HISTORY WRITER
+// Write-behind persistence of finished games. A game that reaches the "finished" state
+// becomes a MatchRecord on its mailbox, with the accounts of the players seated at the
+// end as participants, and is offered to a bounded in-memory queue; the offer never
+// waits, and when the queue is full the game is dropped and counted rather than
+// stalling the room. A single writer thread drains the queue in
+// batches of up to rooms.history.batch-size, lingering up to rooms.history.linger-ms for
+// a batch to fill, so the store borrows one pooled connection per batch and never more
+// than one at a time, leaving the rest of the small pool to logins. A failed batch is
+// retried with doubling backoff up to rooms.history.max-attempts, then dropped and
+// counted. On shutdown the writer stops waiting and stores what is still queued.
+// ---------------------------------------------------------------------
+
+package com.cluewave.history;
+
+import com.cluewave.model.GameRoom;
+import com.cluewave.model.Player;
+import com.cluewave.service.RoomEvent;
+import com.cluewave.service.RoomEventListener;
+import com.cluewave.service.RoomService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+public class MatchHistoryWriter implements RoomEventListener, SmartInitializingSingleton, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(MatchHistoryWriter.class);
+
+    private static final long IDLE_POLL_MILLIS = 250;
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(IDLE_POLL_MILLIS);
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final RoomService roomService;
+    private final MatchHistoryStore store;
+    private final BlockingQueue<MatchRecord> queue;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    // set by the first drop of a full queue, cleared once a batch is stored again
+    private final AtomicBoolean overflowing = new AtomicBoolean();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public MatchHistoryWriter(RoomService roomService, MatchHistoryStore store, int queueCapacity,
+                              int batchSize, long lingerMillis, int maxAttempts, long backoffMillis) {
+        this.roomService = roomService;
+        this.store = store;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        start();
+    }
+
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("match-history").daemon().start(this::writeLoop);
+        roomService.addListener(this);
+    }
+
+    // Stops the writer once everything queued has been stored or given up on.
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Called on the room's mailbox; never blocks.
+    @Override
+    public void onRoomEvent(RoomEvent event) {
+        if (event.type() != RoomEvent.Type.GAME_FINISHED) {
+            return;
+        }
+        GameRoom room = event.room();
+        List<MatchRecord.PlayerResult> players = new ArrayList<>(room.getPlayers().size());
+        List<String> participants = new ArrayList<>(room.getPlayers().size());
+        for (Player p : room.getPlayers().values()) {
+            players.add(new MatchRecord.PlayerResult(p.getName(), p.getScore()));
+            if (p.getAccount() != null) {
+                participants.add(p.getAccount());
+            }
+        }
+        MatchRecord record = new MatchRecord(null, room.getCode(), room.getHostEmail(), room.getHostName(),
+                room.getCreatedAt(), System.currentTimeMillis(), players, participants);
+        if (!queue.offer(record)) {
+            dropped.increment();
+            if (overflowing.compareAndSet(false, true)) {
+                log.warn("Match history queue is full, dropping finished games until it drains");
+            }
+        }
+    }
+
+    public long written() {
+        return written.sum();
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public long failed() {
+        return failed.sum();
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("rooms.history.written", written, LongAdder::sum)
+                .description("Finished games stored in the match history")
+                .register(registry);
+        FunctionCounter.builder("rooms.history.dropped", dropped, LongAdder::sum)
+                .description("Finished games dropped because the match history queue was full")
+                .register(registry);
+        FunctionCounter.builder("rooms.history.failed", failed, LongAdder::sum)
+                .description("Finished games dropped after every attempt to store them failed")
+                .register(registry);
+        FunctionCounter.builder("rooms.history.retries", retries, LongAdder::sum)
+                .description("Match history batches retried after a failure")
+                .register(registry);
+        FunctionCounter.builder("rooms.history.batches", batches, LongAdder::sum)
+                .description("Match history batches stored")
+                .register(registry);
+        Gauge.builder("rooms.history.pending", queue, BlockingQueue::size)
+                .description("Finished games waiting to be stored")
+                .register(registry);
+    }
+
+    private void writeLoop() {
+        List<MatchRecord> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                fill(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                save(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Waits for a first record, then lingers for the batch to fill while running. Waits
+    // are sliced so that close() is noticed within IDLE_POLL_MILLIS even during a long linger.
+    private void fill(List<MatchRecord> batch) throws InterruptedException {
+        MatchRecord first = running ? queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS) : queue.poll();
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            MatchRecord next = queue.poll(Math.min(remaining, IDLE_POLL_NANOS), TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+    }
+
+    private void save(List<MatchRecord> batch) {
+        long backoff = backoffMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                store.saveAll(batch);
+                written.add(batch.size());
+                batches.increment();
+                overflowing.set(false);
+                return;
+            } catch (RuntimeException ex) {
+                // once shutting down, a single attempt is all that is left
+                if (attempt >= maxAttempts || !running) {
+                    failed.add(batch.size());
+                    log.error("Dropping {} finished games after {} attempts to store them", batch.size(), attempt, ex);
+                    return;
+                }
+                retries.increment();
+                log.warn("Cannot store {} finished games (attempt {} of {}), retrying in {} ms: {}",
+                        batch.size(), attempt, maxAttempts, backoff, ex.toString());
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(backoff));
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+}
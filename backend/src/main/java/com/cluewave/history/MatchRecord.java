@@ -0,0 +1,21 @@
+// ---------------------------------------------------------------------
+// MATCH RECORD
+// A finished game as kept in the match history: the room code, the host account, when
+// the room was created and the game finished, and each player's final score. The
+// participants are the accounts of the host and of every player seated at the end; each
+// of them finds the game in their own history. They are stored but never sent to
+// clients. The id is assigned by the database and null until the record is stored.
+// ---------------------------------------------------------------------
+
+package com.cluewave.history;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.List;
+
+public record MatchRecord(Long id, String roomCode, String hostEmail, String hostName,
+                          long startedAt, long finishedAt, List<PlayerResult> players,
+                          @JsonIgnore List<String> participants) {
+
+    public record PlayerResult(String name, int score) {}
+}
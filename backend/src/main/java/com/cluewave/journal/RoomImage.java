@@ -0,0 +1,247 @@
+// ---------------------------------------------------------------------
+// ROOM IMAGE
+// Plain copy of a game room's durable state: host, capacity, state, seated players with
+// their accounts and scores, and the current round with its target and reveal results. Taken from a
+// live room on its mailbox, rebuilt by replaying journal records, written to and read
+// from a binary stream, and turned back into a live room through RoomService. Guesses
+// of an unrevealed round and presence flags are not kept; players guess again and
+// reconnect after a restart.
+// ---------------------------------------------------------------------
+
+package com.cluewave.journal;
+
+import com.cluewave.model.GameRoom;
+import com.cluewave.model.Player;
+import com.cluewave.model.Round;
+import com.cluewave.service.RoomService;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class RoomImage {
+
+    public record PlayerImage(String id, String name, String account, int score, int seat) {}
+
+    public record Result(int seat, String playerId, double position, int points) {}
+
+    private final String code;
+    private final String hostName;
+    private final String hostEmail;
+    private final long createdAt;
+    private final int capacity;
+    private String state;
+    private final Map<String, PlayerImage> players = new LinkedHashMap<>();
+    private String promptLeft;
+    private String promptRight;
+    private double target;
+    private boolean hasRound;
+    private boolean revealed;
+    private List<Result> results = List.of();
+
+    public RoomImage(String code, String hostName, String hostEmail, long createdAt, int capacity, String state) {
+        this.code = code;
+        this.hostName = hostName;
+        this.hostEmail = hostEmail;
+        this.createdAt = createdAt;
+        this.capacity = capacity;
+        this.state = state;
+    }
+
+    // Must run on the room's mailbox (or before the room is published).
+    public static RoomImage of(GameRoom room) {
+        RoomImage image = new RoomImage(room.getCode(), room.getHostName(), room.getHostEmail(),
+                room.getCreatedAt(), room.getCapacity(), room.getState());
+        for (Player p : room.getSeats()) {
+            if (p != null) {
+                image.players.put(p.getId(), new PlayerImage(p.getId(), p.getName(), p.getAccount(), p.getScore(),
+                        p.getSeat()));
+            }
+        }
+        Round round = room.getCurrentRound();
+        if (round != null) {
+            image.startRound(round.getPromptLeft(), round.getPromptRight(), round.getTargetPosition());
+            if (round.isRevealed()) {
+                image.revealed = true;
+                image.results = results(round);
+            }
+        }
+        return image;
+    }
+
+    // The reveal results of a revealed round, in seat order.
+    public static List<Result> results(Round round) {
+        List<Result> results = new ArrayList<>();
+        for (int seat = 0; seat < round.getSeats(); seat++) {
+            String playerId = round.resultPlayerId(seat);
+            if (playerId != null) {
+                results.add(new Result(seat, playerId, round.resultPosition(seat), round.resultPoints(seat)));
+            }
+        }
+        return results;
+    }
+
+    public String code() {
+        return code;
+    }
+
+    public String state() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public List<PlayerImage> players() {
+        return List.copyOf(players.values());
+    }
+
+    public void join(String playerId, String name, String account, int seat) {
+        players.put(playerId, new PlayerImage(playerId, name, account, 0, seat));
+    }
+
+    public void leave(String playerId) {
+        players.remove(playerId);
+    }
+
+    public void startRound(String left, String right, double targetPosition) {
+        hasRound = true;
+        promptLeft = left;
+        promptRight = right;
+        target = targetPosition;
+        revealed = false;
+        results = List.of();
+    }
+
+    // Applies the points of a reveal to the players still seated.
+    public void reveal(List<Result> roundResults) {
+        revealed = true;
+        results = List.copyOf(roundResults);
+        for (Result r : roundResults) {
+            PlayerImage p = players.get(r.playerId());
+            if (p != null) {
+                players.put(p.id(), new PlayerImage(p.id(), p.name(), p.account(), p.score() + r.points(), p.seat()));
+            }
+        }
+    }
+
+    // Recreates the live room; false when RoomService cannot take its code.
+    public boolean restore(RoomService roomService) {
+        return roomService.restoreRoom(code, hostName, hostEmail, createdAt, capacity, room -> {
+            room.setState(state);
+            for (PlayerImage p : players.values()) {
+                Player player = new Player(p.id(), p.name(), p.account());
+                player.addScore(p.score());
+                room.seatPlayer(player, p.seat());
+            }
+            if (hasRound) {
+                Round round = new Round(capacity);
+                round.setPromptLeft(promptLeft);
+                round.setPromptRight(promptRight);
+                round.setTargetPosition(target);
+                if (revealed) {
+                    for (int seat = 0; seat < capacity; seat++) {
+                        round.seal(seat);
+                    }
+                    for (Result r : results) {
+                        round.recordResult(r.seat(), r.playerId(), r.position(), r.points());
+                    }
+                    round.setRevealed(true);
+                }
+                room.setCurrentRound(round);
+            }
+        });
+    }
+
+    public void write(DataOutput out) throws IOException {
+        writeString(out, code);
+        writeString(out, hostName);
+        writeString(out, hostEmail);
+        out.writeLong(createdAt);
+        out.writeShort(capacity);
+        writeString(out, state);
+        out.writeShort(players.size());
+        for (PlayerImage p : players.values()) {
+            writeString(out, p.id());
+            writeString(out, p.name());
+            writeString(out, p.account());
+            out.writeInt(p.score());
+            out.writeShort(p.seat());
+        }
+        out.writeByte(!hasRound ? 0 : revealed ? 2 : 1);
+        if (hasRound) {
+            writeString(out, promptLeft);
+            writeString(out, promptRight);
+            out.writeDouble(target);
+            if (revealed) {
+                writeResults(out, results);
+            }
+        }
+    }
+
+    public static RoomImage read(DataInput in) throws IOException {
+        RoomImage image = new RoomImage(readString(in), readString(in), readString(in), in.readLong(),
+                in.readShort(), readString(in));
+        int count = in.readShort();
+        for (int i = 0; i < count; i++) {
+            PlayerImage p = new PlayerImage(readString(in), readString(in), readString(in), in.readInt(),
+                    in.readShort());
+            image.players.put(p.id(), p);
+        }
+        int round = in.readByte();
+        if (round != 0) {
+            image.startRound(readString(in), readString(in), in.readDouble());
+            if (round == 2) {
+                image.revealed = true;
+                image.results = readResults(in);
+            }
+        }
+        return image;
+    }
+
+    static void writeResults(DataOutput out, List<Result> results) throws IOException {
+        out.writeShort(results.size());
+        for (Result r : results) {
+            out.writeShort(r.seat());
+            writeString(out, r.playerId());
+            out.writeDouble(r.position());
+            out.writeInt(r.points());
+        }
+    }
+
+    static List<Result> readResults(DataInput in) throws IOException {
+        int count = in.readShort();
+        List<Result> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(new Result(in.readShort(), readString(in), in.readDouble(), in.readInt()));
+        }
+        return results;
+    }
+
+    // Length-prefixed UTF-8, -1 for null; unlike writeUTF there is no 64 KB limit.
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
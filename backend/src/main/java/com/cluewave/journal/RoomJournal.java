@@ -0,0 +1,536 @@
+// ---------------------------------------------------------------------
+// ROOM JOURNAL
+// Append-only journal of committed room changes, so rooms survive a crash or restart.
+// Each RoomEvent is encoded on the room's mailbox (creation as a full RoomImage, then
+// joins, leaves, round starts, reveals, game ends and closes) and queued; a single
+// writer thread appends the records to memory-mapped segment files and forces them to
+// disk once per batch, at most every rooms.journal.flush-ms (group commit), so commands
+// never wait on the disk. A record is its payload length, a CRC32C and the payload; replay stops at
+// the first torn or zeroed record of a segment. On startup the segments are replayed into
+// RoomImages and the rooms restored before clients connect. Compaction rolls to a new
+// segment, writes an image of every live room from its mailbox behind any change already
+// queued, and deletes the older segments once the images are on disk. Rooms restored
+// from another source, such as a shutdown snapshot, are journaled as full images.
+// ---------------------------------------------------------------------
+
+package com.cluewave.journal;
+
+import com.cluewave.model.GameRoom;
+import com.cluewave.model.Player;
+import com.cluewave.model.Round;
+import com.cluewave.service.RoomEvent;
+import com.cluewave.service.RoomEventListener;
+import com.cluewave.service.RoomService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+public class RoomJournal implements RoomEventListener, SmartInitializingSingleton, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomJournal.class);
+
+    static final int IMAGE = 1;
+    static final int JOINED = 2;
+    static final int LEFT = 3;
+    static final int ROUND_STARTED = 4;
+    static final int ROUND_REVEALED = 5;
+    static final int CLOSED = 6;
+    static final int FINISHED = 7;
+
+    private static final int HEADER = 8;
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    public record Recovery(int rooms, long records, long millis) {}
+
+    private final RoomService roomService;
+    private final Path dir;
+    private final int segmentBytes;
+    private final long flushNanos;
+
+    // Rooms whose changes are journaled; a compaction writes one image per entry.
+    private final Map<String, GameRoom> live = new ConcurrentHashMap<>();
+    private final Queue<Object> queue = new ConcurrentLinkedQueue<>();
+    private final Deque<Long> olderSegments = new ConcurrentLinkedDeque<>();
+    private final AtomicBoolean sleeping = new AtomicBoolean();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private volatile boolean running;
+    private volatile boolean replaying;
+    private Thread writer;
+
+    // Owned by the writer thread once it runs.
+    private final CRC32C crc = new CRC32C();
+    private MappedByteBuffer segment;
+    private long segmentSeq;
+    private boolean dirty;
+    private long lastForce;
+
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder appendedBytes = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder forces = new LongAdder();
+    private final LongAdder forceNanos = new LongAdder();
+
+    public RoomJournal(RoomService roomService, Path dir, int segmentBytes, long flushMs) {
+        if (segmentBytes < 4096) {
+            throw new IllegalArgumentException("rooms.journal.segment-bytes must be at least 4096");
+        }
+        this.roomService = roomService;
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMs);
+    }
+
+    // Runs once every bean exists, before the web server starts taking requests.
+    @Override
+    public void afterSingletonsInstantiated() {
+        open();
+    }
+
+    // Replays the journal into RoomService, then starts journaling new changes.
+    public Recovery open() {
+        long start = System.nanoTime();
+        Map<String, RoomImage> images = new HashMap<>();
+        long records;
+        try {
+            Files.createDirectories(dir);
+            records = replay(images);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read room journal in " + dir, ex);
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("room-journal").daemon().start(this::writeLoop);
+        roomService.addListener(this);
+        int restored = 0;
+        replaying = true;
+        try {
+            for (RoomImage image : images.values()) {
+                if (image.restore(roomService)) {
+                    restored++;
+                } else {
+                    log.warn("Room {} from the journal could not be restored", image.code());
+                }
+            }
+        } finally {
+            replaying = false;
+        }
+        Recovery recovery = new Recovery(restored, records, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("Restored {} rooms from {} journal records in {} ms", restored, records, recovery.millis());
+        return recovery;
+    }
+
+    // Stops the writer once everything queued is on disk.
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Called on the room's mailbox, so the room's state matches the event.
+    @Override
+    public void onRoomEvent(RoomEvent event) {
+        GameRoom room = event.room();
+        switch (event.type()) {
+            case CREATED -> {
+                live.put(room.getCode(), room);
+                enqueue(image(room));
+            }
+            case RESTORED -> {
+                live.put(room.getCode(), room);
+                // restored from elsewhere, e.g. a shutdown snapshot, so not journaled yet
+                if (!replaying) {
+                    enqueue(image(room));
+                }
+            }
+            case PLAYER_JOINED -> {
+                Player p = room.getPlayers().get(event.playerId());
+                if (p != null) {
+                    enqueue(encode(JOINED, room.getCode(), out -> {
+                        RoomImage.writeString(out, p.getId());
+                        RoomImage.writeString(out, p.getName());
+                        RoomImage.writeString(out, p.getAccount());
+                        out.writeShort(p.getSeat());
+                    }));
+                }
+            }
+            case PLAYER_LEFT -> enqueue(encode(LEFT, room.getCode(),
+                    out -> RoomImage.writeString(out, event.playerId())));
+            case ROUND_STARTED -> {
+                Round round = room.getCurrentRound();
+                enqueue(encode(ROUND_STARTED, room.getCode(), out -> {
+                    RoomImage.writeString(out, round.getPromptLeft());
+                    RoomImage.writeString(out, round.getPromptRight());
+                    out.writeDouble(round.getTargetPosition());
+                }));
+            }
+            case ROUND_REVEALED -> {
+                List<RoomImage.Result> results = RoomImage.results(room.getCurrentRound());
+                enqueue(encode(ROUND_REVEALED, room.getCode(), out -> RoomImage.writeResults(out, results)));
+            }
+            case GAME_FINISHED -> enqueue(encode(FINISHED, room.getCode(), out -> {
+            }));
+            case CLOSED -> {
+                if (live.remove(room.getCode(), room)) {
+                    enqueue(encode(CLOSED, room.getCode(), out -> {
+                    }));
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    // Compacts once there are segments from before the current one. Only starts the
+    // compaction, so the shared scheduler thread never waits on the journal or the rooms.
+    @Scheduled(fixedDelayString = "${rooms.journal.compact-ms:600000}",
+            initialDelayString = "${rooms.journal.compact-ms:600000}")
+    public void compactIfNeeded() {
+        if (running && !olderSegments.isEmpty()) {
+            compact().whenComplete((count, ex) -> {
+                if (ex != null) {
+                    log.error("Journal compaction failed", ex);
+                }
+            });
+        }
+    }
+
+    // Completes with the number of rooms imaged once the older segments are deleted.
+    public CompletableFuture<Integer> compact() {
+        if (!running || !compacting.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(0);
+        }
+        CompletableFuture<Long> rolled = new CompletableFuture<>();
+        try {
+            enqueue(new Roll(rolled));
+        } catch (RuntimeException ex) {
+            compacting.set(false);
+            throw ex;
+        }
+        // runs on the writer thread once it has rolled; asking the mailboxes only queues
+        return rolled.thenCompose(firstKept -> {
+            List<CompletableFuture<Boolean>> imaged = new ArrayList<>(live.size());
+            for (GameRoom room : live.values()) {
+                imaged.add(room.getMailbox().ask(() -> {
+                    if (live.get(room.getCode()) != room) {
+                        return false;
+                    }
+                    enqueue(image(room));
+                    return true;
+                }));
+            }
+            return CompletableFuture.allOf(imaged.toArray(CompletableFuture[]::new))
+                    .thenCompose(v -> {
+                        CompletableFuture<Void> deleted = new CompletableFuture<>();
+                        enqueue(new Barrier(firstKept, deleted));
+                        return deleted;
+                    })
+                    .thenApply(v -> (int) imaged.stream().filter(CompletableFuture::join).count());
+        }).whenComplete((count, ex) -> compacting.set(false));
+    }
+
+    // Completes once every record queued so far has been forced to disk.
+    public CompletableFuture<Void> flush() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        enqueue(new Barrier(-1, done));
+        return done;
+    }
+
+    public int segmentCount() {
+        return olderSegments.size() + (running ? 1 : 0);
+    }
+
+    public long recordsAppended() {
+        return appended.sum();
+    }
+
+    public long pending() {
+        return queued.sum() - appended.sum() - dropped.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("rooms.journal.records", this, RoomJournal::recordsAppended)
+                .description("Records appended to the room journal")
+                .register(registry);
+        FunctionCounter.builder("rooms.journal.bytes", appendedBytes, LongAdder::sum)
+                .description("Bytes appended to the room journal")
+                .register(registry);
+        FunctionCounter.builder("rooms.journal.dropped", dropped, LongAdder::sum)
+                .description("Records that could not be appended")
+                .register(registry);
+        Gauge.builder("rooms.journal.pending", this, RoomJournal::pending)
+                .description("Records queued but not yet appended")
+                .register(registry);
+        Gauge.builder("rooms.journal.segments", this, RoomJournal::segmentCount)
+                .description("Journal segment files on disk")
+                .register(registry);
+        FunctionTimer.builder("rooms.journal.force", this,
+                        j -> j.forces.sum(), j -> j.forceNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Time spent forcing journal batches to disk, per batch")
+                .register(registry);
+    }
+
+    private record Roll(CompletableFuture<Long> rolled) {}
+
+    // Forces everything before it; a non-negative seq also deletes the segments before it.
+    private record Barrier(long firstKept, CompletableFuture<Void> done) {}
+
+    private interface Fields {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private void enqueue(Object item) {
+        if (item instanceof byte[]) {
+            queued.increment();
+        }
+        queue.add(item);
+        if (sleeping.get() && sleeping.compareAndSet(true, false)) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private static byte[] image(GameRoom room) {
+        return encode(IMAGE, null, out -> RoomImage.of(room).write(out));
+    }
+
+    private static byte[] encode(int type, String code, Fields fields) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(type);
+            if (code != null) {
+                RoomImage.writeString(out, code);
+            }
+            fields.write(out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void writeLoop() {
+        try {
+            roll();
+        } catch (RuntimeException ex) {
+            log.error("Cannot open a room journal segment in {}; journaling is off", dir, ex);
+            running = false;
+            return;
+        }
+        while (true) {
+            Object item = queue.poll();
+            if (item == null) {
+                if (dirty && System.nanoTime() - lastForce >= flushNanos) {
+                    force();
+                }
+                if (!running && queue.isEmpty()) {
+                    break;
+                }
+                sleeping.set(true);
+                if (queue.isEmpty()) {
+                    LockSupport.parkNanos(this, dirty ? Math.max(flushNanos, 1000) : IDLE_PARK_NANOS);
+                }
+                sleeping.set(false);
+                continue;
+            }
+            try {
+                handle(item);
+            } catch (RuntimeException ex) {
+                log.error("Room journal write failed", ex);
+                if (item instanceof byte[]) {
+                    dropped.increment();
+                }
+            }
+        }
+        force();
+    }
+
+    private void handle(Object item) {
+        if (item instanceof byte[] payload) {
+            append(payload);
+        } else if (item instanceof Roll roll) {
+            roll();
+            roll.rolled().complete(segmentSeq);
+        } else if (item instanceof Barrier barrier) {
+            force();
+            while (barrier.firstKept() >= 0 && !olderSegments.isEmpty()
+                    && olderSegments.peekFirst() < barrier.firstKept()) {
+                delete(olderSegments.pollFirst());
+            }
+            barrier.done().complete(null);
+        }
+    }
+
+    private void append(byte[] payload) {
+        if (HEADER + payload.length > segmentBytes) {
+            log.error("Room journal record of {} bytes exceeds the segment size", payload.length);
+            dropped.increment();
+            return;
+        }
+        if (segment.remaining() < HEADER + payload.length) {
+            roll();
+        }
+        crc.reset();
+        crc.update(payload);
+        segment.putInt(payload.length);
+        segment.putInt((int) crc.getValue());
+        segment.put(payload);
+        dirty = true;
+        appended.increment();
+        appendedBytes.add(HEADER + payload.length);
+    }
+
+    private void force() {
+        if (!dirty) {
+            return;
+        }
+        long start = System.nanoTime();
+        segment.force();
+        lastForce = System.nanoTime();
+        forces.increment();
+        forceNanos.add(lastForce - start);
+        dirty = false;
+    }
+
+    private void roll() {
+        if (segment != null) {
+            force();
+            olderSegments.addLast(segmentSeq);
+        }
+        long next = segmentSeq + 1;
+        try (FileChannel channel = FileChannel.open(path(next), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        segmentSeq = next;
+    }
+
+    private void delete(long seq) {
+        try {
+            Files.deleteIfExists(path(seq));
+        } catch (IOException ex) {
+            log.warn("Cannot delete room journal segment {}", path(seq), ex);
+        }
+    }
+
+    private Path path(long seq) {
+        return dir.resolve(String.format("%s%016d%s", PREFIX, seq, SUFFIX));
+    }
+
+    private long replay(Map<String, RoomImage> images) throws IOException {
+        List<Long> seqs;
+        try (Stream<Path> files = Files.list(dir)) {
+            seqs = files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+        long records = 0;
+        for (long seq : seqs) {
+            records += replay(seq, images);
+            olderSegments.addLast(seq);
+            segmentSeq = seq;
+        }
+        return records;
+    }
+
+    private long replay(long seq, Map<String, RoomImage> images) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path(seq), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        CRC32C check = new CRC32C();
+        long records = 0;
+        while (buffer.remaining() >= HEADER) {
+            int length = buffer.getInt();
+            int expected = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            check.reset();
+            check.update(payload);
+            if ((int) check.getValue() != expected) {
+                log.warn("Torn record in room journal segment {}, skipping the rest of it", path(seq));
+                break;
+            }
+            apply(payload, images);
+            records++;
+        }
+        return records;
+    }
+
+    private static void apply(byte[] payload, Map<String, RoomImage> images) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int type = in.readByte();
+        if (type == IMAGE) {
+            RoomImage image = RoomImage.read(in);
+            images.put(image.code(), image);
+            return;
+        }
+        String code = RoomImage.readString(in);
+        RoomImage image = images.get(code);
+        if (image == null) {
+            return;
+        }
+        switch (type) {
+            case JOINED -> image.join(RoomImage.readString(in), RoomImage.readString(in), RoomImage.readString(in),
+                    in.readShort());
+            case LEFT -> image.leave(RoomImage.readString(in));
+            case ROUND_STARTED -> {
+                image.startRound(RoomImage.readString(in), RoomImage.readString(in), in.readDouble());
+                image.setState("in_round");
+            }
+            case ROUND_REVEALED -> image.reveal(RoomImage.readResults(in));
+            case FINISHED -> image.setState("finished");
+            case CLOSED -> images.remove(code);
+            default -> log.warn("Skipping room journal record of unknown type {}", type);
+        }
+    }
+}
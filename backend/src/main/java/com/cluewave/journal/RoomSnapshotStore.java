@@ -0,0 +1,163 @@
+// ---------------------------------------------------------------------
+// ROOM SNAPSHOT STORE
+// Dumps every live room to a binary snapshot file on graceful shutdown and restores it
+// on the next startup, so a planned redeploy pauses games instead of ending them. Runs
+// as a lifecycle bean in a phase below the web server's: the dump happens once the server
+// has stopped taking requests, and the restore before it starts and before readiness.
+// The file is a header (magic, format version, write time) followed by one RoomImage per
+// room and an end marker with the room count. It is streamed through a buffer both ways,
+// so restoring never holds the whole file in memory. It is written to a temporary file
+// and moved into place, and deleted once restored so a later crash never brings back
+// stale rooms. Rooms already restored from the journal are skipped.
+// ---------------------------------------------------------------------
+
+package com.cluewave.journal;
+
+import com.cluewave.model.GameRoom;
+import com.cluewave.service.RoomService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class RoomSnapshotStore implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomSnapshotStore.class);
+
+    static final int MAGIC = 0x43575253; // "CWRS"
+    // Bumped on every layout change: 1 initial, 2 player accounts.
+    static final int FORMAT_VERSION = 2;
+    private static final int ROOM = 1;
+    private static final int END = 0;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    // Below the web server's start/stop phase, so it starts before and stops after it.
+    static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    public record Restore(int rooms, int skipped, long millis) {}
+
+    private final RoomService roomService;
+    private final Path file;
+    private volatile boolean running;
+
+    public RoomSnapshotStore(RoomService roomService, Path file) {
+        this.roomService = roomService;
+        this.file = file;
+    }
+
+    @Override
+    public void start() {
+        if (Files.exists(file)) {
+            try {
+                Restore restore = restore();
+                log.info("Restored {} rooms from {} in {} ms ({} skipped)",
+                        restore.rooms(), file, restore.millis(), restore.skipped());
+                Files.delete(file);
+            } catch (IOException | RuntimeException ex) {
+                log.error("Cannot restore rooms from {}", file, ex);
+            }
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            long start = System.nanoTime();
+            int rooms = dump();
+            log.info("Saved {} rooms to {} in {} ms", rooms, file,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException | RuntimeException ex) {
+            log.error("Cannot save rooms to {}", file, ex);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    // Writes every live room, each imaged on its own mailbox; returns the number written.
+    public int dump() throws IOException {
+        List<CompletableFuture<RoomImage>> images = new ArrayList<>();
+        for (GameRoom room : roomService.liveRooms()) {
+            images.add(room.getMailbox().ask(() -> RoomImage.of(room)));
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        int count = 0;
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_BYTES))) {
+                out.writeInt(MAGIC);
+                out.writeShort(FORMAT_VERSION);
+                out.writeLong(System.currentTimeMillis());
+                for (CompletableFuture<RoomImage> image : images) {
+                    out.writeByte(ROOM);
+                    image.join().write(out);
+                    count++;
+                }
+                out.writeByte(END);
+                out.writeInt(count);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return count;
+    }
+
+    // Restores the rooms of the snapshot file. A file cut short keeps the rooms read so far.
+    public Restore restore() throws IOException {
+        long start = System.nanoTime();
+        int restored = 0;
+        int skipped = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), BUFFER_BYTES))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a room snapshot");
+            }
+            int version = in.readShort();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported room snapshot format " + version + " in " + file);
+            }
+            in.readLong();
+            try {
+                while (in.readByte() == ROOM) {
+                    if (RoomImage.read(in).restore(roomService)) {
+                        restored++;
+                    } else {
+                        skipped++;
+                    }
+                }
+                int expected = in.readInt();
+                if (expected != restored + skipped) {
+                    log.warn("Room snapshot {} lists {} rooms but holds {}", file, expected, restored + skipped);
+                }
+            } catch (EOFException ex) {
+                log.warn("Room snapshot {} is truncated after {} rooms", file, restored + skipped);
+            }
+        }
+        return new Restore(restored, skipped, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+}
@@ -2,25 +2,61 @@
 // IN-MEMORY GAMEROOM MODEL
 // Holds the state of a game room including code, host details, players, current round, and state.
 // Uses a concurrent map for players since rooms are stored globally across threads.
+// Tracks creation and last-activity timestamps so idle rooms can be expired.
+// Mutations are applied only through the room's mailbox (single writer); the
+// round and state fields are volatile so other threads read them safely.
+// Seats are reserved with a CAS on an atomic counter bounded by the room's capacity.
+// A version counter is bumped on every mutation and keys the cached RoomDTO snapshot.
+// Seated players also occupy an index in a fixed seat array, which the round uses for
+// its per-seat guess slots and the reveal walks in a single pass. The room's prompt
+// cursor tracks which catalog prompts it has already been dealt.
 // ---------------------------------------------------------------------
 
 package com.cluewave.model;
 
+import com.cluewave.dto.RoomDTO;
+import com.cluewave.util.RoomMailbox;
+
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class GameRoom {
+    public static final int DEFAULT_CAPACITY = 2;
+    public static final int MIN_CAPACITY = 2;
+    public static final int MAX_CAPACITY = 64;
+
     private final String code;
     private final String hostName;
     private final String hostEmail;
     private final Map<String, Player> players = new ConcurrentHashMap<>();
-    private Round currentRound;
-    private String state;
+    private volatile Round currentRound;
+    private volatile String state;
+    private final long createdAt;
+    private volatile long lastActivity;
+    private final RoomMailbox mailbox;
+    private final int capacity;
+    private final AtomicInteger seatsTaken = new AtomicInteger();
+    private final Player[] seats;
+    private final PromptCursor promptCursor = new PromptCursor();
+    private volatile long version;
+    private volatile RoomDTO snapshot;
 
     public GameRoom(String code, String hostName, String hostEmail) {
+        this(code, hostName, hostEmail, System.currentTimeMillis(), DEFAULT_CAPACITY, Runnable::run);
+    }
+
+    public GameRoom(String code, String hostName, String hostEmail, long createdAt, int capacity,
+                    Executor executor) {
         this.code = code;
         this.hostName = hostName;
         this.hostEmail = hostEmail;
+        this.createdAt = createdAt;
+        this.lastActivity = createdAt;
+        this.capacity = capacity;
+        this.seats = new Player[capacity];
+        this.mailbox = new RoomMailbox(executor);
     }
 
     public String getCode() {
@@ -54,4 +90,103 @@ public class GameRoom {
     public void setState(String state) {
         this.state = state;
     }
-}
\ No newline at end of file
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getSeatsTaken() {
+        return seatsTaken.get();
+    }
+
+    // Claims a seat without locking; false when the room is already at capacity.
+    public boolean tryReserveSeat() {
+        int taken;
+        do {
+            taken = seatsTaken.get();
+            if (taken >= capacity) {
+                return false;
+            }
+        } while (!seatsTaken.compareAndSet(taken, taken + 1));
+        return true;
+    }
+
+    // Must run on the room's mailbox, with a seat already reserved.
+    public void seatPlayer(Player player) {
+        for (int i = 0; i < seats.length; i++) {
+            if (seats[i] == null) {
+                seats[i] = player;
+                player.setSeat(i);
+                players.put(player.getId(), player);
+                return;
+            }
+        }
+        throw new IllegalStateException("Room is full");
+    }
+
+    // Puts the player back on a known seat, when a room is restored.
+    public void seatPlayer(Player player, int seat) {
+        if (seat < 0 || seat >= seats.length || seats[seat] != null) {
+            throw new IllegalStateException("Seat " + seat + " is not free");
+        }
+        seats[seat] = player;
+        player.setSeat(seat);
+        players.put(player.getId(), player);
+    }
+
+    // Must run on the room's mailbox; the caller releases the reserved seat.
+    public Player unseatPlayer(String playerId) {
+        Player player = players.remove(playerId);
+        if (player != null && player.getSeat() >= 0) {
+            seats[player.getSeat()] = null;
+        }
+        return player;
+    }
+
+    // Indexed by seat, null for free seats. Only read or changed on the room's mailbox.
+    public Player[] getSeats() {
+        return seats;
+    }
+
+    // Only used on the room's mailbox.
+    public PromptCursor getPromptCursor() {
+        return promptCursor;
+    }
+
+    public void releaseSeat() {
+        seatsTaken.updateAndGet(taken -> taken > 0 ? taken - 1 : 0);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Only called by the room's single writer, so the non-atomic increment is safe.
+    public void bumpVersion() {
+        version++;
+    }
+
+    public RoomDTO getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(RoomDTO snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public RoomMailbox getMailbox() {
+        return mailbox;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    public void touch(long now) {
+        this.lastActivity = now;
+    }
+}
@@ -1,7 +1,11 @@
 // ---------------------------------------------------------------------
 // IN-MEMORY PLAYER MODEL
-// Represents a player within a room with unique id, name, and score.
-// Provides a method to increment score when points are earned.
+// Represents a player within a room with unique id, name, score, and presence, plus the
+// account (email) of the signed-in user who took the seat, which commands on the player
+// are checked against.
+// Provides a method to increment score when points are earned; the score and the
+// away flag are only changed from the owning room's mailbox. The seat index is assigned
+// by the room before the player becomes visible and keys the player's guess slot.
 // ---------------------------------------------------------------------
 
 package com.cluewave.model;
@@ -9,11 +13,15 @@ package com.cluewave.model;
 public class Player {
     private final String id;
     private final String name;
+    private final String account;
     private int score;
+    private boolean away;
+    private int seat = -1;
 
-    public Player(String id, String name) {
+    public Player(String id, String name, String account) {
         this.id = id;
         this.name = name;
+        this.account = account;
         this.score = 0;
     }
 
@@ -25,6 +33,10 @@ public class Player {
         return name;
     }
 
+    public String getAccount() {
+        return account;
+    }
+
     public int getScore() {
         return score;
     }
@@ -32,4 +44,20 @@ public class Player {
     public void addScore(int delta) {
         this.score += delta;
     }
+
+    public int getSeat() {
+        return seat;
+    }
+
+    public void setSeat(int seat) {
+        this.seat = seat;
+    }
+
+    public boolean isAway() {
+        return away;
+    }
+
+    public void setAway(boolean away) {
+        this.away = away;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+// ---------------------------------------------------------------------
+// PROMPT CURSOR
+// A room's position in its non-repeating walk over the prompt catalog: the catalog
+// generation it was started on, and the offset, stride and count of an affine
+// permutation of the catalog indexes. A few primitives per room, whatever the
+// catalog's size, and only changed from the room's mailbox.
+// ---------------------------------------------------------------------
+
+package com.cluewave.model;
+
+public class PromptCursor {
+    private long generation = -1;
+    private int offset;
+    private int stride;
+    private int drawn;
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public int getDrawn() {
+        return drawn;
+    }
+
+    // Starts a new walk of size prompts; stride must be coprime with size.
+    public void restart(long generation, int offset, int stride) {
+        this.generation = generation;
+        this.offset = offset;
+        this.stride = stride;
+        this.drawn = 0;
+    }
+
+    // Index of the next prompt; size must match the walk being followed.
+    public int next(int size) {
+        return (int) ((offset + (long) stride * drawn++) % size);
+    }
+}
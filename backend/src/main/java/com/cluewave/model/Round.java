@@ -2,15 +2,58 @@
 // IN-MEMORY ROUND MODEL
 // Encapsulates the prompts, target slider position, and reveal state for a game round.
 // Getters and setters allow the service to configure and update round data.
+// Guesses live in one primitive slot per seat: the raw bits of the position with the
+// sign bit as the lock flag (positions are never negative), written with a CAS so
+// players can guess from any thread without going through the room's mailbox. Reveal
+// seals every slot, so a guess racing with it either lands before it or is rejected,
+// and records each seat's result in arrays allocated with the round.
 // ---------------------------------------------------------------------
 
 package com.cluewave.model;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
 public class Round {
+    private static final long EMPTY = -1L;
+    // a NaN with the lock bit set; never produced by a valid guess
+    private static final long SEALED = 0xFFF8_0000_0000_0001L;
+    private static final long LOCKED = Long.MIN_VALUE;
+
+    public enum GuessResult {
+        ACCEPTED,
+        // the player already locked in a guess
+        LOCKED,
+        // the round has been revealed
+        CLOSED
+    }
+
+    private static final AtomicLong IDS = new AtomicLong();
+
+    // unique within this JVM, so two rounds dealt the same prompts are still told apart
+    private final long id = IDS.incrementAndGet();
     private String promptLeft;
     private String promptRight;
     private double targetPosition;
-    private boolean revealed;
+    private volatile boolean revealed;
+    private final AtomicLongArray guesses;
+    private final String[] resultIds;
+    private final double[] resultPositions;
+    private final int[] resultPoints;
+
+    public Round(int seats) {
+        this.guesses = new AtomicLongArray(seats);
+        this.resultIds = new String[seats];
+        this.resultPositions = new double[seats];
+        this.resultPoints = new int[seats];
+        for (int i = 0; i < seats; i++) {
+            guesses.set(i, EMPTY);
+        }
+    }
+
+    public long getId() {
+        return id;
+    }
 
     public String getPromptLeft() {
         return promptLeft;
@@ -43,4 +86,72 @@ public class Round {
     public void setRevealed(boolean revealed) {
         this.revealed = revealed;
     }
-}
\ No newline at end of file
+
+    public int getSeats() {
+        return guesses.length();
+    }
+
+    // Position must be in [0, 1]. A locked guess can no longer be changed.
+    public GuessResult submitGuess(int seat, double position, boolean lock) {
+        long next = Double.doubleToRawLongBits(position + 0.0) | (lock ? LOCKED : 0);
+        while (true) {
+            long current = guesses.get(seat);
+            if (current == SEALED) {
+                return GuessResult.CLOSED;
+            }
+            if (current != EMPTY && (current & LOCKED) != 0) {
+                return GuessResult.LOCKED;
+            }
+            if (guesses.compareAndSet(seat, current, next)) {
+                return GuessResult.ACCEPTED;
+            }
+        }
+    }
+
+    // Position guessed on the seat, or NaN when there is none.
+    public double guess(int seat) {
+        return position(guesses.get(seat));
+    }
+
+    public boolean isLocked(int seat) {
+        long bits = guesses.get(seat);
+        return bits != EMPTY && bits != SEALED && (bits & LOCKED) != 0;
+    }
+
+    // Closes the seat to further guesses and returns its final position (NaN for none).
+    public double seal(int seat) {
+        return position(guesses.getAndSet(seat, SEALED));
+    }
+
+    // Forgets the seat's guess, for a seat handed to a new player.
+    public void clear(int seat) {
+        long current = guesses.get(seat);
+        if (current != SEALED) {
+            guesses.compareAndSet(seat, current, EMPTY);
+        }
+    }
+
+    // Results are written on the room's mailbox before the round is marked revealed.
+    public void recordResult(int seat, String playerId, double position, int points) {
+        resultIds[seat] = playerId;
+        resultPositions[seat] = position;
+        resultPoints[seat] = points;
+    }
+
+    // Player scored on the seat at reveal, or null when the seat was empty.
+    public String resultPlayerId(int seat) {
+        return resultIds[seat];
+    }
+
+    public double resultPosition(int seat) {
+        return resultPositions[seat];
+    }
+
+    public int resultPoints(int seat) {
+        return resultPoints[seat];
+    }
+
+    private static double position(long bits) {
+        return bits == EMPTY || bits == SEALED ? Double.NaN : Double.longBitsToDouble(bits & ~LOCKED);
+    }
+}
@@ -1,25 +1,265 @@
 // ---------------------------------------------------------------------
 // GAME BROADCAST SERVICE
 // Sends updated room state over WebSocket/STOMP to subscribed clients.
-// Wraps a SimpMessagingTemplate and defines a method for broadcasting RoomDTOs.
+// The first update of a room is a full RoomDTO; later updates are RoomPatchDTOs that
+// carry only the fields changed since the last version sent. Also publishes the
+// final close notice of a room. Each frame is encoded to JSON exactly once and the same
+// byte buffer is handed to the broker, which shares it across every subscriber. Sessions
+// that negotiated the binary wire format get a lazily encoded binary body instead.
+// Callers must not broadcast one room from two threads at once. Frame listeners see every
+// locally produced frame (e.g. to relay it to other nodes); frames arriving from another
+// node are sent to the local broker as they are, without recomputing a patch. Two frames
+// of one room still queued for a slow session can be coalesced into one that takes the
+// client from the first frame's base version to the second frame's version.
 // ---------------------------------------------------------------------
 
 package com.cluewave.service;
 
+import com.cluewave.dto.PlayerDTO;
+import com.cluewave.dto.RoomClosedDTO;
 import com.cluewave.dto.RoomDTO;
+import com.cluewave.dto.RoomPatchDTO;
+import com.cluewave.dto.RoundDTO;
+import com.cluewave.websocket.BinaryRoomCodec;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
 
 @Service
 public class GameBroadcastService {
 
+    // Message header holding a Supplier<byte[]> of the binary encoding of the same frame.
+    public static final String BINARY_PAYLOAD_HEADER = "cluewaveBinaryPayload";
+
     private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final Map<String, RoomDTO> lastSent = new ConcurrentHashMap<>();
+    private final List<FrameListener> frameListeners = new CopyOnWriteArrayList<>();
+
+    public interface FrameListener {
+        void onFrame(String destination, byte[] json, Supplier<byte[]> binary);
+    }
 
     public GameBroadcastService(SimpMessagingTemplate messagingTemplate) {
+        this(messagingTemplate, new ObjectMapper());
+    }
+
+    @Autowired
+    public GameBroadcastService(SimpMessagingTemplate messagingTemplate, ObjectMapper objectMapper) {
         this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public void addFrameListener(FrameListener listener) {
+        frameListeners.add(listener);
     }
 
     public void broadcastRoomUpdate(String roomCode, RoomDTO dto) {
-        messagingTemplate.convertAndSend("/topic/room/" + roomCode, dto);
+        RoomDTO previous = lastSent.get(roomCode);
+        if (previous == null || previous == dto) {
+            lastSent.put(roomCode, dto);
+            send(roomCode, dto);
+            return;
+        }
+        if (previous.getVersion() >= dto.getVersion()) {
+            // an equal or newer version already went out
+            return;
+        }
+        lastSent.put(roomCode, dto);
+        send(roomCode, diff(previous, dto));
+    }
+
+    public void broadcastRoomClosed(String roomCode, String reason) {
+        lastSent.remove(roomCode);
+        send(roomCode, new RoomClosedDTO(roomCode, reason));
+    }
+
+    // Delivers a frame produced by another node to this node's subscribers.
+    public void sendRelayed(String destination, byte[] json, Supplier<byte[]> binary) {
+        messagingTemplate.send(destination, message(json, binary));
+    }
+
+    // Encodes the payload once; the broker copies only headers per subscriber.
+    Message<byte[]> encode(Object payload) {
+        return message(json(objectMapper, payload), new BinaryPayload(payload));
+    }
+
+    // One frame with the effect of the queued frame followed by the newer patch, keeping the
+    // newer frame's headers. Null when the newer frame is not a patch, when either frame was
+    // not encoded in this JVM, or when the patch does not follow on from the queued frame.
+    public static Message<?> coalesce(Message<?> queued, Message<?> newer, ObjectMapper objectMapper) {
+        Object merged = merge(frame(queued), frame(newer));
+        if (merged == null) {
+            return null;
+        }
+        return MessageBuilder.withPayload(json(objectMapper, merged))
+                .copyHeaders(newer.getHeaders())
+                .setHeader(BINARY_PAYLOAD_HEADER, new BinaryPayload(merged))
+                .build();
+    }
+
+    static Object merge(Object queued, Object newer) {
+        if (!(newer instanceof RoomPatchDTO patch)) {
+            // anything else already stands on its own
+            return null;
+        }
+        if (queued instanceof RoomDTO room && room.getVersion() == patch.getFromVersion()) {
+            Map<String, PlayerDTO> players = players(room.getPlayers(), patch);
+            return new RoomDTO(room.getCode(), new ArrayList<>(players.values()),
+                    patch.getCurrentRound() != null ? patch.getCurrentRound() : room.getCurrentRound(),
+                    patch.getState() != null ? patch.getState() : room.getState(),
+                    room.getHostName(), room.getHostEmail(), room.getCapacity(), patch.getVersion());
+        }
+        if (queued instanceof RoomPatchDTO first && first.getVersion() == patch.getFromVersion()) {
+            Map<String, PlayerDTO> players = players(first.getPlayers(), patch);
+            List<String> removed = new ArrayList<>();
+            if (first.getRemovedPlayers() != null) {
+                removed.addAll(first.getRemovedPlayers());
+            }
+            if (patch.getRemovedPlayers() != null) {
+                removed.addAll(patch.getRemovedPlayers());
+            }
+            removed.removeAll(players.keySet());
+            return new RoomPatchDTO(patch.getCode(), first.getFromVersion(), patch.getVersion(),
+                    patch.getState() != null ? patch.getState() : first.getState(),
+                    patch.getCurrentRound() != null ? patch.getCurrentRound() : first.getCurrentRound(),
+                    players.isEmpty() ? null : new ArrayList<>(players.values()),
+                    removed.isEmpty() ? null : removed);
+        }
+        return null;
+    }
+
+    // The players of the base frame with the patch's changes and removals applied.
+    private static Map<String, PlayerDTO> players(List<PlayerDTO> base, RoomPatchDTO patch) {
+        Map<String, PlayerDTO> players = new LinkedHashMap<>();
+        if (base != null) {
+            for (PlayerDTO p : base) {
+                players.put(p.getId(), p);
+            }
+        }
+        if (patch.getPlayers() != null) {
+            for (PlayerDTO p : patch.getPlayers()) {
+                players.put(p.getId(), p);
+            }
+        }
+        if (patch.getRemovedPlayers() != null) {
+            patch.getRemovedPlayers().forEach(players::remove);
+        }
+        return players;
+    }
+
+    // The frame a message was encoded from, when it was encoded in this JVM.
+    private static Object frame(Message<?> message) {
+        return message.getHeaders().get(BINARY_PAYLOAD_HEADER) instanceof BinaryPayload binary
+                ? binary.frame : null;
+    }
+
+    private static byte[] json(ObjectMapper objectMapper, Object payload) {
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not encode room frame", ex);
+        }
+    }
+
+    private static Message<byte[]> message(byte[] json, Supplier<byte[]> binary) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setHeader(BINARY_PAYLOAD_HEADER, binary);
+        headers.setLeaveMutable(true);
+        return MessageBuilder.createMessage(json, headers.getMessageHeaders());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void send(String roomCode, Object payload) {
+        String destination = destination(roomCode);
+        Message<byte[]> message = encode(payload);
+        messagingTemplate.send(destination, message);
+        for (FrameListener listener : frameListeners) {
+            listener.onFrame(destination, message.getPayload(),
+                    (Supplier<byte[]>) message.getHeaders().get(BINARY_PAYLOAD_HEADER));
+        }
+    }
+
+    static RoomPatchDTO diff(RoomDTO previous, RoomDTO current) {
+        String state = Objects.equals(previous.getState(), current.getState()) ? null : current.getState();
+        RoundDTO round = sameRound(previous.getCurrentRound(), current.getCurrentRound())
+                ? null : current.getCurrentRound();
+
+        Map<String, PlayerDTO> before = new HashMap<>();
+        for (PlayerDTO p : previous.getPlayers()) {
+            before.put(p.getId(), p);
+        }
+        List<PlayerDTO> changed = new ArrayList<>();
+        for (PlayerDTO p : current.getPlayers()) {
+            PlayerDTO old = before.remove(p.getId());
+            if (old == null || old.getScore() != p.getScore() || old.isAway() != p.isAway()
+                    || !Objects.equals(old.getName(), p.getName())) {
+                changed.add(p);
+            }
+        }
+        List<String> removed = before.isEmpty() ? null : new ArrayList<>(before.keySet());
+
+        return new RoomPatchDTO(current.getCode(), previous.getVersion(), current.getVersion(), state, round,
+                changed.isEmpty() ? null : changed, removed);
+    }
+
+    private static boolean sameRound(RoundDTO a, RoundDTO b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        // a new round may be dealt the same prompts as the last one
+        return a.getRoundId() == b.getRoundId() && a.isRevealed() == b.isRevealed()
+                && Objects.equals(a.getPromptLeft(), b.getPromptLeft())
+                && Objects.equals(a.getPromptRight(), b.getPromptRight());
+    }
+
+    private static String destination(String roomCode) {
+        return "/topic/room/" + roomCode;
+    }
+
+    // Encoded on first use, so frames nobody reads in binary never pay for it.
+    private static final class BinaryPayload implements Supplier<byte[]> {
+        private final Object frame;
+        private volatile byte[] bytes;
+
+        private BinaryPayload(Object frame) {
+            this.frame = frame;
+        }
+
+        @Override
+        public byte[] get() {
+            byte[] result = bytes;
+            if (result == null) {
+                synchronized (this) {
+                    result = bytes;
+                    if (result == null) {
+                        result = BinaryRoomCodec.encode(frame);
+                        bytes = result;
+                    }
+                }
+            }
+            return result;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,56 @@
+// ---------------------------------------------------------------------
+// HOST EMAIL INDEX
+// Secondary index from normalized host email to the codes of that host's live rooms.
+// Each entry is an immutable list replaced atomically per key, newest code last,
+// so lookups are O(1) and never observe a half-applied update.
+// ---------------------------------------------------------------------
+
+package com.cluewave.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class HostEmailIndex {
+
+    private final Map<String, List<String>> codesByEmail = new ConcurrentHashMap<>();
+
+    static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    void add(String email, String code) {
+        codesByEmail.compute(normalize(email), (key, codes) -> {
+            List<String> next = codes == null ? new ArrayList<>(1) : new ArrayList<>(codes);
+            next.add(code);
+            return Collections.unmodifiableList(next);
+        });
+    }
+
+    void remove(String email, String code) {
+        codesByEmail.computeIfPresent(normalize(email), (key, codes) -> {
+            if (!codes.contains(code)) {
+                return codes;
+            }
+            List<String> next = new ArrayList<>(codes);
+            next.remove(code);
+            return next.isEmpty() ? null : Collections.unmodifiableList(next);
+        });
+    }
+
+    String latest(String email) {
+        List<String> codes = codesByEmail.get(normalize(email));
+        return codes == null ? null : codes.get(codes.size() - 1);
+    }
+
+    List<String> codes(String email) {
+        return codesByEmail.getOrDefault(normalize(email), List.of());
+    }
+
+    int size() {
+        return codesByEmail.size();
+    }
+}
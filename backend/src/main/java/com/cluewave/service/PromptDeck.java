@@ -0,0 +1,202 @@
+// ---------------------------------------------------------------------
+// PROMPT DECK
+// Deals round prompts from a catalog loaded once at startup from rooms.prompts.location
+// (one "left | right" pair per line). The catalog is shuffled once on load and kept as
+// two arrays of interned strings, so a prompt used on several lines is stored once.
+// Each room walks its own affine permutation of the catalog through a PromptCursor, so
+// no pair repeats before every pair has been dealt and dealing is O(1) without
+// allocation. The catalog is hot-reloaded by swapping one reference: rounds already
+// dealt keep their prompts, and a room's next deal starts a fresh walk of the new
+// catalog. A catalog that fails to load keeps the previous one.
+// ---------------------------------------------------------------------
+
+package com.cluewave.service;
+
+import com.cluewave.model.PromptCursor;
+import com.cluewave.model.Round;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class PromptDeck implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(PromptDeck.class);
+
+    public static final String DEFAULT_LOCATION = "classpath:prompts.txt";
+
+    private final Resource resource;
+    private volatile Catalog catalog;
+    private volatile long loadedModified;
+    private final LongAdder reloads = new LongAdder();
+
+    // Loads the catalog bundled with the application.
+    public PromptDeck() {
+        this(DEFAULT_LOCATION, new DefaultResourceLoader());
+    }
+
+    @Autowired
+    public PromptDeck(@Value("${rooms.prompts.location:" + DEFAULT_LOCATION + "}") String location,
+                      ResourceLoader resourceLoader) {
+        this.resource = resourceLoader.getResource(location);
+        this.loadedModified = lastModified();
+        this.catalog = load(1);
+    }
+
+    // Must run on the room's mailbox that owns the cursor.
+    public void deal(Round round, PromptCursor cursor) {
+        Catalog c = catalog;
+        int size = c.left.length;
+        if (cursor.getGeneration() != c.generation || cursor.getDrawn() >= size) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            cursor.restart(c.generation, random.nextInt(size), stride(size, random));
+        }
+        int index = cursor.next(size);
+        round.setPromptLeft(c.left[index]);
+        round.setPromptRight(c.right[index]);
+    }
+
+    public int size() {
+        return catalog.left.length;
+    }
+
+    public long generation() {
+        return catalog.generation;
+    }
+
+    // Re-reads the catalog now; false (keeping the current one) when it cannot be loaded.
+    public boolean reload() {
+        long modified = lastModified();
+        try {
+            catalog = load(catalog.generation + 1);
+        } catch (IllegalStateException ex) {
+            log.warn("Keeping the current prompt catalog: {}", ex.getMessage());
+            return false;
+        }
+        loadedModified = modified;
+        reloads.increment();
+        log.info("Reloaded {} prompts from {}", catalog.left.length, resource.getDescription());
+        return true;
+    }
+
+    // Reloads when the catalog file changed since it was last loaded.
+    @Scheduled(fixedDelayString = "${rooms.prompts.reload-ms:60000}",
+            initialDelayString = "${rooms.prompts.reload-ms:60000}")
+    public void reloadIfModified() {
+        long modified = lastModified();
+        if (modified > 0 && modified != loadedModified) {
+            reload();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("rooms.prompts.size", this, PromptDeck::size)
+                .description("Prompt pairs in the loaded catalog")
+                .register(registry);
+        FunctionCounter.builder("rooms.prompts.reloads", reloads, LongAdder::sum)
+                .description("Prompt catalog reloads since startup")
+                .register(registry);
+    }
+
+    private long lastModified() {
+        try {
+            return resource.lastModified();
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    private Catalog load(long generation) {
+        List<String> left = new ArrayList<>();
+        List<String> right = new ArrayList<>();
+        Map<String, String> interned = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int bar = line.indexOf('|');
+                if (bar <= 0 || bar == line.length() - 1 || line.indexOf('|', bar + 1) >= 0) {
+                    throw new IllegalStateException("Malformed prompt on line " + number + " of "
+                            + resource.getDescription());
+                }
+                String l = line.substring(0, bar).strip();
+                String r = line.substring(bar + 1).strip();
+                left.add(interned.computeIfAbsent(l, k -> k));
+                right.add(interned.computeIfAbsent(r, k -> k));
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot read prompts from " + resource.getDescription(), ex);
+        }
+        if (left.isEmpty()) {
+            throw new IllegalStateException("No prompts in " + resource.getDescription());
+        }
+        return Catalog.shuffled(generation, left.toArray(String[]::new), right.toArray(String[]::new));
+    }
+
+    // A random stride coprime with size, so the walk visits every index once.
+    private static int stride(int size, ThreadLocalRandom random) {
+        if (size <= 2) {
+            return 1;
+        }
+        int stride;
+        do {
+            stride = 1 + random.nextInt(size - 1);
+        } while (gcd(stride, size) != 1);
+        return stride;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    private record Catalog(long generation, String[] left, String[] right) {
+
+        // Shuffled once, so consecutive indexes of a walk are unrelated pairs of the file.
+        static Catalog shuffled(long generation, String[] left, String[] right) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = left.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                String l = left[i];
+                left[i] = left[j];
+                left[j] = l;
+                String r = right[i];
+                right[i] = right[j];
+                right[j] = r;
+            }
+            return new Catalog(generation, left, right);
+        }
+    }
+}
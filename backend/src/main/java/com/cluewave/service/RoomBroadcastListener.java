@@ -0,0 +1,31 @@
+// ---------------------------------------------------------------------
+// ROOM BROADCAST LISTENER
+// Pushes every committed room change to /topic/room/{code} subscribers.
+// Hands each event's snapshot to the RoomBroadcastScheduler for coalescing and
+// turns CLOSED events into the room's final close notice. Rooms restored at startup
+// are not pushed: nobody can be subscribed to them yet.
+// ---------------------------------------------------------------------
+
+package com.cluewave.service;
+
+import org.springframework.stereotype.Component;
+
+@Component
+public class RoomBroadcastListener implements RoomEventListener {
+
+    private final RoomBroadcastScheduler broadcastScheduler;
+
+    public RoomBroadcastListener(RoomService roomService, RoomBroadcastScheduler broadcastScheduler) {
+        this.broadcastScheduler = broadcastScheduler;
+        roomService.addListener(this);
+    }
+
+    @Override
+    public void onRoomEvent(RoomEvent event) {
+        if (event.type() == RoomEvent.Type.CLOSED) {
+            broadcastScheduler.close(event.code(), event.reason());
+        } else if (event.type() != RoomEvent.Type.RESTORED) {
+            broadcastScheduler.submit(event.snapshot());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+// ---------------------------------------------------------------------
+// ROOM BROADCAST SCHEDULER
+// Coalesces bursts of room updates into one frame per room per tick window.
+// Each room keeps only its newest pending snapshot; the first update of a window arms
+// a flush on the room's stripe thread, so frames for one room are sent in version order
+// and never concurrently. Exposes metrics for frames saved and the delay added.
+// ---------------------------------------------------------------------
+
+package com.cluewave.service;
+
+import com.cluewave.dto.RoomDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+public class RoomBroadcastScheduler implements MeterBinder {
+
+    private final GameBroadcastService broadcastService;
+    private final long windowMs;
+    private final ScheduledExecutorService[] stripes;
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder saved = new LongAdder();
+    private final LongAdder delayNanos = new LongAdder();
+    private final AtomicLong maxDelayNanos = new AtomicLong();
+
+    public RoomBroadcastScheduler(GameBroadcastService broadcastService,
+                                  @Value("${rooms.broadcast.window-ms:25}") long windowMs,
+                                  @Value("${rooms.broadcast.threads:1}") int threads) {
+        this.broadcastService = broadcastService;
+        this.windowMs = windowMs;
+        this.stripes = new ScheduledExecutorService[Math.max(1, threads)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("room-broadcast-" + i).daemon().factory());
+        }
+    }
+
+    public void submit(RoomDTO dto) {
+        String code = dto.getCode();
+        Slot slot = slots.computeIfAbsent(code, key -> new Slot());
+        submitted.increment();
+        RoomDTO pending = slot.latest.getAndAccumulate(dto, (current, next) ->
+                current == null || next.getVersion() > current.getVersion() ? next : current);
+        if (pending != null) {
+            saved.increment();
+        }
+        if (slot.armed.compareAndSet(false, true)) {
+            slot.firstSubmitNanos = System.nanoTime();
+            stripe(code).schedule(() -> flush(code, slot), windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Drops any pending update of the room and sends its close notice after everything
+    // already flushed for it. The slot is detached right away, so a room that reuses the
+    // code gets a slot of its own and its first frame follows the notice.
+    public void close(String code, String reason) {
+        slots.remove(code);
+        stripe(code).execute(() -> broadcastService.broadcastRoomClosed(code, reason));
+    }
+
+    public long framesSubmitted() {
+        return submitted.sum();
+    }
+
+    public long framesSent() {
+        return sent.sum();
+    }
+
+    public long framesSaved() {
+        return saved.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("rooms.broadcast.frames.submitted", this, RoomBroadcastScheduler::framesSubmitted)
+                .description("Room updates handed to the broadcast scheduler")
+                .register(registry);
+        FunctionCounter.builder("rooms.broadcast.frames.sent", this, RoomBroadcastScheduler::framesSent)
+                .description("Room frames actually sent after coalescing")
+                .register(registry);
+        FunctionCounter.builder("rooms.broadcast.frames.saved", this, RoomBroadcastScheduler::framesSaved)
+                .description("Room updates merged into a later frame instead of being sent")
+                .register(registry);
+        FunctionTimer.builder("rooms.broadcast.delay", this,
+                        s -> s.sent.sum(), s -> s.delayNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Delay between the first update of a window and its frame being sent")
+                .register(registry);
+        Gauge.builder("rooms.broadcast.delay.max", maxDelayNanos, max -> max.get() / 1_000_000.0)
+                .description("Largest coalescing delay observed, in milliseconds")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ScheduledExecutorService stripe : stripes) {
+            stripe.shutdownNow();
+        }
+    }
+
+    private void flush(String code, Slot slot) {
+        slot.armed.set(false);
+        RoomDTO dto = slot.latest.getAndSet(null);
+        if (dto == null || slots.get(code) != slot) {
+            return;
+        }
+        broadcastService.broadcastRoomUpdate(code, dto);
+        long delay = System.nanoTime() - slot.firstSubmitNanos;
+        sent.increment();
+        delayNanos.add(delay);
+        maxDelayNanos.accumulateAndGet(delay, Math::max);
+    }
+
+    private ScheduledExecutorService stripe(String code) {
+        return stripes[(code.hashCode() & Integer.MAX_VALUE) % stripes.length];
+    }
+
+    private static final class Slot {
+        private final AtomicReference<RoomDTO> latest = new AtomicReference<>();
+        private final AtomicBoolean armed = new AtomicBoolean();
+        private volatile long firstSubmitNanos;
+    }
+}
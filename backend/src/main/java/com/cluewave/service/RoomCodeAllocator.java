@@ -0,0 +1,253 @@
+// ---------------------------------------------------------------------
+// ROOM CODE ALLOCATOR
+// Hands out unique room codes in O(1) without retry loops over a random generator.
+// Each code space (4 and 5 characters) walks a scrambled permutation of all its codes
+// with an atomic cursor, tracks live codes in a lock-free bitset, and recycles released
+// codes through a free list. Switches to 5-character codes once the 4-character space
+// reaches the configured fill threshold, and publishes utilization as gauges. In a cluster
+// only codes owned by this node are handed out, and utilization is measured against the
+// node's share of each code space.
+// ---------------------------------------------------------------------
+
+package com.cluewave.service;
+
+import com.cluewave.cluster.RoomAffinity;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Component
+public class RoomCodeAllocator implements MeterBinder {
+
+    static final String ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+    private static final int BITS_PER_CHAR = 5;
+
+    private final double fiveCharThreshold;
+    private final RoomAffinity affinity;
+    private final CodeSpace shortCodes;
+    private final AtomicReference<CodeSpace> longCodes = new AtomicReference<>();
+
+    public RoomCodeAllocator(double fiveCharThreshold) {
+        this(fiveCharThreshold, RoomAffinity.single());
+    }
+
+    @Autowired
+    public RoomCodeAllocator(@Value("${rooms.code.five-char-threshold:0.75}") double fiveCharThreshold,
+                             RoomAffinity affinity) {
+        if (fiveCharThreshold <= 0 || fiveCharThreshold > 1) {
+            throw new IllegalArgumentException("rooms.code.five-char-threshold must be in (0, 1]");
+        }
+        this.fiveCharThreshold = fiveCharThreshold;
+        this.affinity = affinity;
+        this.shortCodes = new CodeSpace(4, affinity);
+    }
+
+    public String allocate() {
+        if (shortCodes.utilization() < fiveCharThreshold) {
+            String code = shortCodes.allocate();
+            if (code != null) {
+                return code;
+            }
+        }
+        String code = longSpace().allocate();
+        if (code == null) {
+            throw new IllegalStateException("No room codes available");
+        }
+        return code;
+    }
+
+    public boolean release(String code) {
+        CodeSpace space = spaceFor(code);
+        return space != null && space.release(code);
+    }
+
+    // Marks a specific code as taken, e.g. when rooms are restored after a restart.
+    public boolean reserve(String code) {
+        if (code != null && code.length() == 5) {
+            return longSpace().reserve(code);
+        }
+        CodeSpace space = spaceFor(code);
+        return space != null && space.reserve(code);
+    }
+
+    public double utilization() {
+        return shortCodes.utilization();
+    }
+
+    public long allocated() {
+        CodeSpace five = longCodes.get();
+        return shortCodes.live() + (five == null ? 0 : five.live());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("rooms.codes.utilization", this, RoomCodeAllocator::utilization)
+                .description("Fraction of the 4-character room code space in use")
+                .register(registry);
+        Gauge.builder("rooms.codes.allocated", this, RoomCodeAllocator::allocated)
+                .description("Room codes currently allocated across all code lengths")
+                .register(registry);
+    }
+
+    private CodeSpace spaceFor(String code) {
+        if (code == null) {
+            return null;
+        }
+        if (code.length() == 4) {
+            return shortCodes;
+        }
+        return code.length() == 5 ? longCodes.get() : null;
+    }
+
+    private CodeSpace longSpace() {
+        CodeSpace space = longCodes.get();
+        if (space == null) {
+            longCodes.compareAndSet(null, new CodeSpace(5, affinity));
+            space = longCodes.get();
+        }
+        return space;
+    }
+
+    static final class CodeSpace {
+        private final int length;
+        private final int bits;
+        private final int size;
+        private final int mask;
+        private final int offset;
+        private final RoomAffinity affinity;
+        private final double capacity;
+        private final AtomicLongArray used;
+        private final AtomicLong cursor = new AtomicLong();
+        private final AtomicInteger live = new AtomicInteger();
+        private final Queue<Integer> free = new ConcurrentLinkedQueue<>();
+
+        CodeSpace(int length, RoomAffinity affinity) {
+            this.length = length;
+            this.bits = length * BITS_PER_CHAR;
+            this.size = 1 << bits;
+            this.mask = size - 1;
+            this.offset = ThreadLocalRandom.current().nextInt() & mask;
+            this.affinity = affinity;
+            this.capacity = size * affinity.share();
+            this.used = new AtomicLongArray(size >>> 6);
+        }
+
+        String allocate() {
+            Integer recycled;
+            while ((recycled = free.poll()) != null) {
+                if (mark(recycled)) {
+                    return encode(recycled);
+                }
+            }
+            boolean clustered = affinity.isClustered();
+            long seq;
+            while ((seq = cursor.getAndIncrement()) < size) {
+                int index = permute((int) seq);
+                // codes of other nodes are skipped without being marked
+                if (clustered && !affinity.isLocal(encode(index))) {
+                    continue;
+                }
+                if (mark(index)) {
+                    return encode(index);
+                }
+            }
+            return null;
+        }
+
+        boolean release(String code) {
+            int index = decode(code);
+            if (index < 0 || !unmark(index)) {
+                return false;
+            }
+            free.add(index);
+            return true;
+        }
+
+        boolean reserve(String code) {
+            int index = decode(code);
+            return index >= 0 && mark(index);
+        }
+
+        int live() {
+            return live.get();
+        }
+
+        double utilization() {
+            return live.get() / capacity;
+        }
+
+        // Bijective scramble of [0, size): xor-shifts and an odd multiplier are each
+        // invertible modulo a power of two, so every sequence number maps to a distinct code.
+        private int permute(int seq) {
+            int x = (seq + offset) & mask;
+            x ^= x >>> (bits / 2);
+            x = (x * 0x2C1B3C6D) & mask;
+            x ^= x >>> (bits / 2 + 1);
+            x = (x * 0x297A2D39) & mask;
+            return x ^ (x >>> (bits / 2));
+        }
+
+        private boolean mark(int index) {
+            int word = index >>> 6;
+            long bit = 1L << index;
+            long current;
+            do {
+                current = used.get(word);
+                if ((current & bit) != 0) {
+                    return false;
+                }
+            } while (!used.compareAndSet(word, current, current | bit));
+            live.incrementAndGet();
+            return true;
+        }
+
+        private boolean unmark(int index) {
+            int word = index >>> 6;
+            long bit = 1L << index;
+            long current;
+            do {
+                current = used.get(word);
+                if ((current & bit) == 0) {
+                    return false;
+                }
+            } while (!used.compareAndSet(word, current, current & ~bit));
+            live.decrementAndGet();
+            return true;
+        }
+
+        private String encode(int index) {
+            char[] chars = new char[length];
+            for (int i = length - 1; i >= 0; i--) {
+                chars[i] = ALPHABET.charAt(index & 31);
+                index >>>= BITS_PER_CHAR;
+            }
+            return new String(chars);
+        }
+
+        private int decode(String code) {
+            if (code.length() != length) {
+                return -1;
+            }
+            int index = 0;
+            for (int i = 0; i < length; i++) {
+                int digit = ALPHABET.indexOf(code.charAt(i));
+                if (digit < 0) {
+                    return -1;
+                }
+                index = (index << BITS_PER_CHAR) | digit;
+            }
+            return index;
+        }
+    }
+}
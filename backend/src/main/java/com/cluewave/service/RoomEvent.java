@@ -0,0 +1,37 @@
+// ---------------------------------------------------------------------
+// ROOM EVENT
+// Describes a committed change to a game room, published by RoomService to registered
+// RoomEventListeners. Carries the room, the snapshot of the version the change produced,
+// for CLOSED events the reason the room was closed, and for player events the id of the
+// player concerned.
+// ---------------------------------------------------------------------
+
+package com.cluewave.service;
+
+import com.cluewave.dto.RoomDTO;
+import com.cluewave.model.GameRoom;
+
+public record RoomEvent(Type type, GameRoom room, RoomDTO snapshot, String reason, String playerId) {
+
+    public enum Type {
+        CREATED,
+        // rebuilt after a restart; published once, like CREATED
+        RESTORED,
+        PLAYER_JOINED,
+        PLAYER_PRESENCE,
+        PLAYER_LEFT,
+        ROUND_STARTED,
+        ROUND_REVEALED,
+        // the host ended the game; the room keeps its final scores until it is closed
+        GAME_FINISHED,
+        CLOSED
+    }
+
+    public RoomEvent(Type type, GameRoom room, RoomDTO snapshot, String reason) {
+        this(type, room, snapshot, reason, null);
+    }
+
+    public String code() {
+        return room.getCode();
+    }
+}
@@ -0,0 +1,13 @@
+// ---------------------------------------------------------------------
+// ROOM EVENT LISTENER
+// Callback registered with RoomService to observe committed room changes.
+// Implementations must be fast and non-blocking since they run on the room's mailbox.
+// ---------------------------------------------------------------------
+
+package com.cluewave.service;
+
+@FunctionalInterface
+public interface RoomEventListener {
+
+    void onRoomEvent(RoomEvent event);
+}
@@ -0,0 +1,119 @@
+// ---------------------------------------------------------------------
+// ROOM REAPER
+// Expires idle lobbies, abandoned rounds, and finished games after configurable TTLs.
+// Every room gets one timeout in a hashed timing wheel; when it fires the room's real
+// deadline is re-checked from its last activity and the timeout is re-armed if the room
+// was used in the meantime, so sweeps never scan the full room map. A finished game
+// replaces its room's timeout with one under the shorter finished-game TTL. Expired rooms
+// are closed with reason "expired"; the close notice goes out through the room event hook.
+// ---------------------------------------------------------------------
+
+package com.cluewave.service;
+
+import com.cluewave.model.GameRoom;
+import com.cluewave.util.TimingWheel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class RoomReaper implements RoomEventListener {
+
+    private static final int WHEEL_SIZE = 512;
+
+    private final RoomService roomService;
+    private final long lobbyTtlMs;
+    private final long activeTtlMs;
+    private final long finishedTtlMs;
+    private final TimingWheel<GameRoom> wheel;
+    // each room's current timeout, so a state change can replace it instead of adding one
+    private final Map<GameRoom, TimingWheel.Timeout<GameRoom>> timeouts = new ConcurrentHashMap<>();
+
+    public RoomReaper(RoomService roomService,
+                      @Value("${rooms.ttl.lobby-ms:1800000}") long lobbyTtlMs,
+                      @Value("${rooms.ttl.active-ms:3600000}") long activeTtlMs,
+                      @Value("${rooms.ttl.finished-ms:300000}") long finishedTtlMs,
+                      @Value("${rooms.reaper.tick-ms:1000}") long tickMs) {
+        this.roomService = roomService;
+        this.lobbyTtlMs = lobbyTtlMs;
+        this.activeTtlMs = activeTtlMs;
+        this.finishedTtlMs = finishedTtlMs;
+        this.wheel = new TimingWheel<>(tickMs, WHEEL_SIZE, System.currentTimeMillis());
+        roomService.addListener(this);
+    }
+
+    @Override
+    public void onRoomEvent(RoomEvent event) {
+        GameRoom room = event.room();
+        switch (event.type()) {
+            case CREATED, RESTORED -> schedule(room, deadline(room));
+            case GAME_FINISHED -> reschedule(room, deadline(room));
+            case CLOSED -> {
+                TimingWheel.Timeout<GameRoom> timeout = timeouts.remove(room);
+                if (timeout != null) {
+                    timeout.cancel();
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rooms.reaper.tick-ms:1000}")
+    public void sweep() {
+        sweep(System.currentTimeMillis());
+    }
+
+    int sweep(long now) {
+        int[] closed = new int[1];
+        wheel.advance(now, room -> {
+            if (roomService.findRoom(room.getCode()) != room) {
+                return;
+            }
+            long deadline = deadline(room);
+            if (deadline > now) {
+                reschedule(room, deadline);
+            } else if (roomService.closeRoom(room, "expired")) {
+                closed[0]++;
+            }
+        });
+        return closed[0];
+    }
+
+    private void schedule(GameRoom room, long deadline) {
+        TimingWheel.Timeout<GameRoom> previous = timeouts.put(room, wheel.schedule(room, deadline));
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    // Replaces the timeout of a room that is still tracked; a room closed in the meantime
+    // has already dropped its entry and must not be put back in the wheel.
+    private void reschedule(GameRoom room, long deadline) {
+        timeouts.computeIfPresent(room, (r, previous) -> {
+            previous.cancel();
+            return wheel.schedule(r, deadline);
+        });
+    }
+
+    int trackedRooms() {
+        return wheel.size();
+    }
+
+    private long deadline(GameRoom room) {
+        return room.getLastActivity() + ttl(room.getState());
+    }
+
+    private long ttl(String state) {
+        if ("lobby".equals(state)) {
+            return lobbyTtlMs;
+        }
+        if ("finished".equals(state)) {
+            return finishedTtlMs;
+        }
+        return activeTtlMs;
+    }
+}
@@ -1,76 +1,404 @@
 // ---------------------------------------------------------------------
 // GAME ROOM SERVICE
 // Manages creation, joining, and state transitions of in-memory game rooms.
-// Generates unique room codes, enforces two-player limit, supports join by email,
-// starts rounds with placeholder prompts, and converts models to DTOs for clients.
+// Allocates unique room codes, enforces per-room capacity, supports join by email
+// through a host-email index, starts rounds with prompts dealt from the PromptDeck,
+// records guesses lock-free into the round's per-seat slots, only from the account that
+// took the seat, reveals rounds by scoring every seat in one pass with the ScoringCurve,
+// finishes games after a revealed round, tracks players marked away, gives seats of
+// players that left back to the room, closes rooms, and serves versioned RoomDTO
+// snapshots built at most once per change. Every command on an existing room runs on
+// that room's mailbox (single writer per room); once a command has committed its change,
+// a RoomEvent with the new snapshot is published to the registered RoomEventListeners on
+// that mailbox, so listeners see each room's events in version order.
 // ---------------------------------------------------------------------
 
 package com.cluewave.service;
 
+import com.cluewave.dto.GuessDTO;
 import com.cluewave.dto.PlayerDTO;
 import com.cluewave.dto.RoomDTO;
 import com.cluewave.dto.RoundDTO;
 import com.cluewave.model.GameRoom;
 import com.cluewave.model.Player;
 import com.cluewave.model.Round;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 public class RoomService {
 
+    private static final Logger log = LoggerFactory.getLogger(RoomService.class);
+
     private final Map<String, GameRoom> rooms = new ConcurrentHashMap<>();
+    private final HostEmailIndex hostEmailIndex = new HostEmailIndex();
+    private final List<RoomEventListener> listeners = new CopyOnWriteArrayList<>();
+    private final RoomCodeAllocator codeAllocator;
+    private final Executor roomExecutor;
+    private final ScoringCurve scoringCurve;
+    private final PromptDeck promptDeck;
+
+    public RoomService(RoomCodeAllocator codeAllocator, Executor roomExecutor) {
+        this(codeAllocator, roomExecutor, ScoringCurve.defaults(), new PromptDeck());
+    }
+
+    @Autowired
+    public RoomService(RoomCodeAllocator codeAllocator,
+                       @Qualifier("roomExecutor") Executor roomExecutor,
+                       ScoringCurve scoringCurve,
+                       PromptDeck promptDeck) {
+        this.codeAllocator = codeAllocator;
+        this.roomExecutor = roomExecutor;
+        this.scoringCurve = scoringCurve;
+        this.promptDeck = promptDeck;
+    }
+
+    public void addListener(RoomEventListener listener) {
+        listeners.add(listener);
+    }
+
     public RoomDTO createRoom(String hostName, String hostEmail) {
-        String code = generateCode();
-        GameRoom room = new GameRoom(code, hostName, hostEmail);
+        return createRoom(hostName, hostEmail, GameRoom.DEFAULT_CAPACITY);
+    }
+
+    public RoomDTO createRoom(String hostName, String hostEmail, int capacity) {
+        if (capacity < GameRoom.MIN_CAPACITY || capacity > GameRoom.MAX_CAPACITY) {
+            throw new IllegalArgumentException("Room capacity must be between "
+                    + GameRoom.MIN_CAPACITY + " and " + GameRoom.MAX_CAPACITY);
+        }
+        String code = codeAllocator.allocate();
+        GameRoom room = new GameRoom(code, hostName, hostEmail, System.currentTimeMillis(), capacity, roomExecutor);
         room.setState("lobby");
+        room.tryReserveSeat();
 
-        Player host = new Player(UUID.randomUUID().toString(), hostName);
-        room.getPlayers().put(host.getId(), host);
+        room.seatPlayer(new Player(UUID.randomUUID().toString(), hostName, hostEmail));
+        // committed before the room becomes reachable, so CREATED is always its first event
+        commit(room, RoomEvent.Type.CREATED);
         rooms.put(code, room);
-        return toDTO(room);
+        hostEmailIndex.add(hostEmail, code);
+        return room.getSnapshot();
     }
 
-    public PlayerDTO joinRoom(String code, String playerName) {
-        GameRoom room = getOrThrow(code);
-        if (room.getPlayers().size() >= 2) {
-            throw new IllegalStateException("Room is full");
+    // Rebuilds a room from persisted state, e.g. after a restart. The state callback seats
+    // the players and sets the round before the room becomes reachable. Returns false when
+    // the code is already live or cannot be reserved.
+    public boolean restoreRoom(String code, String hostName, String hostEmail, long createdAt, int capacity,
+                               Consumer<GameRoom> state) {
+        if (rooms.containsKey(code) || !codeAllocator.reserve(code)) {
+            return false;
+        }
+        GameRoom room = new GameRoom(code, hostName, hostEmail, createdAt, capacity, roomExecutor);
+        state.accept(room);
+        for (int i = 0; i < room.getPlayers().size(); i++) {
+            room.tryReserveSeat();
         }
-        Player p = new Player(UUID.randomUUID().toString(), playerName);
-        room.getPlayers().put(p.getId(), p);
-        return new PlayerDTO(p.getId(), p.getName(), p.getScore());
+        commit(room, RoomEvent.Type.RESTORED);
+        rooms.put(code, room);
+        hostEmailIndex.add(hostEmail, code);
+        return true;
     }
 
-    public RoomDTO joinRoomByEmail(String email, String playerName) {
-        GameRoom room = rooms.values().stream()
-                .filter(r -> r.getHostEmail().equalsIgnoreCase(email))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Room not found for host email: " + email));
-        joinRoom(room.getCode(), playerName);
-        return toDTO(room);
+    // The account is the signed-in caller's email; guesses for the player must come from it.
+    public PlayerDTO joinRoom(String code, String playerName, String account) {
+        GameRoom room = getOrThrow(code);
+        reserveSeat(room);
+        return executeSeated(room, () -> {
+            Player p = addPlayer(room, playerName, account);
+            return new PlayerDTO(p.getId(), p.getName(), p.getScore());
+        });
     }
 
+    public RoomDTO joinRoomByEmail(String email, String playerName, String account) {
+        GameRoom room = findRoomByHostEmail(email);
+        if (room == null) {
+            throw new IllegalArgumentException("Room not found for host email: " + email);
+        }
+        reserveSeat(room);
+        return executeSeated(room, () -> {
+            addPlayer(room, playerName, account);
+            return snapshot(room);
+        });
+    }
+
+    // Served from the room's cached snapshot; only a stale cache goes through the mailbox.
     public RoomDTO getRoomState(String code) {
-        return toDTO(getOrThrow(code));
+        GameRoom room = getOrThrow(code);
+        RoomDTO cached = room.getSnapshot();
+        if (cached != null && cached.getVersion() == room.getVersion()) {
+            return cached;
+        }
+        return execute(room, () -> snapshot(room));
+    }
+
+    // Strong validator for the room's current version, computed without building a DTO.
+    // The creation time keeps tags of a recycled room code from matching the old room.
+    public String getRoomETag(String code) {
+        GameRoom room = getOrThrow(code);
+        return eTag(room, room.getVersion());
+    }
+
+    public String getRoomETag(String code, long version) {
+        return eTag(getOrThrow(code), version);
     }
 
     public RoundDTO startRound(String code) {
         GameRoom room = getOrThrow(code);
-        Round round = new Round();
-        round.setPromptLeft("Froid");
-        round.setPromptRight("Chaud");
-        round.setTargetPosition(new Random().nextDouble());
-        round.setRevealed(false);
-        room.setCurrentRound(round);
-        room.setState("in_round");
-        return toRoundDTO(round);
+        return execute(room, () -> {
+            if ("finished".equals(room.getState())) {
+                throw new IllegalStateException("Game already finished");
+            }
+            Round round = new Round(room.getCapacity());
+            promptDeck.deal(round, room.getPromptCursor());
+            round.setTargetPosition(new Random().nextDouble());
+            round.setRevealed(false);
+            room.setCurrentRound(round);
+            room.setState("in_round");
+            commit(room, RoomEvent.Type.ROUND_STARTED);
+            return toRoundDTO(round);
+        });
+    }
+
+    // Records the player's guess without going through the room's mailbox, so any number
+    // of players can guess at once. Nothing is broadcast until the round is revealed.
+    // Only the account that took the player's seat may guess for it.
+    public void submitGuess(String code, String playerId, double position, boolean lock, String account) {
+        if (!(position >= 0 && position <= 1)) {
+            throw new IllegalArgumentException("Guess must be between 0 and 1");
+        }
+        GameRoom room = getOrThrow(code);
+        Player p = playerId == null ? null : room.getPlayers().get(playerId);
+        if (p == null) {
+            throw new IllegalArgumentException("Player not found: " + playerId);
+        }
+        if (!Objects.equals(p.getAccount(), account)) {
+            throw new IllegalArgumentException("Player belongs to another account: " + playerId);
+        }
+        Round round = room.getCurrentRound();
+        if (round == null || !"in_round".equals(room.getState())) {
+            throw new IllegalStateException("No round in progress");
+        }
+        switch (round.submitGuess(p.getSeat(), position, lock)) {
+            case LOCKED -> throw new IllegalStateException("Guess already locked");
+            case CLOSED -> throw new IllegalStateException("Round already revealed");
+            default -> {
+            }
+        }
+    }
+
+    // Seals and scores every seat in one pass, then commits a single ROUND_REVEALED event.
+    public RoundDTO revealRound(String code) {
+        GameRoom room = getOrThrow(code);
+        return execute(room, () -> {
+            Round round = room.getCurrentRound();
+            if (round == null || !"in_round".equals(room.getState())) {
+                throw new IllegalStateException("No round in progress");
+            }
+            if (round.isRevealed()) {
+                throw new IllegalStateException("Round already revealed");
+            }
+            double target = round.getTargetPosition();
+            Player[] seats = room.getSeats();
+            for (int seat = 0; seat < seats.length; seat++) {
+                double position = round.seal(seat);
+                Player p = seats[seat];
+                if (p == null) {
+                    continue;
+                }
+                int points = Double.isNaN(position) ? 0 : scoringCurve.points(Math.abs(position - target));
+                p.addScore(points);
+                round.recordResult(seat, p.getId(), position, points);
+            }
+            round.setRevealed(true);
+            commit(room, RoomEvent.Type.ROUND_REVEALED);
+            return room.getSnapshot().getCurrentRound();
+        });
+    }
+
+    // Ends the game after its last revealed round. The room stays open with the final
+    // scores until it is closed or expires under the finished-game TTL.
+    public RoomDTO finishGame(String code) {
+        GameRoom room = getOrThrow(code);
+        return execute(room, () -> {
+            if ("finished".equals(room.getState())) {
+                throw new IllegalStateException("Game already finished");
+            }
+            Round round = room.getCurrentRound();
+            if (round == null || !round.isRevealed()) {
+                throw new IllegalStateException("No round revealed yet");
+            }
+            room.setState("finished");
+            commit(room, RoomEvent.Type.GAME_FINISHED);
+            return room.getSnapshot();
+        });
+    }
+
+    // Returns false when the room or player is gone; an unchanged flag commits nothing.
+    public boolean setPlayerAway(String code, String playerId, boolean away) {
+        return setPlayerAway(code, playerId, () -> away);
+    }
+
+    // The flag is evaluated on the room's mailbox, right before it is applied.
+    public boolean setPlayerAway(String code, String playerId, BooleanSupplier away) {
+        GameRoom room = rooms.get(code);
+        if (room == null) {
+            return false;
+        }
+        return executeIfOpen(room, () -> {
+            Player p = room.getPlayers().get(playerId);
+            if (p == null) {
+                return false;
+            }
+            boolean flag = away.getAsBoolean();
+            if (p.isAway() != flag) {
+                p.setAway(flag);
+                commit(room, RoomEvent.Type.PLAYER_PRESENCE, playerId);
+            }
+            return true;
+        });
+    }
+
+    public boolean removePlayer(String code, String playerId) {
+        GameRoom room = rooms.get(code);
+        if (room == null) {
+            return false;
+        }
+        return executeIfOpen(room, () -> {
+            if (room.unseatPlayer(playerId) == null) {
+                return false;
+            }
+            room.releaseSeat();
+            commit(room, RoomEvent.Type.PLAYER_LEFT, playerId);
+            return true;
+        });
+    }
+
+    // Whether the player is seated in the room and was joined by the given account.
+    public boolean ownsPlayer(String code, String playerId, String account) {
+        GameRoom room = rooms.get(code);
+        Player p = room == null || playerId == null ? null : room.getPlayers().get(playerId);
+        return p != null && account != null && account.equals(p.getAccount());
+    }
+
+    public void closeRoom(String code) {
+        GameRoom room = rooms.get(code);
+        if (room != null) {
+            closeRoom(room, "closed");
+        }
+    }
+
+    // Removes the room only if the code still maps to this exact instance. The CLOSED
+    // event is queued on the room's mailbox behind any command already accepted; the code
+    // is recycled only after it, so listeners never see a new room's events first.
+    boolean closeRoom(GameRoom room, String reason) {
+        if (!rooms.remove(room.getCode(), room)) {
+            return false;
+        }
+        hostEmailIndex.remove(room.getHostEmail(), room.getCode());
+        room.getMailbox().execute(() -> {
+            publish(new RoomEvent(RoomEvent.Type.CLOSED, room, room.getSnapshot(), reason));
+            codeAllocator.release(room.getCode());
+        });
+        return true;
+    }
+
+    // Live rooms, for persisting them; their state may only be read on their mailboxes.
+    public Collection<GameRoom> liveRooms() {
+        return Collections.unmodifiableCollection(rooms.values());
+    }
+
+    GameRoom findRoom(String code) {
+        return rooms.get(code);
+    }
+
+    int roomCount() {
+        return rooms.size();
+    }
+
+    // Most recently created live room of the host, or null when there is none.
+    GameRoom findRoomByHostEmail(String email) {
+        String code = hostEmailIndex.latest(email);
+        GameRoom room = code == null ? null : rooms.get(code);
+        if (room == null || !HostEmailIndex.normalize(room.getHostEmail())
+                .equals(HostEmailIndex.normalize(email))) {
+            return null;
+        }
+        return room;
+    }
+
+    // Runs the command on the room's mailbox and waits for its result, rethrowing
+    // the command's own exception. Fails if the room was closed in the meantime.
+    private <T> T execute(GameRoom room, Supplier<T> command) {
+        try {
+            return room.getMailbox().ask(() -> {
+                if (rooms.get(room.getCode()) != room) {
+                    throw new IllegalArgumentException("Room not found: " + room.getCode());
+                }
+                return command.get();
+            }).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    // Like execute, but treats a room closed in the meantime as a no-op.
+    private boolean executeIfOpen(GameRoom room, Supplier<Boolean> command) {
+        return room.getMailbox().ask(() -> rooms.get(room.getCode()) == room && command.get()).join();
+    }
+
+    // Full rooms are rejected on the caller's thread, before anything is queued.
+    private void reserveSeat(GameRoom room) {
+        if (!room.tryReserveSeat()) {
+            throw new IllegalStateException("Room is full");
+        }
+    }
+
+    // Like execute, but gives the reserved seat back if the command fails.
+    private <T> T executeSeated(GameRoom room, Supplier<T> command) {
+        try {
+            return execute(room, command);
+        } catch (RuntimeException ex) {
+            room.releaseSeat();
+            throw ex;
+        }
+    }
+
+    // Must run on the room's mailbox, with a seat already reserved.
+    private Player addPlayer(GameRoom room, String playerName, String account) {
+        Player p = new Player(UUID.randomUUID().toString(), playerName, account);
+        room.seatPlayer(p);
+        // a seat freed mid-round may still hold the previous player's guess
+        Round round = room.getCurrentRound();
+        if (round != null) {
+            round.clear(p.getSeat());
+        }
+        commit(room, RoomEvent.Type.PLAYER_JOINED, p.getId());
+        return p;
+    }
+
+    private static String eTag(GameRoom room, long version) {
+        return "\"" + room.getCode() + "-" + Long.toString(room.getCreatedAt(), 36) + "-" + version + "\"";
     }
 
     private GameRoom getOrThrow(String code) {
@@ -81,33 +409,65 @@ public class RoomService {
         return room;
     }
 
-    private String generateCode() {
-        String letters = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
-        Random r = new Random();
-        String code;
-        do {
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < 4; i++) {
-                sb.append(letters.charAt(r.nextInt(letters.length())));
+    // Must run on the room's mailbox, after the change has been fully applied.
+    private void commit(GameRoom room, RoomEvent.Type type) {
+        commit(room, type, null);
+    }
+
+    private void commit(GameRoom room, RoomEvent.Type type, String playerId) {
+        room.bumpVersion();
+        room.touch(System.currentTimeMillis());
+        publish(new RoomEvent(type, room, snapshot(room), null, playerId));
+    }
+
+    // A failing listener must not undo or fail a command that has already committed.
+    private void publish(RoomEvent event) {
+        for (RoomEventListener listener : listeners) {
+            try {
+                listener.onRoomEvent(event);
+            } catch (RuntimeException ex) {
+                log.warn("Room event listener failed for {} {}", event.type(), event.code(), ex);
             }
-            code = sb.toString();
-        } while (rooms.containsKey(code));
-        return code;
+        }
+    }
+
+    // Must run on the room's mailbox (or before the room is published).
+    // Builds the snapshot at most once per room version.
+    private RoomDTO snapshot(GameRoom room) {
+        RoomDTO cached = room.getSnapshot();
+        if (cached != null && cached.getVersion() == room.getVersion()) {
+            return cached;
+        }
+        RoomDTO dto = toDTO(room);
+        room.setSnapshot(dto);
+        return dto;
     }
 
     private RoomDTO toDTO(GameRoom room) {
         List<PlayerDTO> players = room.getPlayers().values().stream()
-                .map(p -> new PlayerDTO(p.getId(), p.getName(), p.getScore()))
-                .collect(Collectors.toList());
+                .map(p -> new PlayerDTO(p.getId(), p.getName(), p.getScore(), p.isAway()))
+                .toList();
         RoundDTO roundDTO = null;
         if (room.getCurrentRound() != null) {
             roundDTO = toRoundDTO(room.getCurrentRound());
         }
         return new RoomDTO(room.getCode(), players, roundDTO, room.getState(),
-                room.getHostName(), room.getHostEmail());
+                room.getHostName(), room.getHostEmail(), room.getCapacity(), room.getVersion());
     }
 
     private RoundDTO toRoundDTO(Round r) {
-        return new RoundDTO(r.getPromptLeft(), r.getPromptRight(), r.isRevealed());
+        if (!r.isRevealed()) {
+            return new RoundDTO(r.getPromptLeft(), r.getPromptRight(), false, null, null, r.getId());
+        }
+        List<GuessDTO> results = new ArrayList<>();
+        for (int seat = 0; seat < r.getSeats(); seat++) {
+            String playerId = r.resultPlayerId(seat);
+            if (playerId != null) {
+                double position = r.resultPosition(seat);
+                results.add(new GuessDTO(playerId, Double.isNaN(position) ? null : position, r.resultPoints(seat)));
+            }
+        }
+        return new RoundDTO(r.getPromptLeft(), r.getPromptRight(), true, r.getTargetPosition(),
+                List.copyOf(results), r.getId());
     }
 }
\ No newline at end of file
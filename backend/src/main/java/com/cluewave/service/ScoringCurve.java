@@ -0,0 +1,62 @@
+// ---------------------------------------------------------------------
+// SCORING CURVE
+// Turns the distance between a guess and the round's target into points.
+// 'bands' gives max points near the target and one point less per equal-width band,
+// 'linear' falls off evenly, and 'gaussian' falls off smoothly; all reach zero at
+// rooms.scoring.width. The curve is tabulated once at startup, so scoring a guess is a
+// single array lookup with no allocation.
+// ---------------------------------------------------------------------
+
+package com.cluewave.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ScoringCurve {
+
+    // Distances in [0, 1] are looked up at this resolution.
+    private static final int STEPS = 1024;
+
+    private final int[] table = new int[STEPS + 1];
+
+    public ScoringCurve(@Value("${rooms.scoring.curve:bands}") String curve,
+                        @Value("${rooms.scoring.max-points:4}") int maxPoints,
+                        @Value("${rooms.scoring.width:0.25}") double width) {
+        if (maxPoints < 1) {
+            throw new IllegalArgumentException("rooms.scoring.max-points must be positive");
+        }
+        if (width <= 0 || width > 1) {
+            throw new IllegalArgumentException("rooms.scoring.width must be in (0, 1]");
+        }
+        for (int i = 0; i <= STEPS; i++) {
+            table[i] = points(curve, maxPoints, width, i / (double) STEPS);
+        }
+    }
+
+    public static ScoringCurve defaults() {
+        return new ScoringCurve("bands", 4, 0.25);
+    }
+
+    public int points(double distance) {
+        if (!(distance >= 0)) {
+            return 0;
+        }
+        return distance >= 1 ? table[STEPS] : table[(int) (distance * STEPS + 0.5)];
+    }
+
+    private static int points(String curve, int max, double width, double distance) {
+        if (distance >= width) {
+            return 0;
+        }
+        return switch (curve.trim().toLowerCase()) {
+            case "bands" -> max - (int) (distance / (width / max));
+            case "linear" -> (int) Math.round(max * (1 - distance / width));
+            case "gaussian" -> {
+                double sigma = width / 3;
+                yield (int) Math.round(max * Math.exp(-distance * distance / (2 * sigma * sigma)));
+            }
+            default -> throw new IllegalArgumentException("Unknown rooms.scoring.curve: " + curve);
+        };
+    }
+}
@@ -0,0 +1,77 @@
+// ---------------------------------------------------------------------
+// ROOM MAILBOX
+// Serializes the commands of one game room on a shared executor (single writer per room).
+// Commands are queued lock-free and drained by at most one task at a time, so room state
+// needs no locks while independent rooms still run in parallel across all cores.
+// ---------------------------------------------------------------------
+
+package com.cluewave.util;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+public class RoomMailbox implements Executor {
+
+    // Upper bound of commands run per drain before yielding the thread to other rooms.
+    private static final int BATCH = 64;
+
+    private final Executor executor;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    public RoomMailbox(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        queue.add(command);
+        trySchedule();
+    }
+
+    public <T> CompletableFuture<T> ask(Supplier<T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        execute(() -> {
+            try {
+                result.complete(command.get());
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        return result;
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    private void trySchedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException ex) {
+                scheduled.set(false);
+                throw ex;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            Runnable command;
+            for (int i = 0; i < BATCH && (command = queue.poll()) != null; i++) {
+                command.run();
+            }
+        } finally {
+            scheduled.set(false);
+            if (!queue.isEmpty()) {
+                trySchedule();
+            }
+        }
+    }
+}
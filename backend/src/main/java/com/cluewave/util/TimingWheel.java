@@ -0,0 +1,115 @@
+// ---------------------------------------------------------------------
+// HASHED TIMING WHEEL
+// Low-overhead timer for large numbers of coarse timeouts (room TTLs, grace periods).
+// Any thread may schedule or cancel; a single sweeper thread advances the wheel and
+// only visits the buckets whose ticks have elapsed, never the full set of timeouts.
+// ---------------------------------------------------------------------
+
+package com.cluewave.util;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public class TimingWheel<T> {
+
+    private final long tickMs;
+    private final int mask;
+    private final ArrayDeque<Timeout<T>>[] buckets;
+    private final Queue<Timeout<T>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private long processedTick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs must be positive");
+        }
+        int normalized = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMs = tickMs;
+        this.mask = normalized - 1;
+        this.buckets = new ArrayDeque[normalized];
+        for (int i = 0; i < normalized; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.processedTick = startMs / tickMs;
+    }
+
+    public Timeout<T> schedule(T item, long deadlineMs) {
+        Timeout<T> timeout = new Timeout<>(item, deadlineMs, Math.floorDiv(deadlineMs + tickMs - 1, tickMs));
+        size.incrementAndGet();
+        pending.add(timeout);
+        return timeout;
+    }
+
+    // Must only be called from the sweeper thread. Returns the number of expired timeouts.
+    public int advance(long nowMs, Consumer<T> onExpired) {
+        long nowTick = nowMs / tickMs;
+        transferPending();
+        if (nowTick <= processedTick) {
+            return 0;
+        }
+        long from = Math.max(processedTick + 1, nowTick - mask);
+        int expired = 0;
+        for (long tick = from; tick <= nowTick; tick++) {
+            ArrayDeque<Timeout<T>> bucket = buckets[(int) (tick & mask)];
+            for (int i = bucket.size(); i > 0; i--) {
+                Timeout<T> timeout = bucket.poll();
+                if (timeout.cancelled) {
+                    size.decrementAndGet();
+                } else if (timeout.deadlineTick <= nowTick) {
+                    size.decrementAndGet();
+                    expired++;
+                    onExpired.accept(timeout.item);
+                } else {
+                    bucket.add(timeout);
+                }
+            }
+        }
+        processedTick = nowTick;
+        return expired;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    private void transferPending() {
+        Timeout<T> timeout;
+        while ((timeout = pending.poll()) != null) {
+            long tick = Math.max(timeout.deadlineTick, processedTick + 1);
+            buckets[(int) (tick & mask)].add(timeout);
+        }
+    }
+
+    public static final class Timeout<T> {
+        private final T item;
+        private final long deadlineMs;
+        private final long deadlineTick;
+        private volatile boolean cancelled;
+
+        private Timeout(T item, long deadlineMs, long deadlineTick) {
+            this.item = item;
+            this.deadlineMs = deadlineMs;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public long getDeadlineMs() {
+            return deadlineMs;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+// ---------------------------------------------------------------------
+// BINARY ROOM CODEC
+// Compact binary encoding of room frames for clients that negotiate it at CONNECT.
+// A frame starts with the format version byte, so a client can tell which layout it is
+// reading, then a kind byte (1 full room, 2 patch, 3 closed) followed by fields in
+// a fixed order: unsigned varints for counts and versions, zigzag varints for scores,
+// UTF-8 strings prefixed by length + 1 (0 means null), one byte for known states and
+// player presence, 16 raw bytes for UUID player ids, and 8 big-endian IEEE bytes for
+// slider positions. A revealed round adds the target and each player's guess and points.
+// ---------------------------------------------------------------------
+
+package com.cluewave.websocket;
+
+import com.cluewave.dto.GuessDTO;
+import com.cluewave.dto.PlayerDTO;
+import com.cluewave.dto.RoomClosedDTO;
+import com.cluewave.dto.RoomDTO;
+import com.cluewave.dto.RoomPatchDTO;
+import com.cluewave.dto.RoundDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+public final class BinaryRoomCodec {
+
+    // Leading byte of every frame, part of the format since binary frames were introduced.
+    // Any change to the layout below must bump it:
+    //   1 the initial layout
+    //   2 adds the player presence byte
+    //   3 adds the reveal target and each player's guess and points
+    public static final int FORMAT_VERSION = 3;
+
+    static final int FULL = 1;
+    static final int PATCH = 2;
+    static final int CLOSED = 3;
+
+    // State byte values; anything else is sent as OTHER_STATE followed by the string.
+    static final List<String> STATES = List.of("lobby", "in_round", "finished", "closed");
+    static final int OTHER_STATE = 0xFF;
+    static final int NO_STATE = 0xFE;
+
+    // Patch presence bits.
+    static final int HAS_STATE = 1;
+    static final int HAS_ROUND = 2;
+    static final int HAS_PLAYERS = 4;
+    static final int HAS_REMOVED = 8;
+
+    private static final int UUID_ID = 0;
+    private static final int STRING_ID = 1;
+
+    private BinaryRoomCodec() {
+    }
+
+    public static byte[] encode(Object frame) {
+        Writer out = new Writer();
+        out.write(FORMAT_VERSION);
+        if (frame instanceof RoomDTO room) {
+            out.write(FULL);
+            out.string(room.getCode());
+            out.varint(room.getVersion());
+            out.varint(room.getCapacity());
+            out.state(room.getState());
+            out.string(room.getHostName());
+            out.string(room.getHostEmail());
+            out.round(room.getCurrentRound());
+            out.players(room.getPlayers());
+        } else if (frame instanceof RoomPatchDTO patch) {
+            out.write(PATCH);
+            out.string(patch.getCode());
+            out.varint(patch.getFromVersion());
+            out.varint(patch.getVersion());
+            int present = (patch.getState() != null ? HAS_STATE : 0)
+                    | (patch.getCurrentRound() != null ? HAS_ROUND : 0)
+                    | (patch.getPlayers() != null ? HAS_PLAYERS : 0)
+                    | (patch.getRemovedPlayers() != null ? HAS_REMOVED : 0);
+            out.write(present);
+            if (patch.getState() != null) {
+                out.state(patch.getState());
+            }
+            if (patch.getCurrentRound() != null) {
+                out.round(patch.getCurrentRound());
+            }
+            if (patch.getPlayers() != null) {
+                out.players(patch.getPlayers());
+            }
+            if (patch.getRemovedPlayers() != null) {
+                out.varint(patch.getRemovedPlayers().size());
+                for (String id : patch.getRemovedPlayers()) {
+                    out.id(id);
+                }
+            }
+        } else if (frame instanceof RoomClosedDTO closed) {
+            out.write(CLOSED);
+            out.string(closed.getCode());
+            out.string(closed.getReason());
+        } else {
+            throw new IllegalArgumentException("Unsupported room frame: " + frame.getClass().getName());
+        }
+        return out.toByteArray();
+    }
+
+    // Unsynchronized growable buffer; one writer per frame.
+    private static final class Writer {
+        private byte[] buf = new byte[128];
+        private int count;
+
+        void write(int b) {
+            ensure(1);
+            buf[count++] = (byte) b;
+        }
+
+        void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[count++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[count++] = (byte) value;
+        }
+
+        void zigzag(int value) {
+            varint(Integer.toUnsignedLong((value << 1) ^ (value >> 31)));
+        }
+
+        void string(String value) {
+            if (value == null) {
+                varint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1L);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, count, bytes.length);
+            count += bytes.length;
+        }
+
+        void state(String state) {
+            if (state == null) {
+                write(NO_STATE);
+                return;
+            }
+            int index = STATES.indexOf(state);
+            if (index >= 0) {
+                write(index);
+            } else {
+                write(OTHER_STATE);
+                string(state);
+            }
+        }
+
+        void round(RoundDTO round) {
+            if (round == null) {
+                write(0);
+                return;
+            }
+            write(round.isRevealed() ? 2 : 1);
+            string(round.getPromptLeft());
+            string(round.getPromptRight());
+            if (round.isRevealed()) {
+                position(round.getTargetPosition());
+                List<GuessDTO> results = round.getResults() != null ? round.getResults() : List.of();
+                varint(results.size());
+                for (GuessDTO result : results) {
+                    id(result.getPlayerId());
+                    position(result.getPosition());
+                    zigzag(result.getPoints());
+                }
+            }
+        }
+
+        // A missing position is sent as NaN.
+        void position(Double value) {
+            long bits = Double.doubleToLongBits(value != null ? value : Double.NaN);
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[count++] = (byte) (bits >>> shift);
+            }
+        }
+
+        void players(List<PlayerDTO> players) {
+            varint(players.size());
+            for (PlayerDTO player : players) {
+                id(player.getId());
+                string(player.getName());
+                write(player.isAway() ? 1 : 0);
+                zigzag(player.getScore());
+            }
+        }
+
+        // Canonical lower-case UUIDs become 16 raw bytes; any other id is sent as a string.
+        void id(String id) {
+            if (id == null || id.length() != 36) {
+                write(STRING_ID);
+                string(id);
+                return;
+            }
+            ensure(17);
+            int mark = count;
+            buf[count++] = UUID_ID;
+            int high = -1;
+            for (int i = 0; i < 36; i++) {
+                char c = id.charAt(i);
+                if (i == 8 || i == 13 || i == 18 || i == 23) {
+                    if (c != '-') {
+                        count = mark;
+                        write(STRING_ID);
+                        string(id);
+                        return;
+                    }
+                    continue;
+                }
+                int nibble = c >= '0' && c <= '9' ? c - '0' : c >= 'a' && c <= 'f' ? c - 'a' + 10 : -1;
+                if (nibble < 0) {
+                    count = mark;
+                    write(STRING_ID);
+                    string(id);
+                    return;
+                }
+                if (high < 0) {
+                    high = nibble;
+                } else {
+                    buf[count++] = (byte) ((high << 4) | nibble);
+                    high = -1;
+                }
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, count);
+        }
+
+        private void ensure(int extra) {
+            if (count + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + extra));
+            }
+        }
+    }
+}
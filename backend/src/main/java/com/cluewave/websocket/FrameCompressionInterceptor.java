@@ -0,0 +1,254 @@
+// ---------------------------------------------------------------------
+// FRAME COMPRESSION INTERCEPTOR
+// Deflates outbound STOMP frame bodies for sessions that send "accept-encoding: deflate"
+// on CONNECT, when websocket.compression.mode=frame. Bodies below the size threshold go
+// out as they are; compressed ones use the permessage-deflate framing (raw DEFLATE, sync
+// flush, trailing 00 00 FF FF removed) and are marked "content-encoding: deflate". Without
+// context takeover each body is compressed once and shared by every session receiving it;
+// with it every session keeps its own deflater for a better ratio. Publishes compression
+// ratio and time per compressed frame.
+// ---------------------------------------------------------------------
+
+package com.cluewave.websocket;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+@Component
+public class FrameCompressionInterceptor implements ChannelInterceptor, MeterBinder {
+
+    public static final String ACCEPT_HEADER = "accept-encoding";
+    public static final String ENCODING_HEADER = "content-encoding";
+    public static final String DEFLATE = "deflate";
+
+    // Recently compressed shared bodies, indexed by identity hash.
+    private static final int RECENT_SLOTS = 64;
+
+    public enum Mode {
+        // the servlet container negotiates permessage-deflate on its own
+        NATIVE,
+        FRAME,
+        OFF
+    }
+
+    private final Mode mode;
+    private final int thresholdBytes;
+    private final boolean contextTakeover;
+    private final int level;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Queue<Deflater> sharedDeflaters = new ConcurrentLinkedQueue<>();
+    private final AtomicReferenceArray<Compressed> recent = new AtomicReferenceArray<>(RECENT_SLOTS);
+
+    private final LongAdder compressed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder deflations = new LongAdder();
+    private final LongAdder deflateNanos = new LongAdder();
+
+    public FrameCompressionInterceptor(@Value("${websocket.compression.mode:native}") String mode,
+                                       @Value("${websocket.compression.threshold-bytes:512}") int thresholdBytes,
+                                       @Value("${websocket.compression.context-takeover:false}") boolean contextTakeover,
+                                       @Value("${websocket.compression.level:6}") int level) {
+        try {
+            this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unknown websocket.compression.mode: " + mode);
+        }
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("websocket.compression.level must be between 1 and 9");
+        }
+        this.thresholdBytes = thresholdBytes;
+        this.contextTakeover = contextTakeover;
+        this.level = level;
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    // Registered on both client channels, after the wire format interceptor outbound.
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (mode != Mode.FRAME || type == null || sessionId == null) {
+            return message;
+        }
+        switch (type) {
+            case CONNECT -> {
+                String accepted = StompHeaderAccessor.wrap(message).getFirstNativeHeader(ACCEPT_HEADER);
+                if (accepted != null && accepted.toLowerCase(Locale.ROOT).contains(DEFLATE)) {
+                    sessions.put(sessionId, new Session(contextTakeover ? new Deflater(level, true) : null));
+                }
+            }
+            case DISCONNECT -> {
+                Session session = sessions.remove(sessionId);
+                if (session != null) {
+                    session.close();
+                }
+            }
+            case MESSAGE -> {
+                Session session = sessions.get(sessionId);
+                if (session != null) {
+                    return compress(message, session);
+                }
+            }
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    public boolean isCompressing(String sessionId) {
+        return sessions.containsKey(sessionId);
+    }
+
+    public long framesCompressed() {
+        return compressed.sum();
+    }
+
+    public long framesSkipped() {
+        return skipped.sum();
+    }
+
+    // Compressed size over original size of the frames sent compressed.
+    public double ratio() {
+        long in = bytesIn.sum();
+        return in == 0 ? 1.0 : bytesOut.sum() / (double) in;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("websocket.compression.frames.compressed", this,
+                        FrameCompressionInterceptor::framesCompressed)
+                .description("Outbound frames sent with a deflated body")
+                .register(registry);
+        FunctionCounter.builder("websocket.compression.frames.skipped", this,
+                        FrameCompressionInterceptor::framesSkipped)
+                .description("Outbound frames of compressing sessions sent as is (below threshold or no gain)")
+                .register(registry);
+        Gauge.builder("websocket.compression.ratio", this, FrameCompressionInterceptor::ratio)
+                .description("Compressed bytes over original bytes of the frames sent compressed")
+                .register(registry);
+        FunctionTimer.builder("websocket.compression.time", this,
+                        c -> c.deflations.sum(), c -> c.deflateNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Time spent deflating, per deflate call")
+                .register(registry);
+    }
+
+    private Message<?> compress(Message<?> message, Session session) {
+        if (!(message.getPayload() instanceof byte[] body) || body.length < thresholdBytes) {
+            skipped.increment();
+            return message;
+        }
+        byte[] deflated = session.deflater != null ? session.deflate(body) : shared(body);
+        if (deflated == null) {
+            skipped.increment();
+            return message;
+        }
+        compressed.increment();
+        bytesIn.add(body.length);
+        bytesOut.add(deflated.length);
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(message);
+        headers.setNativeHeader(ENCODING_HEADER, DEFLATE);
+        headers.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        return MessageBuilder.createMessage(deflated, headers.getMessageHeaders());
+    }
+
+    // The broker hands the same body array to every subscriber, so it is deflated once.
+    // Returns null when deflating does not make the body smaller.
+    private byte[] shared(byte[] body) {
+        int slot = System.identityHashCode(body) & (RECENT_SLOTS - 1);
+        Compressed hit = recent.get(slot);
+        if (hit != null && hit.source == body) {
+            return hit.deflated;
+        }
+        Deflater deflater = sharedDeflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+        }
+        byte[] deflated;
+        try {
+            deflater.reset();
+            deflated = deflate(deflater, body);
+        } finally {
+            sharedDeflaters.offer(deflater);
+        }
+        if (deflated.length >= body.length) {
+            deflated = null;
+        }
+        recent.set(slot, new Compressed(body, deflated));
+        return deflated;
+    }
+
+    private byte[] deflate(Deflater deflater, byte[] body) {
+        long start = System.nanoTime();
+        deflater.setInput(body);
+        byte[] out = new byte[Math.max(64, body.length / 2)];
+        int length = 0;
+        while (true) {
+            length += deflater.deflate(out, length, out.length - length, Deflater.SYNC_FLUSH);
+            if (length < out.length) {
+                break;
+            }
+            out = Arrays.copyOf(out, out.length * 2);
+        }
+        deflations.increment();
+        deflateNanos.add(System.nanoTime() - start);
+        // a sync flush always ends with the empty stored block 00 00 FF FF
+        return Arrays.copyOf(out, length - 4);
+    }
+
+    private record Compressed(byte[] source, byte[] deflated) {}
+
+    private final class Session {
+        private final Deflater deflater;
+        private boolean closed;
+
+        private Session(Deflater deflater) {
+            this.deflater = deflater;
+        }
+
+        // Frames of one session reach this point one at a time and in send order (see
+        // SlowConsumerGuard); every body must be sent once deflated, or the client's
+        // inflater would lose track of the shared window.
+        private synchronized byte[] deflate(byte[] body) {
+            if (closed) {
+                return null;
+            }
+            return FrameCompressionInterceptor.this.deflate(deflater, body);
+        }
+
+        private synchronized void close() {
+            closed = true;
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+}
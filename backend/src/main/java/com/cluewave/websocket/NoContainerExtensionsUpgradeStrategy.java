@@ -0,0 +1,116 @@
+// ---------------------------------------------------------------------
+// NO CONTAINER EXTENSIONS UPGRADE STRATEGY
+// WebSocket upgrade that negotiates no extensions with the servlet container. Tomcat
+// accepts a client's permessage-deflate offer on its own, ignoring Spring's extension
+// selection, so it would otherwise deflate every frame again (or when compression is off)
+// and keep a deflater and inflater per connection. Used unless
+// websocket.compression.mode=native.
+// ---------------------------------------------------------------------
+
+package com.cluewave.websocket;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.websocket.Decoder;
+import jakarta.websocket.Encoder;
+import jakarta.websocket.Extension;
+import jakarta.websocket.HandshakeResponse;
+import jakarta.websocket.server.HandshakeRequest;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.springframework.web.socket.server.standard.StandardWebSocketUpgradeStrategy;
+
+import java.util.List;
+import java.util.Map;
+
+public class NoContainerExtensionsUpgradeStrategy extends StandardWebSocketUpgradeStrategy {
+
+    @Override
+    protected void upgradeHttpToWebSocket(HttpServletRequest request, HttpServletResponse response,
+                                          ServerEndpointConfig endpointConfig, Map<String, String> pathParams)
+            throws Exception {
+        super.upgradeHttpToWebSocket(request, response, new NoExtensionsConfig(endpointConfig), pathParams);
+    }
+
+    static final class NoExtensionsConfig implements ServerEndpointConfig {
+        private final ServerEndpointConfig delegate;
+        private final Configurator configurator;
+
+        NoExtensionsConfig(ServerEndpointConfig delegate) {
+            this.delegate = delegate;
+            this.configurator = new NoExtensionsConfigurator(delegate.getConfigurator());
+        }
+
+        @Override
+        public Class<?> getEndpointClass() {
+            return delegate.getEndpointClass();
+        }
+
+        @Override
+        public String getPath() {
+            return delegate.getPath();
+        }
+
+        @Override
+        public List<String> getSubprotocols() {
+            return delegate.getSubprotocols();
+        }
+
+        @Override
+        public List<Extension> getExtensions() {
+            return List.of();
+        }
+
+        @Override
+        public Configurator getConfigurator() {
+            return configurator;
+        }
+
+        @Override
+        public List<Class<? extends Encoder>> getEncoders() {
+            return delegate.getEncoders();
+        }
+
+        @Override
+        public List<Class<? extends Decoder>> getDecoders() {
+            return delegate.getDecoders();
+        }
+
+        @Override
+        public Map<String, Object> getUserProperties() {
+            return delegate.getUserProperties();
+        }
+    }
+
+    private static final class NoExtensionsConfigurator extends ServerEndpointConfig.Configurator {
+        private final ServerEndpointConfig.Configurator delegate;
+
+        private NoExtensionsConfigurator(ServerEndpointConfig.Configurator delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public List<Extension> getNegotiatedExtensions(List<Extension> installed, List<Extension> requested) {
+            return List.of();
+        }
+
+        @Override
+        public String getNegotiatedSubprotocol(List<String> supported, List<String> requested) {
+            return delegate.getNegotiatedSubprotocol(supported, requested);
+        }
+
+        @Override
+        public boolean checkOrigin(String originHeaderValue) {
+            return delegate.checkOrigin(originHeaderValue);
+        }
+
+        @Override
+        public void modifyHandshake(ServerEndpointConfig sec, HandshakeRequest request, HandshakeResponse response) {
+            delegate.modifyHandshake(sec, request, response);
+        }
+
+        @Override
+        public <T> T getEndpointInstance(Class<T> endpointClass) throws InstantiationException {
+            return delegate.getEndpointInstance(endpointClass);
+        }
+    }
+}
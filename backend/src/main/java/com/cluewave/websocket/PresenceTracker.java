@@ -0,0 +1,197 @@
+// ---------------------------------------------------------------------
+// PRESENCE TRACKER
+// Follows which player each STOMP session plays for and frees the seats of players
+// that do not come back. A session is bound to a player by the /app join command or by
+// a SUBSCRIBE to /topic/room/{code} with a player-id header, the latter only when the
+// session's account is the one that joined as that player. When the last session of a
+// player disconnects (closed socket or missed broker heartbeats) the player is marked
+// away and a release is armed in a hashed timing wheel; a reconnect within the grace
+// period cancels it, otherwise the player is removed and the seat returned to the room.
+// One scheduled sweep serves all timeouts, so there is no task per connection. Presence
+// changes go through RoomRouter, so players of rooms owned by another node are tracked too.
+// ---------------------------------------------------------------------
+
+package com.cluewave.websocket;
+
+import com.cluewave.auth.security.UserPrincipal;
+import com.cluewave.cluster.RoomRouter;
+import com.cluewave.util.TimingWheel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class PresenceTracker implements MeterBinder {
+
+    static final String PLAYER_HEADER = "player-id";
+    private static final int WHEEL_SIZE = 512;
+
+    private final RoomRouter rooms;
+    private final long graceMs;
+    private final TimingWheel<Seat> wheel;
+    private final Map<String, Seat> sessions = new ConcurrentHashMap<>();
+    private final Map<Seat, Presence> seats = new ConcurrentHashMap<>();
+    private final AtomicInteger away = new AtomicInteger();
+    private final LongAdder released = new LongAdder();
+
+    public PresenceTracker(RoomRouter rooms,
+                           @Value("${rooms.presence.grace-ms:30000}") long graceMs,
+                           @Value("${rooms.presence.tick-ms:1000}") long tickMs) {
+        this.rooms = rooms;
+        this.graceMs = graceMs;
+        this.wheel = new TimingWheel<>(tickMs, WHEEL_SIZE, System.currentTimeMillis());
+    }
+
+    record Seat(String code, String playerId) {}
+
+    // Only changed inside compute calls of the seats map; volatile for isAway.
+    private static final class Presence {
+        private volatile int sessions;
+        private volatile TimingWheel.Timeout<Seat> release;
+    }
+
+    public void bind(String sessionId, String code, String playerId) {
+        bind(sessionId, code, playerId, System.currentTimeMillis());
+    }
+
+    void bind(String sessionId, String code, String playerId, long now) {
+        Seat seat = new Seat(code, playerId);
+        Seat previous = sessions.put(sessionId, seat);
+        if (seat.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            detach(previous, now);
+        }
+        seats.compute(seat, (key, presence) -> {
+            if (presence == null) {
+                presence = new Presence();
+            }
+            if (presence.release != null) {
+                presence.release.cancel();
+                presence.release = null;
+                away.decrementAndGet();
+            }
+            presence.sessions++;
+            return presence;
+        });
+        updatePresence(seat);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String code = RoomSubscriptionRegistry.roomCode(accessor.getDestination());
+        String playerId = accessor.getFirstNativeHeader(PLAYER_HEADER);
+        String account = account(accessor.getUser());
+        if (code != null && account != null && rooms.ownsPlayer(code, playerId, account)) {
+            bind(accessor.getSessionId(), code, playerId);
+        }
+    }
+
+    // The principal was bound once at CONNECT by JwtStompInterceptor.
+    private static String account(Principal principal) {
+        return principal instanceof Authentication auth && auth.getPrincipal() instanceof UserPrincipal user
+                ? user.getUser().getEmail() : null;
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        disconnected(event.getSessionId(), System.currentTimeMillis());
+    }
+
+    void disconnected(String sessionId, long now) {
+        Seat seat = sessions.remove(sessionId);
+        if (seat != null) {
+            detach(seat, now);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rooms.presence.tick-ms:1000}")
+    public void sweep() {
+        sweep(System.currentTimeMillis());
+    }
+
+    int sweep(long now) {
+        int[] removed = new int[1];
+        wheel.advance(now, seat -> {
+            boolean[] expired = new boolean[1];
+            seats.computeIfPresent(seat, (key, presence) -> {
+                if (presence.sessions > 0 || presence.release == null
+                        || presence.release.getDeadlineMs() > now) {
+                    return presence;
+                }
+                away.decrementAndGet();
+                expired[0] = true;
+                return null;
+            });
+            if (expired[0] && rooms.removePlayer(seat.code(), seat.playerId())) {
+                released.increment();
+                removed[0]++;
+            }
+        });
+        return removed[0];
+    }
+
+    public int boundSessions() {
+        return sessions.size();
+    }
+
+    public int awayPlayers() {
+        return away.get();
+    }
+
+    public long seatsReleased() {
+        return released.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("rooms.presence.sessions", this, PresenceTracker::boundSessions)
+                .description("STOMP sessions bound to a player in a room")
+                .register(registry);
+        Gauge.builder("rooms.presence.away", this, PresenceTracker::awayPlayers)
+                .description("Players without a connected session, waiting out the grace period")
+                .register(registry);
+        FunctionCounter.builder("rooms.presence.released", this, PresenceTracker::seatsReleased)
+                .description("Players removed after the grace period, freeing their seat")
+                .register(registry);
+    }
+
+    private void detach(Seat seat, long now) {
+        seats.computeIfPresent(seat, (key, presence) -> {
+            if (--presence.sessions == 0) {
+                presence.release = wheel.schedule(seat, now + graceMs);
+                away.incrementAndGet();
+            }
+            return presence;
+        });
+        updatePresence(seat);
+    }
+
+    // The flag is read on the room's mailbox, so when a disconnect and a reconnect race
+    // the update that runs last still applies the current presence.
+    private void updatePresence(Seat seat) {
+        rooms.setPlayerAway(seat.code(), seat.playerId(), () -> isAway(seat));
+    }
+
+    private boolean isAway(Seat seat) {
+        Presence presence = seats.get(seat);
+        return presence == null || presence.release != null;
+    }
+}
@@ -0,0 +1,259 @@
+// ---------------------------------------------------------------------
+// ROOM SUBSCRIPTION REGISTRY
+// Subscription registry for the simple broker tuned for many /topic/room/{code} topics.
+// Exact room destinations live in maps sharded by room code, each room holding an
+// immutable subscriber snapshot swapped by CAS, so lookups are one hash probe and
+// dispatch is O(subscribers of that room). Other destinations and patterns fall back to
+// Spring's DefaultSubscriptionRegistry. Room dispatch also asks the fallback only while
+// some pattern subscription that could match a room destination (e.g. /topic/**) is live;
+// those are counted per session and the count drops as they are unsubscribed.
+// ---------------------------------------------------------------------
+
+package com.cluewave.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry;
+import org.springframework.messaging.simp.broker.SubscriptionRegistry;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class RoomSubscriptionRegistry implements SubscriptionRegistry {
+
+    public static final String ROOM_PREFIX = "/topic/room/";
+    private static final int SHARDS = 64;
+
+    private static final MultiValueMap<String, String> NONE =
+            CollectionUtils.unmodifiableMultiValueMap(new LinkedMultiValueMap<>());
+    // Snapshot of a room that was emptied and unlinked; writers must retry on a new entry.
+    private static final MultiValueMap<String, String> DEAD =
+            CollectionUtils.unmodifiableMultiValueMap(new LinkedMultiValueMap<>());
+
+    @SuppressWarnings("unchecked")
+    private final Map<String, RoomEntry>[] shards = new Map[SHARDS];
+    // sessionId -> (subscriptionId -> room code), used by UNSUBSCRIBE and disconnect
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    private final DefaultSubscriptionRegistry fallback = new DefaultSubscriptionRegistry();
+    // sessionId -> ids of its pattern subscriptions that may match a room destination
+    private final Map<String, Set<String>> roomPatterns = new ConcurrentHashMap<>();
+    private final AtomicInteger roomPatternCount = new AtomicInteger();
+
+    public RoomSubscriptionRegistry() {
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    @Override
+    public void registerSubscription(Message<?> message) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+        String code = roomCode(destination);
+        if (code == null || sessionId == null || subscriptionId == null) {
+            if (sessionId != null && subscriptionId != null) {
+                if (mayMatchRooms(destination)) {
+                    addRoomPattern(sessionId, subscriptionId);
+                } else {
+                    removeRoomPattern(sessionId, subscriptionId);
+                }
+            }
+            fallback.registerSubscription(message);
+            return;
+        }
+        removeRoomPattern(sessionId, subscriptionId);
+        String previous = sessions.computeIfAbsent(sessionId, key -> new ConcurrentHashMap<>())
+                .put(subscriptionId, code);
+        if (previous != null && !previous.equals(code)) {
+            remove(previous, sessionId, subscriptionId);
+        }
+        add(code, sessionId, subscriptionId);
+    }
+
+    @Override
+    public void unregisterSubscription(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+        Map<String, String> subscriptions = sessionId == null ? null : sessions.get(sessionId);
+        String code = subscriptions == null || subscriptionId == null ? null : subscriptions.remove(subscriptionId);
+        if (code != null) {
+            remove(code, sessionId, subscriptionId);
+        } else {
+            if (sessionId != null && subscriptionId != null) {
+                removeRoomPattern(sessionId, subscriptionId);
+            }
+            fallback.unregisterSubscription(message);
+        }
+    }
+
+    @Override
+    public void unregisterAllSubscriptions(String sessionId) {
+        Map<String, String> subscriptions = sessions.remove(sessionId);
+        if (subscriptions != null) {
+            subscriptions.forEach((subscriptionId, code) -> remove(code, sessionId, subscriptionId));
+        }
+        Set<String> patterns = roomPatterns.remove(sessionId);
+        if (patterns != null) {
+            roomPatternCount.addAndGet(-patterns.size());
+        }
+        fallback.unregisterAllSubscriptions(sessionId);
+    }
+
+    @Override
+    public MultiValueMap<String, String> findSubscriptions(Message<?> message) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        String code = roomCode(destination);
+        if (code == null) {
+            return fallback.findSubscriptions(message);
+        }
+        RoomEntry entry = shard(code).get(code);
+        MultiValueMap<String, String> exact = entry == null ? NONE : entry.subscribers.get();
+        if (exact == DEAD) {
+            exact = NONE;
+        }
+        if (roomPatternCount.get() == 0) {
+            return exact;
+        }
+        MultiValueMap<String, String> patterns = fallback.findSubscriptions(message);
+        if (patterns.isEmpty()) {
+            return exact;
+        }
+        MultiValueMap<String, String> merged = new LinkedMultiValueMap<>(exact);
+        patterns.forEach(merged::addAll);
+        return merged;
+    }
+
+    // Live pattern subscriptions that room dispatch must also check.
+    public int roomPatternCount() {
+        return roomPatternCount.get();
+    }
+
+    public int roomCount() {
+        int count = 0;
+        for (Map<String, RoomEntry> shard : shards) {
+            count += shard.size();
+        }
+        return count;
+    }
+
+    private void add(String code, String sessionId, String subscriptionId) {
+        Map<String, RoomEntry> shard = shard(code);
+        while (true) {
+            RoomEntry entry = shard.computeIfAbsent(code, key -> new RoomEntry());
+            MultiValueMap<String, String> current = entry.subscribers.get();
+            if (current == DEAD) {
+                shard.remove(code, entry);
+                continue;
+            }
+            List<String> ids = current.get(sessionId);
+            if (ids != null && ids.contains(subscriptionId)) {
+                return;
+            }
+            List<String> added = new ArrayList<>(ids == null ? List.of() : ids);
+            added.add(subscriptionId);
+            MultiValueMap<String, String> next = copy(current);
+            next.put(sessionId, List.copyOf(added));
+            if (entry.subscribers.compareAndSet(current, CollectionUtils.unmodifiableMultiValueMap(next))) {
+                return;
+            }
+        }
+    }
+
+    private void remove(String code, String sessionId, String subscriptionId) {
+        Map<String, RoomEntry> shard = shard(code);
+        RoomEntry entry = shard.get(code);
+        if (entry == null) {
+            return;
+        }
+        while (true) {
+            MultiValueMap<String, String> current = entry.subscribers.get();
+            List<String> ids = current.get(sessionId);
+            if (current == DEAD || ids == null || !ids.contains(subscriptionId)) {
+                return;
+            }
+            MultiValueMap<String, String> next = copy(current);
+            List<String> remaining = new ArrayList<>(ids);
+            remaining.remove(subscriptionId);
+            if (remaining.isEmpty()) {
+                next.remove(sessionId);
+            } else {
+                next.put(sessionId, List.copyOf(remaining));
+            }
+            if (next.isEmpty()) {
+                if (entry.subscribers.compareAndSet(current, DEAD)) {
+                    shard.remove(code, entry);
+                    return;
+                }
+            } else if (entry.subscribers.compareAndSet(current, CollectionUtils.unmodifiableMultiValueMap(next))) {
+                return;
+            }
+        }
+    }
+
+    private void addRoomPattern(String sessionId, String subscriptionId) {
+        if (roomPatterns.computeIfAbsent(sessionId, key -> ConcurrentHashMap.newKeySet()).add(subscriptionId)) {
+            roomPatternCount.incrementAndGet();
+        }
+    }
+
+    private void removeRoomPattern(String sessionId, String subscriptionId) {
+        Set<String> patterns = roomPatterns.get(sessionId);
+        if (patterns != null && patterns.remove(subscriptionId)) {
+            roomPatternCount.decrementAndGet();
+        }
+    }
+
+    private static MultiValueMap<String, String> copy(MultiValueMap<String, String> source) {
+        MultiValueMap<String, String> copy = new LinkedMultiValueMap<>(source.size() + 1);
+        copy.putAll(source);
+        return copy;
+    }
+
+    private Map<String, RoomEntry> shard(String code) {
+        return shards[code.hashCode() & (SHARDS - 1)];
+    }
+
+    // Returns the code of an exact room destination, or null for anything else.
+    static String roomCode(String destination) {
+        if (destination == null || !destination.startsWith(ROOM_PREFIX)
+                || destination.length() == ROOM_PREFIX.length()) {
+            return null;
+        }
+        String code = destination.substring(ROOM_PREFIX.length());
+        return code.indexOf('/') >= 0 || isPattern(code) ? null : code;
+    }
+
+    // A pattern may match a room destination unless its literal part before the first
+    // wildcard already leaves /topic/room/, e.g. /topic/** may but /topic/chat/* may not.
+    static boolean mayMatchRooms(String destination) {
+        if (destination == null || !isPattern(destination)) {
+            return false;
+        }
+        int wildcard = destination.length();
+        for (char c : new char[] {'*', '?', '{'}) {
+            int index = destination.indexOf(c);
+            if (index >= 0) {
+                wildcard = Math.min(wildcard, index);
+            }
+        }
+        String literal = destination.substring(0, wildcard);
+        return literal.startsWith(ROOM_PREFIX) || ROOM_PREFIX.startsWith(literal);
+    }
+
+    private static boolean isPattern(String destination) {
+        return destination.indexOf('*') >= 0 || destination.indexOf('?') >= 0 || destination.indexOf('{') >= 0;
+    }
+
+    private static final class RoomEntry {
+        private final AtomicReference<MultiValueMap<String, String>> subscribers = new AtomicReference<>(NONE);
+    }
+}
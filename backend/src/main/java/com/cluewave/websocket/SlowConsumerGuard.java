@@ -0,0 +1,286 @@
+// ---------------------------------------------------------------------
+// SLOW CONSUMER GUARD
+// Per-session outbound queue in front of the WebSocket write, one frame in flight at a time.
+// Pending room frames are coalesced per subscription: a newer patch is merged into the
+// queued frame, so the client still receives a self-contained frame that ends at the
+// latest version, and a newer full state replaces it. Only frames that cannot be merged,
+// e.g. relayed as plain bytes by a networked relay, are replaced, and clients then
+// resync from GET /api/rooms/{code}. A session whose backlog exceeds the bound or whose
+// current write stalls past the timeout is closed.
+// Publishes drop, eviction and backlog metrics.
+// ---------------------------------------------------------------------
+
+package com.cluewave.websocket;
+
+import com.cluewave.service.GameBroadcastService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class SlowConsumerGuard implements ExecutorChannelInterceptor, WebSocketHandlerDecoratorFactory, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowConsumerGuard.class);
+
+    private final int maxPending;
+    private final long stallTimeoutNanos;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Outbox> outboxes = new ConcurrentHashMap<>();
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public SlowConsumerGuard(int maxPending, long stallTimeoutMs) {
+        this(maxPending, stallTimeoutMs, new ObjectMapper());
+    }
+
+    @Autowired
+    public SlowConsumerGuard(@Value("${websocket.outbound.max-pending:256}") int maxPending,
+                             @Value("${websocket.outbound.stall-timeout-ms:10000}") long stallTimeoutMs,
+                             ObjectMapper objectMapper) {
+        this.maxPending = maxPending;
+        this.stallTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(stallTimeoutMs);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                register(session);
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                unregister(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        Outbox box = outbox(message);
+        if (box == null) {
+            return message;
+        }
+        synchronized (box) {
+            if (box.inFlight == message) {
+                // released by afterMessageHandled
+                return message;
+            }
+            if (box.closed) {
+                return null;
+            }
+            if (box.inFlight == null) {
+                box.start(message);
+                return message;
+            }
+            if (System.nanoTime() - box.inFlightSince > stallTimeoutNanos) {
+                evict(box, "stalled");
+                return null;
+            }
+            if (box.offer(message)) {
+                dropped.increment();
+            } else {
+                pending.incrementAndGet();
+                if (box.queue.size() > maxPending) {
+                    evict(box, "backlog");
+                }
+            }
+            return null;
+        }
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler,
+                                    Exception ex) {
+        Outbox box = outbox(message);
+        if (box == null) {
+            return;
+        }
+        Message<?> next;
+        synchronized (box) {
+            if (box.inFlight == null) {
+                return;
+            }
+            next = box.poll();
+            box.start(next);
+        }
+        if (next != null) {
+            pending.decrementAndGet();
+            channel.send(next);
+        }
+    }
+
+    public long framesDropped() {
+        return dropped.sum();
+    }
+
+    public long sessionsEvicted() {
+        return evicted.sum();
+    }
+
+    public int framesPending() {
+        return pending.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("websocket.outbound.dropped", this, SlowConsumerGuard::framesDropped)
+                .description("Queued room frames merged into or replaced by a newer frame before being written")
+                .register(registry);
+        FunctionCounter.builder("websocket.outbound.evictions", this, SlowConsumerGuard::sessionsEvicted)
+                .description("Sessions closed because their outbound queue stalled or overflowed")
+                .register(registry);
+        Gauge.builder("websocket.outbound.pending", this, SlowConsumerGuard::framesPending)
+                .description("Frames waiting in per-session outbound queues")
+                .register(registry);
+    }
+
+    void register(WebSocketSession session) {
+        outboxes.put(session.getId(), new Outbox(session, objectMapper));
+    }
+
+    void unregister(String sessionId) {
+        Outbox box = outboxes.remove(sessionId);
+        if (box != null) {
+            synchronized (box) {
+                box.closed = true;
+                pending.addAndGet(-box.queue.size());
+                box.clear();
+            }
+        }
+    }
+
+    private Outbox outbox(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        return sessionId == null ? null : outboxes.get(sessionId);
+    }
+
+    // Called with the outbox lock held; the close itself runs off the sending thread.
+    private void evict(Outbox box, String reason) {
+        box.closed = true;
+        pending.addAndGet(-box.queue.size());
+        box.clear();
+        evicted.increment();
+        WebSocketSession session = box.session;
+        log.warn("Closing slow WebSocket session {} ({})", session.getId(), reason);
+        Thread.ofVirtual().name("ws-evict-" + session.getId()).start(() -> {
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException ex) {
+                log.debug("Failed to close session {}", session.getId(), ex);
+            }
+        });
+    }
+
+    private static final class Outbox {
+        private final WebSocketSession session;
+        private final ObjectMapper objectMapper;
+        private final ArrayDeque<Slot> queue = new ArrayDeque<>();
+        // pending room frames by subscription id, for in-place replacement
+        private final Map<String, Slot> rooms = new HashMap<>();
+        private Message<?> inFlight;
+        private long inFlightSince;
+        private boolean closed;
+
+        private Outbox(WebSocketSession session, ObjectMapper objectMapper) {
+            this.session = session;
+            this.objectMapper = objectMapper;
+        }
+
+        private void start(Message<?> message) {
+            inFlight = message;
+            inFlightSince = System.nanoTime();
+        }
+
+        // Returns true when the message was merged into, or replaced, an older queued frame
+        // of the same room.
+        private boolean offer(Message<?> message) {
+            String key = roomKey(message);
+            if (key != null) {
+                Slot queued = rooms.get(key);
+                if (queued != null) {
+                    Message<?> merged = GameBroadcastService.coalesce(queued.message, message, objectMapper);
+                    queued.message = merged != null ? merged : message;
+                    return true;
+                }
+            }
+            Slot slot = new Slot(message, key);
+            queue.add(slot);
+            if (key != null) {
+                rooms.put(key, slot);
+            }
+            return false;
+        }
+
+        private Message<?> poll() {
+            Slot slot = queue.poll();
+            if (slot == null) {
+                return null;
+            }
+            if (slot.roomKey != null) {
+                rooms.remove(slot.roomKey);
+            }
+            return slot.message;
+        }
+
+        private void clear() {
+            queue.clear();
+            rooms.clear();
+            inFlight = null;
+        }
+
+        private static String roomKey(Message<?> message) {
+            if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+                return null;
+            }
+            String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+            if (destination == null || !destination.startsWith(RoomSubscriptionRegistry.ROOM_PREFIX)) {
+                return null;
+            }
+            return SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+        }
+    }
+
+    private static final class Slot {
+        private Message<?> message;
+        private final String roomKey;
+
+        private Slot(Message<?> message, String roomKey) {
+            this.message = message;
+            this.roomKey = roomKey;
+        }
+    }
+}
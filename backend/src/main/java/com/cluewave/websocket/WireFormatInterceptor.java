@@ -0,0 +1,76 @@
+// ---------------------------------------------------------------------
+// WIRE FORMAT INTERCEPTOR
+// Lets each STOMP session choose how room frames are encoded. A client sends the
+// "wire-format: binary" header on CONNECT to receive BinaryRoomCodec frames as
+// application/octet-stream; everyone else keeps JSON. Each binary frame opens with
+// BinaryRoomCodec.FORMAT_VERSION so clients can tell layouts apart. The binary body is
+// encoded at most once per frame and shared by every binary session that receives it.
+// ---------------------------------------------------------------------
+
+package com.cluewave.websocket;
+
+import com.cluewave.service.GameBroadcastService;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+@Component
+public class WireFormatInterceptor implements ChannelInterceptor {
+
+    public static final String FORMAT_HEADER = "wire-format";
+    public static final String BINARY = "binary";
+
+    private final Set<String> binarySessions = ConcurrentHashMap.newKeySet();
+
+    // Registered on both the client inbound and outbound channels.
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (type == null || sessionId == null) {
+            return message;
+        }
+        switch (type) {
+            case CONNECT -> {
+                StompHeaderAccessor stomp = StompHeaderAccessor.wrap(message);
+                if (BINARY.equalsIgnoreCase(stomp.getFirstNativeHeader(FORMAT_HEADER))) {
+                    binarySessions.add(sessionId);
+                }
+            }
+            case DISCONNECT -> binarySessions.remove(sessionId);
+            case MESSAGE -> {
+                if (binarySessions.contains(sessionId)) {
+                    return toBinary(message);
+                }
+            }
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    public boolean isBinary(String sessionId) {
+        return binarySessions.contains(sessionId);
+    }
+
+    private static Message<?> toBinary(Message<?> message) {
+        Object binary = message.getHeaders().get(GameBroadcastService.BINARY_PAYLOAD_HEADER);
+        if (!(binary instanceof Supplier<?> supplier)) {
+            return message;
+        }
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(message);
+        headers.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        headers.removeHeader(GameBroadcastService.BINARY_PAYLOAD_HEADER);
+        return MessageBuilder.createMessage((byte[]) supplier.get(), headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,22 @@
+-- Match history written by JdbcMatchHistoryStore. Apply once per database;
+-- spring.jpa.hibernate.ddl-auto is none, so the application does not create it.
+
+CREATE TABLE IF NOT EXISTS match_history (
+    id            BIGSERIAL    PRIMARY KEY,
+    room_code     VARCHAR(16)  NOT NULL,
+    host_email    VARCHAR(255) NOT NULL,
+    host_name     VARCHAR(255),
+    started_at    TIMESTAMPTZ  NOT NULL,
+    finished_at   TIMESTAMPTZ  NOT NULL,
+    player_names  TEXT[]       NOT NULL,
+    player_scores INTEGER[]    NOT NULL,
+    UNIQUE (room_code, started_at)
+);
+
+-- One row per account that took part in a game, host included. The primary key serves
+-- an account's games newest first, read a page at a time by game id.
+CREATE TABLE IF NOT EXISTS match_participants (
+    account  VARCHAR(255) NOT NULL,
+    match_id BIGINT       NOT NULL REFERENCES match_history (id) ON DELETE CASCADE,
+    PRIMARY KEY (account, match_id)
+);
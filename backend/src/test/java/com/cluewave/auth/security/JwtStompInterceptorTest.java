@@ -0,0 +1,78 @@
+package com.cluewave.auth.security;
+
+import com.cluewave.auth.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.security.Principal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link JwtStompInterceptor}.  The token is checked and the
+ * user loaded on CONNECT only; later frames rely on the bound principal.
+ */
+class JwtStompInterceptorTest {
+
+    private final JwtUtils jwtUtils = mock(JwtUtils.class);
+    private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    private final JwtStompInterceptor interceptor = new JwtStompInterceptor(jwtUtils, userDetailsService);
+    private final MessageChannel channel = mock(MessageChannel.class);
+
+    @Test
+    void connectBindsThePrincipalOnce() {
+        User user = new User();
+        user.setEmail("alice@example.com");
+        when(jwtUtils.extractUsername("good")).thenReturn("alice@example.com");
+        when(userDetailsService.loadUserByUsername("alice@example.com")).thenReturn(new UserPrincipal(user));
+
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setNativeHeader("Authorization", "Bearer good");
+        connect.setLeaveMutable(true);
+        Message<?> result = interceptor.preSend(
+                MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()), channel);
+
+        Principal principal = SimpMessageHeaderAccessor.getUser(result.getHeaders());
+        UsernamePasswordAuthenticationToken auth = assertInstanceOf(UsernamePasswordAuthenticationToken.class, principal);
+        assertSame(user, ((UserPrincipal) auth.getPrincipal()).getUser());
+
+        StompHeaderAccessor send = StompHeaderAccessor.create(StompCommand.SEND);
+        send.setUser(principal);
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], send.getMessageHeaders()), channel);
+
+        verify(jwtUtils, times(1)).extractUsername(anyString());
+        verify(userDetailsService, times(1)).loadUserByUsername(anyString());
+        verify(jwtUtils, never()).validateToken(anyString());
+    }
+
+    @Test
+    void connectWithoutValidTokenIsRejected() {
+        StompHeaderAccessor missing = StompHeaderAccessor.create(StompCommand.CONNECT);
+        assertThrows(BadCredentialsException.class, () -> interceptor.preSend(
+                MessageBuilder.createMessage(new byte[0], missing.getMessageHeaders()), channel));
+
+        StompHeaderAccessor invalid = StompHeaderAccessor.create(StompCommand.CONNECT);
+        invalid.setNativeHeader("Authorization", "Bearer forged");
+        assertThrows(BadCredentialsException.class, () -> interceptor.preSend(
+                MessageBuilder.createMessage(new byte[0], invalid.getMessageHeaders()), channel));
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void framesFromUnauthenticatedSessionsAreRejected() {
+        StompHeaderAccessor subscribe = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        subscribe.setDestination("/topic/room/ABCD");
+
+        assertThrows(BadCredentialsException.class, () -> interceptor.preSend(
+                MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()), channel));
+    }
+}
@@ -0,0 +1,91 @@
+package com.cluewave.cluster;
+
+import com.cluewave.dto.RoomDTO;
+import com.cluewave.service.GameBroadcastService;
+import com.cluewave.service.RoomCodeAllocator;
+import com.cluewave.service.RoomService;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a three-node cluster in one JVM over the {@link EmbeddedRoomRelay}
+ * and measures room commands served locally versus forwarded to the owner
+ * node, and the rate at which room frames reach the other nodes' brokers.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+class ClusterRelayBenchmark {
+
+    private static final String NODES = "a,b,c";
+    private static final int COMMANDS = 200_000;
+    private static final int FRAMES = 50_000;
+
+    private long sink;
+
+    @Test
+    void commandsAndFramesAcrossNodes() throws Exception {
+        EmbeddedRoomRelay relay = new EmbeddedRoomRelay();
+        List<Node> nodes = new ArrayList<>();
+        for (String id : NODES.split(",")) {
+            nodes.add(new Node(id, relay));
+        }
+        Node owner = nodes.get(0);
+        RoomDTO room = owner.router.createRoom("Host", "host@example.com", 8);
+        for (int i = 0; i < 7; i++) {
+            owner.router.joinRoom(room.getCode(), "Player" + i, "player" + i + "@example.com");
+        }
+
+        for (int pass = 0; pass < 2; pass++) {
+            double local = commands(owner.router, room.getCode());
+            double forwarded = commands(nodes.get(1).router, room.getCode());
+            double frames = frames(owner, nodes.subList(1, nodes.size()), room.getCode());
+            if (pass == 1) {
+                System.out.printf("state command: local %.0f ns/op, forwarded %.0f ns/op (sink %d)%n",
+                        local, forwarded, sink);
+                System.out.printf("frame fan-out to %d nodes: %.0f frames/s per node%n",
+                        nodes.size() - 1, frames);
+            }
+        }
+        relay.shutdown();
+    }
+
+    private double commands(RoomRouter router, String code) {
+        long start = System.nanoTime();
+        for (int i = 0; i < COMMANDS; i++) {
+            sink += router.getRoomState(code).getVersion();
+        }
+        return (System.nanoTime() - start) / (double) COMMANDS;
+    }
+
+    private double frames(Node owner, List<Node> others, String code) throws InterruptedException {
+        long[] before = new long[others.size()];
+        for (int i = 0; i < others.size(); i++) {
+            before[i] = others.get(i).router.framesRelayedIn();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++) {
+            owner.broadcast.broadcastRoomClosed(code, "closed");
+        }
+        for (int i = 0; i < others.size(); i++) {
+            while (others.get(i).router.framesRelayedIn() - before[i] < FRAMES) {
+                Thread.sleep(1);
+            }
+        }
+        return FRAMES / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static final class Node {
+        private final GameBroadcastService broadcast =
+                new GameBroadcastService(new SimpMessagingTemplate(new ExecutorSubscribableChannel()));
+        private final RoomRouter router;
+
+        private Node(String id, RoomRelay relay) {
+            RoomAffinity affinity = new RoomAffinity(id, NODES);
+            RoomService service = new RoomService(new RoomCodeAllocator(0.75, affinity), Runnable::run);
+            router = new RoomRouter(service, affinity, relay, broadcast, 5_000);
+        }
+    }
+}
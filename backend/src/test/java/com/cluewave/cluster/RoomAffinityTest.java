@@ -0,0 +1,60 @@
+package com.cluewave.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RoomAffinity}.  They cover single-node defaults,
+ * an even spread of room codes and stability when a node is added.
+ */
+class RoomAffinityTest {
+
+    @Test
+    void singleNodeOwnsEveryRoom() {
+        RoomAffinity affinity = RoomAffinity.single();
+
+        assertFalse(affinity.isClustered());
+        assertTrue(affinity.isLocal("ABCD"));
+        assertEquals(1.0, affinity.share());
+    }
+
+    @Test
+    void codesAreSpreadEvenlyAcrossNodes() {
+        RoomAffinity affinity = new RoomAffinity("a", "a, b, c");
+        Map<String, Integer> owned = new HashMap<>();
+        for (int i = 0; i < 30_000; i++) {
+            owned.merge(affinity.owner(code(i)), 1, Integer::sum);
+        }
+
+        assertEquals(3, owned.size());
+        owned.forEach((node, count) ->
+                assertTrue(count > 8_000 && count < 12_000, node + " owns " + count + " of 30000 codes"));
+        assertEquals(affinity.owner("ABCD"), new RoomAffinity("b", "a,b,c").owner("ABCD"),
+                "Every node must agree on the owner");
+    }
+
+    @Test
+    void addingANodeOnlyMovesRoomsToIt() {
+        RoomAffinity three = new RoomAffinity("a", "a,b,c");
+        RoomAffinity four = new RoomAffinity("a", "a,b,c,d");
+        for (int i = 0; i < 10_000; i++) {
+            String before = three.owner(code(i));
+            String after = four.owner(code(i));
+            assertTrue(after.equals(before) || after.equals("d"), code(i) + " moved from " + before + " to " + after);
+        }
+    }
+
+    @Test
+    void nodeIdMustBeListed() {
+        assertThrows(IllegalArgumentException.class, () -> new RoomAffinity("x", "a,b"));
+        assertThrows(IllegalArgumentException.class, () -> new RoomAffinity("", "a,b"));
+    }
+
+    private static String code(int i) {
+        return String.format("%04X", i);
+    }
+}
@@ -0,0 +1,157 @@
+package com.cluewave.cluster;
+
+import com.cluewave.dto.RoomDTO;
+import com.cluewave.service.GameBroadcastService;
+import com.cluewave.service.RoomCodeAllocator;
+import com.cluewave.service.RoomService;
+import com.cluewave.websocket.BinaryRoomCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link RoomRouter}.  Two nodes run in one JVM, connected
+ * by an {@link EmbeddedRoomRelay}, each with its own room service and a
+ * mocked messaging template standing in for its local broker.
+ */
+class RoomRouterTest {
+
+    private EmbeddedRoomRelay relay;
+    private Node a;
+    private Node b;
+
+    @BeforeEach
+    void setUp() {
+        relay = new EmbeddedRoomRelay();
+        a = new Node("a");
+        b = new Node("b");
+    }
+
+    @AfterEach
+    void tearDown() {
+        relay.shutdown();
+    }
+
+    @Test
+    void roomsAreCreatedInTheLocalShare() {
+        for (int i = 0; i < 20; i++) {
+            assertEquals("a", a.affinity.owner(a.router.createRoom("Host", "host" + i + "@example.com").getCode()));
+            assertEquals("b", b.affinity.owner(b.router.createRoom("Host", "guest" + i + "@example.com").getCode()));
+        }
+    }
+
+    @Test
+    void commandsAreForwardedToTheOwner() {
+        String code = a.router.createRoom("Host", "host@example.com").getCode();
+
+        assertEquals("Guest", b.router.joinRoom(code, "Guest", "guest@example.com").getName());
+        b.router.startRound(code);
+
+        RoomDTO state = a.service.getRoomState(code);
+        assertEquals(2, state.getPlayers().size());
+        assertEquals("in_round", state.getState());
+        assertEquals(a.router.getRoomETag(code), b.router.getRoomETag(code));
+        assertEquals(3, b.router.commandsForwarded());
+        assertEquals(0, a.router.commandsForwarded(), "Local rooms never go through the relay");
+    }
+
+    @Test
+    void ownerExceptionsAreRethrown() {
+        String missing = codeOwnedBy(a.affinity, "a");
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> b.router.getRoomState(missing));
+        assertEquals("Room not found: " + missing, ex.getMessage());
+    }
+
+    @Test
+    void joinByEmailFindsRoomsOnOtherNodes() {
+        String code = a.router.createRoom("Host", "host@example.com").getCode();
+
+        RoomDTO joined = b.router.joinRoomByEmail("host@example.com", "Guest", "guest@example.com");
+
+        assertEquals(code, joined.getCode());
+        assertThrows(IllegalArgumentException.class,
+                () -> b.router.joinRoomByEmail("nobody@example.com", "Guest", "guest@example.com"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void framesReachSubscribersOnOtherNodes() {
+        RoomDTO room = a.router.createRoom("Host", "host@example.com");
+        String destination = "/topic/room/" + room.getCode();
+
+        a.broadcast.broadcastRoomUpdate(room.getCode(), room);
+
+        ArgumentCaptor<Message<?>> local = ArgumentCaptor.forClass(Message.class);
+        ArgumentCaptor<Message<?>> relayed = ArgumentCaptor.forClass(Message.class);
+        verify(a.template).send(eq(destination), local.capture());
+        verify(b.template, timeout(2_000)).send(eq(destination), relayed.capture());
+        assertArrayEquals((byte[]) local.getValue().getPayload(), (byte[]) relayed.getValue().getPayload());
+        Supplier<byte[]> binary = (Supplier<byte[]>) relayed.getValue().getHeaders()
+                .get(GameBroadcastService.BINARY_PAYLOAD_HEADER);
+        assertArrayEquals(BinaryRoomCodec.encode(room), binary.get());
+        assertEquals(1, a.router.framesRelayedOut());
+        assertEquals(1, b.router.framesRelayedIn());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void relayedFramesAreNotEncodedAsBinaryUntilASessionAsks() {
+        AtomicInteger encoded = new AtomicInteger();
+        Supplier<byte[]> binary = () -> {
+            encoded.incrementAndGet();
+            return new byte[0];
+        };
+
+        relay.publish("c", "/topic/room/ABCD", "{}".getBytes(), binary);
+
+        ArgumentCaptor<Message<?>> relayed = ArgumentCaptor.forClass(Message.class);
+        verify(b.template, timeout(2_000)).send(eq("/topic/room/ABCD"), relayed.capture());
+        verify(a.template, timeout(2_000)).send(eq("/topic/room/ABCD"), any(Message.class));
+        assertEquals(0, encoded.get(), "Nothing asked for the binary body");
+        ((Supplier<byte[]>) relayed.getValue().getHeaders().get(GameBroadcastService.BINARY_PAYLOAD_HEADER)).get();
+        assertEquals(1, encoded.get());
+    }
+
+    @Test
+    void disconnectedOwnerFailsTheCommand() {
+        String code = a.router.createRoom("Host", "host@example.com").getCode();
+        relay.unregister("a");
+
+        assertThrows(IllegalStateException.class, () -> b.router.getRoomState(code));
+    }
+
+    private static String codeOwnedBy(RoomAffinity affinity, String node) {
+        for (int i = 0; ; i++) {
+            String code = String.format("Z%03d", i);
+            if (affinity.owner(code).equals(node)) {
+                return code;
+            }
+        }
+    }
+
+    private final class Node {
+        private final RoomAffinity affinity;
+        private final RoomService service;
+        private final SimpMessagingTemplate template = mock(SimpMessagingTemplate.class);
+        private final GameBroadcastService broadcast = new GameBroadcastService(template);
+        private final RoomRouter router;
+
+        private Node(String id) {
+            affinity = new RoomAffinity(id, "a,b");
+            service = new RoomService(new RoomCodeAllocator(0.75, affinity), Runnable::run);
+            router = new RoomRouter(service, affinity, relay, broadcast, 1_000);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.cluewave.config;
+
+import com.cluewave.cluster.RoomAffinity;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ClusterConfig}.  The embedded relay is only the
+ * default for a single node; a node list must choose its relay.
+ */
+class ClusterConfigTest {
+
+    @Test
+    void singleNodeDefaultsToTheEmbeddedRelay() {
+        new ClusterConfig().roomRelay(RoomAffinity.single(), "").shutdown();
+    }
+
+    @Test
+    void nodeListWithoutARelayFailsAtStartup() {
+        RoomAffinity affinity = new RoomAffinity("a", "a,b");
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> new ClusterConfig().roomRelay(affinity, ""));
+        assertTrue(ex.getMessage().startsWith("cluster.relay must be set"));
+        new ClusterConfig().roomRelay(affinity, "embedded").shutdown();
+    }
+}
@@ -0,0 +1,95 @@
+package com.cluewave.config;
+
+import org.apache.commons.logging.LogFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.broker.OrderedMessageChannelDecorator;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures throughput and handling latency of an ordered STOMP channel in each
+ * execution mode while a connection spike of 1000 sessions sends messages
+ * whose handling blocks briefly, as a lookup or a slow socket write would.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+class WebSocketExecutorBenchmark {
+
+    private static final int SESSIONS = 1_000;
+    private static final int MESSAGES = 10;
+    private static final long BLOCK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void compareModes() throws Exception {
+        for (int pass = 0; pass < 2; pass++) {
+            run("pool", WebSocketExecutorConfig.create("pool", 0, 0, "bench-"), pass == 1);
+            run("pool, bounded", WebSocketExecutorConfig.create("pool", 0, 1_000, "bench-"), pass == 1);
+            run("virtual", WebSocketExecutorConfig.create("virtual", 0, 0, "bench-"), pass == 1);
+        }
+    }
+
+    private static void run(String name, ExecutorService executor, boolean print) throws Exception {
+        ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(executor);
+        OrderedMessageChannelDecorator.configureInterceptor(channel, true);
+        int total = SESSIONS * MESSAGES;
+        long[] latencies = new long[total];
+        AtomicInteger index = new AtomicInteger();
+        AtomicInteger outOfOrder = new AtomicInteger();
+        int[] lastSeen = new int[SESSIONS];
+        Arrays.fill(lastSeen, -1);
+        CountDownLatch done = new CountDownLatch(total);
+        channel.subscribe(message -> {
+            long[] payload = (long[]) message.getPayload();
+            int session = (int) payload[0];
+            if (payload[1] != lastSeen[session] + 1) {
+                outOfOrder.incrementAndGet();
+            }
+            lastSeen[session] = (int) payload[1];
+            LockSupport.parkNanos(BLOCK_NANOS);
+            latencies[index.getAndIncrement()] = System.nanoTime() - payload[2];
+            done.countDown();
+        });
+        List<MessageChannel> sessions = new ArrayList<>();
+        for (int s = 0; s < SESSIONS; s++) {
+            sessions.add(new OrderedMessageChannelDecorator(channel, LogFactory.getLog(WebSocketExecutorBenchmark.class)));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            for (int s = 0; s < SESSIONS; s++) {
+                sessions.get(s).send(message(new long[] {s, i, System.nanoTime()}));
+            }
+        }
+        if (!done.await(5, TimeUnit.MINUTES)) {
+            throw new IllegalStateException(name + " did not finish");
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+
+        Arrays.sort(latencies);
+        if (outOfOrder.get() > 0) {
+            throw new IllegalStateException(name + " delivered " + outOfOrder.get() + " messages out of order");
+        }
+        if (print) {
+            System.out.printf("%-14s %8.0f msg/s, latency p50 %6.1f ms, p99 %6.1f ms%n", name, total / seconds,
+                    latencies[total / 2] / 1e6, latencies[total * 99 / 100] / 1e6);
+        }
+    }
+
+    private static Message<long[]> message(long[] payload) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create();
+        headers.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,78 @@
+package com.cluewave.config;
+
+import org.apache.commons.logging.LogFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.broker.OrderedMessageChannelDecorator;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link WebSocketExecutorConfig}.  Messages of one session
+ * sent through an ordered channel on either executor must be handled in the
+ * order they were sent.
+ */
+class WebSocketExecutorConfigTest {
+
+    private static final int SESSIONS = 20;
+    private static final int MESSAGES = 200;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"pool", "virtual"})
+    void perSessionOrderIsPreserved(String mode) throws Exception {
+        ExecutorService executor = WebSocketExecutorConfig.create(mode, 4, 16, "test-");
+        ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(executor);
+        OrderedMessageChannelDecorator.configureInterceptor(channel, true);
+        Map<Integer, List<Integer>> received = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(SESSIONS * MESSAGES);
+        channel.subscribe(message -> {
+            int[] payload = (int[]) message.getPayload();
+            received.computeIfAbsent(payload[0], key -> new ArrayList<>()).add(payload[1]);
+            done.countDown();
+        });
+
+        List<MessageChannel> sessions = new ArrayList<>();
+        for (int s = 0; s < SESSIONS; s++) {
+            sessions.add(new OrderedMessageChannelDecorator(channel, LogFactory.getLog(getClass())));
+        }
+        for (int i = 0; i < MESSAGES; i++) {
+            for (int s = 0; s < SESSIONS; s++) {
+                sessions.get(s).send(message(s, i));
+            }
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (List<Integer> sequence : received.values()) {
+            for (int i = 0; i < MESSAGES; i++) {
+                assertEquals(i, sequence.get(i));
+            }
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void unknownModeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new WebSocketExecutorConfig("fibers", 0, 0));
+    }
+
+    private static Message<int[]> message(int session, int sequence) {
+        // the ordered decorator needs mutable headers to attach its callback
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create();
+        headers.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new int[] {session, sequence}, headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,61 @@
+package com.cluewave.controller;
+
+import com.cluewave.auth.model.User;
+import com.cluewave.auth.security.UserPrincipal;
+import com.cluewave.history.MatchHistoryStore;
+import com.cluewave.history.MatchRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for paging in {@link MatchHistoryController}.  The controller is
+ * called directly over an in-memory store.
+ */
+class MatchHistoryControllerTest {
+
+    @Test
+    void pagesThroughTheAccountsGamesNewestFirst() {
+        List<MatchRecord> games = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) {
+            games.add(new MatchRecord(id, "ROOM" + id, "host@example.com", "Host", id, id + 1, List.of(),
+                    List.of("host@example.com")));
+        }
+        games.add(new MatchRecord(5L, "ROOM5", "other@example.com", "Other", 5, 6, List.of(),
+                List.of("other@example.com", "host@example.com")));
+        games.add(new MatchRecord(6L, "ROOM6", "other@example.com", "Other", 6, 7, List.of(),
+                List.of("other@example.com")));
+        MatchHistoryStore store = new MatchHistoryStore() {
+            @Override
+            public void saveAll(List<MatchRecord> records) {
+            }
+
+            @Override
+            public List<MatchRecord> findByParticipant(String account, Long before, int limit) {
+                return games.stream()
+                        .filter(g -> g.participants().contains(account) && (before == null || g.id() < before))
+                        .sorted(Comparator.comparing(MatchRecord::id).reversed())
+                        .limit(limit)
+                        .toList();
+            }
+        };
+        MatchHistoryController controller = new MatchHistoryController(store);
+        User user = new User();
+        user.setEmail("host@example.com");
+        UserPrincipal principal = new UserPrincipal(user);
+
+        MatchHistoryController.HistoryPage first = controller.history(null, 2, principal);
+        assertEquals(List.of(5L, 4L), first.matches().stream().map(MatchRecord::id).toList());
+        MatchHistoryController.HistoryPage second = controller.history(first.next(), 2, principal);
+        assertEquals(List.of(3L, 2L), second.matches().stream().map(MatchRecord::id).toList());
+        MatchHistoryController.HistoryPage last = controller.history(second.next(), 2, principal);
+        assertEquals(List.of(1L), last.matches().stream().map(MatchRecord::id).toList());
+        assertNull(last.next());
+
+        assertEquals(5, controller.history(null, 1000, principal).matches().size(), "The limit is capped");
+    }
+}
@@ -0,0 +1,52 @@
+package com.cluewave.controller;
+
+import com.cluewave.cluster.RoomRouter;
+import com.cluewave.dto.RoomDTO;
+import com.cluewave.service.RoomCodeAllocator;
+import com.cluewave.service.RoomService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Compares the cost of polling an unchanged room with and without
+ * If-None-Match.  The unconditional poll includes Jackson serialization of
+ * the body, as the message converter would do.  Run with
+ * {@code mvn test -Pbenchmark}.
+ */
+class RoomControllerBenchmark {
+
+    private static final int POLLS = 200_000;
+
+    @Test
+    void conditionalPollIsCheaperThanFullPoll() throws Exception {
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        RoomController controller = new RoomController(RoomRouter.local(roomService));
+        ObjectMapper mapper = new ObjectMapper();
+        String code = roomService.createRoom("Host", "host@example.com", 64).getCode();
+        for (int i = 1; i < 64; i++) {
+            roomService.joinRoom(code, "Player" + i, "player" + i + "@example.com");
+        }
+        String etag = controller.getRoom(code, null).getHeaders().getETag();
+
+        long bytes = 0;
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < POLLS; i++) {
+                ResponseEntity<RoomDTO> response = controller.getRoom(code, null);
+                bytes += mapper.writeValueAsBytes(response.getBody()).length;
+            }
+            double fullNs = (System.nanoTime() - start) / (double) POLLS;
+
+            start = System.nanoTime();
+            for (int i = 0; i < POLLS; i++) {
+                bytes += controller.getRoom(code, etag).getStatusCode().value();
+            }
+            double conditionalNs = (System.nanoTime() - start) / (double) POLLS;
+            if (round == 1) {
+                System.out.printf("64-player room poll: full 200 %.0f ns/op, conditional 304 %.0f ns/op "
+                                + "(sink %d)%n", fullNs, conditionalNs, bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.cluewave.controller;
+
+import com.cluewave.auth.model.User;
+import com.cluewave.auth.security.UserPrincipal;
+import com.cluewave.cluster.RoomRouter;
+import com.cluewave.dto.RoomDTO;
+import com.cluewave.service.RoomCodeAllocator;
+import com.cluewave.service.RoomService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for conditional reads and guesses in {@link RoomController}.  The
+ * controller is called directly, without the Spring web stack.
+ */
+class RoomControllerTest {
+
+    @Test
+    void unchangedRoomAnswersNotModified() {
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        RoomController controller = new RoomController(RoomRouter.local(roomService));
+        String code = roomService.createRoom("Host", "host@example.com").getCode();
+
+        ResponseEntity<RoomDTO> first = controller.getRoom(code, null);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag);
+
+        ResponseEntity<RoomDTO> again = controller.getRoom(code, etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, again.getStatusCode());
+        assertNull(again.getBody(), "A 304 must not carry a body");
+        assertEquals(etag, again.getHeaders().getETag());
+
+        roomService.joinRoom(code, "Guest", "guest@example.com");
+        ResponseEntity<RoomDTO> changed = controller.getRoom(code, etag);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertEquals(2, changed.getBody().getPlayers().size());
+        assertNotEquals(etag, changed.getHeaders().getETag());
+    }
+
+    @Test
+    void guessesAreTiedToTheAccountThatJoined() {
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        RoomController controller = new RoomController(RoomRouter.local(roomService));
+        UserPrincipal host = principal("host@example.com", "Host");
+        UserPrincipal guest = principal("guest@example.com", "Guest");
+        String code = controller.createRoom(null, host).getCode();
+        String guestId = controller.joinRoom(code, new RoomController.JoinRequest(null), guest).getId();
+        controller.startRound(code);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> controller.submitGuess(code, new RoomController.GuessRequest(guestId, 0.5, true), host));
+        assertEquals("Player belongs to another account: " + guestId, ex.getMessage());
+
+        assertEquals(HttpStatus.NO_CONTENT,
+                controller.submitGuess(code, new RoomController.GuessRequest(guestId, 0.5, true), guest)
+                        .getStatusCode());
+    }
+
+    @Test
+    void ifNoneMatchAcceptsListsWeakTagsAndWildcard() {
+        assertTrue(RoomController.matchesAny("\"a\", W/\"b\"", "\"b\""));
+        assertTrue(RoomController.matchesAny("*", "\"b\""));
+        assertFalse(RoomController.matchesAny("\"a\"", "\"b\""));
+    }
+
+    private static UserPrincipal principal(String email, String username) {
+        User user = new User();
+        user.setEmail(email);
+        user.setUsername(username);
+        return new UserPrincipal(user);
+    }
+}
@@ -0,0 +1,55 @@
+package com.cluewave.controller;
+
+import com.cluewave.cluster.RoomRouter;
+import com.cluewave.service.RoomCodeAllocator;
+import com.cluewave.service.RoomService;
+import com.cluewave.websocket.PresenceTracker;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Compares the in-process cost of a start-round command sent as a STOMP
+ * frame to /app with the same command as an HTTP POST dispatched by MockMvc.
+ * Network time and the security filter chain are left out of both, so the
+ * REST figure is a lower bound.  Run with {@code mvn test -Pbenchmark}.
+ */
+class RoomMessageControllerBenchmark {
+
+    private static final int COMMANDS = 20_000;
+
+    @Test
+    void stompCommandVersusRestPost() throws Exception {
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        String code = roomService.createRoom("Host", "host@example.com").getCode();
+        List<Message<?>> replies = new ArrayList<>();
+        SimpAnnotationMethodMessageHandler stomp =
+                RoomMessageControllerTest.handler(new RoomMessageController(RoomRouter.local(roomService), new PresenceTracker(RoomRouter.local(roomService), 30000, 1000)), replies);
+        MockMvc rest = MockMvcBuilders.standaloneSetup(new RoomController(RoomRouter.local(roomService))).build();
+
+        for (int pass = 0; pass < 2; pass++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < COMMANDS; i++) {
+                stomp.handleMessage(RoomMessageControllerTest.command("/app/room/" + code + "/start-round", null));
+            }
+            double stompUs = (System.nanoTime() - start) / 1000.0 / COMMANDS;
+            replies.clear();
+
+            start = System.nanoTime();
+            for (int i = 0; i < COMMANDS; i++) {
+                rest.perform(post("/api/rooms/" + code + "/start-round")).andReturn();
+            }
+            double restUs = (System.nanoTime() - start) / 1000.0 / COMMANDS;
+            if (pass == 1) {
+                System.out.printf("start-round: stomp %.1f us/command, rest %.1f us/command%n", stompUs, restUs);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.cluewave.controller;
+
+import com.cluewave.auth.model.User;
+import com.cluewave.auth.security.UserPrincipal;
+import com.cluewave.cluster.RoomRouter;
+import com.cluewave.service.RoomCodeAllocator;
+import com.cluewave.service.RoomService;
+import com.cluewave.websocket.PresenceTracker;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RoomMessageController}.  Commands are dispatched
+ * through Spring's annotation message handler, as the /app prefix would, and
+ * replies are captured on their way to the broker.
+ */
+class RoomMessageControllerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<Message<?>> replies = new ArrayList<>();
+    private RoomService roomService;
+    private SimpAnnotationMethodMessageHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        handler = handler(new RoomMessageController(RoomRouter.local(roomService), new PresenceTracker(RoomRouter.local(roomService), 30000, 1000)), replies);
+    }
+
+    @Test
+    void startRoundRepliesOnTheCallersQueue() throws Exception {
+        String code = roomService.createRoom("Host", "host@example.com").getCode();
+
+        handler.handleMessage(command("/app/room/" + code + "/start-round", null));
+
+        assertEquals(1, replies.size());
+        assertEquals("/user/host@example.com/queue/round",
+                SimpMessageHeaderAccessor.getDestination(replies.get(0).getHeaders()));
+        assertEquals("s1", SimpMessageHeaderAccessor.getSessionId(replies.get(0).getHeaders()),
+                "Replies go to the calling session only");
+        assertTrue(json(replies.get(0)).has("promptLeft"));
+    }
+
+    @Test
+    void joinUsesThePayloadNameOrTheAccountName() throws Exception {
+        String code = roomService.createRoom("Host", "host@example.com", 4).getCode();
+
+        handler.handleMessage(command("/app/room/" + code + "/join", "{\"playerName\":\"Guest\"}"));
+        handler.handleMessage(command("/app/room/" + code + "/join", null));
+
+        assertEquals("Guest", json(replies.get(0)).get("name").asText());
+        assertEquals("alice", json(replies.get(1)).get("name").asText());
+        assertEquals(3, roomService.getRoomState(code).getPlayers().size());
+    }
+
+    @Test
+    void failuresAreReportedOnTheErrorQueue() throws Exception {
+        handler.handleMessage(command("/app/room/NOPE/state", null));
+
+        assertEquals("/user/host@example.com/queue/errors",
+                SimpMessageHeaderAccessor.getDestination(replies.get(0).getHeaders()));
+        JsonNode error = json(replies.get(0));
+        assertEquals("Room not found: NOPE", error.get("error").asText());
+        assertEquals("/app/room/NOPE/state", error.get("destination").asText());
+    }
+
+    static SimpAnnotationMethodMessageHandler handler(RoomMessageController controller, List<Message<?>> replies) {
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        brokerChannel.subscribe(replies::add);
+        SimpMessagingTemplate brokerTemplate = new SimpMessagingTemplate(brokerChannel);
+        brokerTemplate.setMessageConverter(new MappingJackson2MessageConverter());
+        SimpAnnotationMethodMessageHandler handler = new SimpAnnotationMethodMessageHandler(
+                new ExecutorSubscribableChannel(), new ExecutorSubscribableChannel(), brokerTemplate);
+        handler.setDestinationPrefixes(List.of("/app"));
+        handler.setMessageConverter(new MappingJackson2MessageConverter());
+        StaticApplicationContext context = new StaticApplicationContext();
+        context.getBeanFactory().registerSingleton("roomMessageController", controller);
+        context.refresh();
+        handler.setApplicationContext(context);
+        handler.afterPropertiesSet();
+        return handler;
+    }
+
+    static Message<byte[]> command(String destination, String json) {
+        User user = new User();
+        user.setEmail("host@example.com");
+        user.setUsername("alice");
+        UserPrincipal principal = new UserPrincipal(user);
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setDestination(destination);
+        headers.setSessionId("s1");
+        headers.setSessionAttributes(new HashMap<>());
+        headers.setUser(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        byte[] payload = json == null ? new byte[0] : json.getBytes(StandardCharsets.UTF_8);
+        return MessageBuilder.createMessage(payload, headers.getMessageHeaders());
+    }
+
+    private JsonNode json(Message<?> message) throws Exception {
+        return mapper.readTree((byte[]) message.getPayload());
+    }
+}
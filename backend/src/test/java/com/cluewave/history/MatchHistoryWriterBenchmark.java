@@ -0,0 +1,76 @@
+package com.cluewave.history;
+
+import com.cluewave.service.RoomCodeAllocator;
+import com.cluewave.service.RoomService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark for {@link MatchHistoryWriter}: the cost of finishing games with
+ * and without the write-behind writer, against a store that takes 5 ms per
+ * batch as a remote database would, and the resulting batch count.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+class MatchHistoryWriterBenchmark {
+
+    private static final int GAMES = 50_000;
+    private static final long BATCH_MILLIS = 5;
+
+    @Test
+    void finishingGamesDoesNotWaitOnTheStore() {
+        for (int pass = 0; pass < 2; pass++) {
+            double bare = finish(null);
+            SlowStore store = new SlowStore();
+            RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+            MatchHistoryWriter writer = new MatchHistoryWriter(roomService, store, GAMES, 200, 100, 5, 500);
+            writer.start();
+            double withWriter = finish(roomService);
+            long start = System.nanoTime();
+            writer.close();
+            double drainMillis = (System.nanoTime() - start) / 1e6;
+            if (pass == 1) {
+                System.out.printf("match history: %.0f games/s without the writer, %.0f games/s with it, "
+                                + "%d batches of %d ms, drained %.0f ms after the last game%n",
+                        bare, withWriter, store.batches, BATCH_MILLIS, drainMillis);
+            }
+            assertEquals(GAMES, writer.written());
+        }
+    }
+
+    // Plays, finishes and closes GAMES rooms; returns games finished per second.
+    private static double finish(RoomService roomService) {
+        RoomService service = roomService != null ? roomService
+                : new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        long start = System.nanoTime();
+        for (int i = 0; i < GAMES; i++) {
+            String code = service.createRoom("Host", "host" + i + "@example.com").getCode();
+            String guest = service.joinRoom(code, "Guest", "guest@example.com").getId();
+            service.startRound(code);
+            service.submitGuess(code, guest, 0.5, true, "guest@example.com");
+            service.revealRound(code);
+            service.finishGame(code);
+            service.closeRoom(code);
+        }
+        return GAMES / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static final class SlowStore implements MatchHistoryStore {
+        volatile int batches;
+
+        @Override
+        public void saveAll(List<MatchRecord> records) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(BATCH_MILLIS));
+            batches++;
+        }
+
+        @Override
+        public List<MatchRecord> findByParticipant(String account, Long before, int limit) {
+            return List.of();
+        }
+    }
+}
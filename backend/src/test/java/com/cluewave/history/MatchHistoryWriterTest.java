@@ -0,0 +1,160 @@
+package com.cluewave.history;
+
+import com.cluewave.dto.RoomDTO;
+import com.cluewave.service.RoomCodeAllocator;
+import com.cluewave.service.RoomService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link MatchHistoryWriter}.  Games are played and finished on
+ * a real {@link RoomService}; the store is an in-memory stand-in for Postgres
+ * that can be made to fail or stall.
+ */
+class MatchHistoryWriterTest {
+
+    private final RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+    private final List<MatchHistoryWriter> writers = new ArrayList<>();
+
+    @AfterEach
+    void closeWriters() {
+        writers.forEach(MatchHistoryWriter::close);
+    }
+
+    @Test
+    void finishedGamesAreStoredInBatches() {
+        RecordingStore store = new RecordingStore();
+        MatchHistoryWriter writer = start(store, 100, 10, 50, 3);
+        for (int i = 0; i < 25; i++) {
+            playAndFinish("host" + i + "@example.com");
+        }
+        roomService.closeRoom(roomService.createRoom("Idle", "idle@example.com").getCode());
+        String unfinished = roomService.createRoom("Quit", "quit@example.com").getCode();
+        roomService.startRound(unfinished);
+        roomService.revealRound(unfinished);
+        roomService.closeRoom(unfinished);
+
+        await(() -> writer.written() == 25);
+        assertEquals(25, store.records.size(), "Games closed before they finished are not stored");
+        assertTrue(store.batchSizes.stream().allMatch(size -> size <= 10), "Batches " + store.batchSizes);
+        MatchRecord first = store.records.get(0);
+        assertEquals("host0@example.com", first.hostEmail());
+        assertEquals(List.of("Guest", "Host"),
+                first.players().stream().map(MatchRecord.PlayerResult::name).sorted().toList());
+        assertEquals(List.of("guest@example.com", "host0@example.com"),
+                first.participants().stream().sorted().toList());
+        assertTrue(first.startedAt() <= first.finishedAt());
+        assertNull(first.id());
+    }
+
+    @Test
+    void failedBatchesAreRetriedThenDropped() {
+        RecordingStore store = new RecordingStore();
+        store.failures.set(2);
+        MatchHistoryWriter writer = start(store, 100, 10, 0, 3);
+        playAndFinish("host@example.com");
+        await(() -> writer.written() == 1);
+        assertEquals(1, store.records.size());
+
+        store.failures.set(3);
+        playAndFinish("other@example.com");
+        await(() -> writer.failed() == 1);
+        assertEquals(1, store.records.size(), "A batch is dropped after max-attempts failures");
+    }
+
+    @Test
+    void fullQueueDropsGamesWithoutBlockingRooms() throws Exception {
+        RecordingStore store = new RecordingStore();
+        store.stall = new CountDownLatch(1);
+        MatchHistoryWriter writer = start(store, 4, 1, 0, 1);
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            playAndFinish("host" + i + "@example.com");
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "Finishing games must not wait on the store");
+        assertTrue(writer.dropped() > 0);
+
+        store.stall.countDown();
+        await(() -> writer.written() + writer.dropped() == 20);
+        assertEquals(0, writer.pending());
+    }
+
+    @Test
+    void closeStoresWhatIsStillQueued() {
+        RecordingStore store = new RecordingStore();
+        MatchHistoryWriter writer = start(store, 100, 100, 60_000, 3);
+        for (int i = 0; i < 3; i++) {
+            playAndFinish("host" + i + "@example.com");
+        }
+        writer.close();
+        assertEquals(3, writer.written());
+        assertEquals(3, store.records.size());
+    }
+
+    private MatchHistoryWriter start(MatchHistoryStore store, int capacity, int batchSize, long lingerMs,
+                                     int maxAttempts) {
+        MatchHistoryWriter writer = new MatchHistoryWriter(roomService, store, capacity, batchSize, lingerMs,
+                maxAttempts, 1);
+        writers.add(writer);
+        writer.start();
+        return writer;
+    }
+
+    private void playAndFinish(String hostEmail) {
+        RoomDTO room = roomService.createRoom("Host", hostEmail);
+        String code = room.getCode();
+        String guest = roomService.joinRoom(code, "Guest", "guest@example.com").getId();
+        roomService.startRound(code);
+        roomService.submitGuess(code, guest, 0.5, true, "guest@example.com");
+        roomService.revealRound(code);
+        roomService.finishGame(code);
+        roomService.closeRoom(code);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the writer");
+            Thread.onSpinWait();
+        }
+    }
+
+    private static final class RecordingStore implements MatchHistoryStore {
+        final List<MatchRecord> records = new CopyOnWriteArrayList<>();
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final AtomicInteger failures = new AtomicInteger();
+        volatile CountDownLatch stall;
+
+        @Override
+        public void saveAll(List<MatchRecord> batch) {
+            CountDownLatch latch = stall;
+            if (latch != null) {
+                try {
+                    latch.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new IllegalStateException("Database unavailable");
+            }
+            batchSizes.add(batch.size());
+            records.addAll(batch);
+        }
+
+        @Override
+        public List<MatchRecord> findByParticipant(String account, Long before, int limit) {
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.cluewave.journal;
+
+import com.cluewave.service.RoomCodeAllocator;
+import com.cluewave.service.RoomService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmarks for {@link RoomJournal}: append throughput of room commands from
+ * several caller threads with group commit, and the time to recover 100k
+ * rooms from the raw journal and from a compacted one.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+class RoomJournalBenchmark {
+
+    private static final int CALLERS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final int ROOMS_PER_CALLER = 20_000;
+    private static final int RECOVERY_ROOMS = 100_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendThroughput() throws Exception {
+        for (int pass = 0; pass < 2; pass++) {
+            Path passDir = dir.resolve("append-" + pass);
+            RoomService service = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+            RoomJournal journal = new RoomJournal(service, passDir, 64 << 20, 20);
+            journal.open();
+            ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+            try {
+                long start = System.nanoTime();
+                List<Future<?>> done = new ArrayList<>();
+                for (int c = 0; c < CALLERS; c++) {
+                    int caller = c;
+                    done.add(callers.submit(() -> {
+                        for (int i = 0; i < ROOMS_PER_CALLER; i++) {
+                            String code = service.createRoom("Host", "host" + caller + "-" + i + "@example.com")
+                                    .getCode();
+                            service.joinRoom(code, "Guest", "guest@example.com");
+                            service.startRound(code);
+                            service.closeRoom(code);
+                        }
+                    }));
+                }
+                for (Future<?> f : done) {
+                    f.get();
+                }
+                double commandSeconds = (System.nanoTime() - start) / 1e9;
+                journal.flush().join();
+                double durableSeconds = (System.nanoTime() - start) / 1e9;
+                long records = journal.recordsAppended();
+                if (pass == 1) {
+                    System.out.printf("journal appends: %d records from %d callers, %.0f records/s issued, "
+                                    + "%.0f records/s on disk%n",
+                            records, CALLERS, records / commandSeconds, records / durableSeconds);
+                }
+                assertEquals((long) CALLERS * ROOMS_PER_CALLER * 4, records);
+            } finally {
+                callers.shutdown();
+                journal.close();
+            }
+        }
+    }
+
+    @Test
+    void recoveryOf100kRooms() {
+        RoomService before = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        RoomJournal journal = new RoomJournal(before, dir, 64 << 20, 20);
+        journal.open();
+        for (int i = 0; i < RECOVERY_ROOMS; i++) {
+            String code = before.createRoom("Host" + i, "host" + i + "@example.com").getCode();
+            before.joinRoom(code, "Guest" + i, "guest" + i + "@example.com");
+            before.startRound(code);
+        }
+        journal.flush().join();
+        journal.close();
+
+        RoomJournal.Recovery raw = recover();
+        System.out.printf("recovery from the raw journal: %d rooms, %d records in %d ms%n",
+                raw.rooms(), raw.records(), raw.millis());
+        assertEquals(RECOVERY_ROOMS, raw.rooms());
+
+        RoomService compacting = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        RoomJournal compactor = new RoomJournal(compacting, dir, 64 << 20, 20);
+        compactor.open();
+        long start = System.nanoTime();
+        assertEquals(RECOVERY_ROOMS, compactor.compact().join());
+        System.out.printf("compaction of %d rooms: %d ms%n", RECOVERY_ROOMS, (System.nanoTime() - start) / 1_000_000);
+        compactor.close();
+
+        RoomJournal.Recovery compacted = recover();
+        System.out.printf("recovery from the compacted journal: %d rooms, %d records in %d ms%n",
+                compacted.rooms(), compacted.records(), compacted.millis());
+        assertEquals(RECOVERY_ROOMS, compacted.rooms());
+    }
+
+    private RoomJournal.Recovery recover() {
+        RoomService after = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        RoomJournal journal = new RoomJournal(after, dir, 64 << 20, 20);
+        try {
+            return journal.open();
+        } finally {
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.cluewave.journal;
+
+import com.cluewave.dto.PlayerDTO;
+import com.cluewave.dto.RoomDTO;
+import com.cluewave.dto.RoundDTO;
+import com.cluewave.service.RoomCodeAllocator;
+import com.cluewave.service.RoomService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RoomJournal}.  Each restart replays the journal
+ * directory into a fresh {@link RoomService}, the way a new process would.
+ */
+class RoomJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<RoomJournal> journals = new ArrayList<>();
+
+    @AfterEach
+    void closeJournals() {
+        journals.forEach(RoomJournal::close);
+    }
+
+    @Test
+    void restartRestoresPlayersScoresAndRound() {
+        RoomService before = service();
+        RoomJournal journal = start(before);
+        RoomDTO created = before.createRoom("Host", "host@example.com", 4);
+        String code = created.getCode();
+        String host = created.getPlayers().get(0).getId();
+        String leaving = before.joinRoom(code, "Leaving", "leaving@example.com").getId();
+        String guest = before.joinRoom(code, "Guest", "guest@example.com").getId();
+        before.removePlayer(code, leaving);
+        RoundDTO started = before.startRound(code);
+        before.submitGuess(code, guest, 0.4, true, "guest@example.com");
+        RoundDTO revealed = before.revealRound(code);
+        journal.close();
+
+        RoomService after = service();
+        assertEquals(1, restart(after).rooms());
+        RoomDTO state = after.getRoomState(code);
+
+        assertEquals("in_round", state.getState());
+        assertEquals(List.of(host, guest).stream().sorted().toList(),
+                state.getPlayers().stream().map(PlayerDTO::getId).sorted().toList());
+        assertEquals(started.getPromptLeft(), state.getCurrentRound().getPromptLeft());
+        assertEquals(revealed.getTargetPosition(), state.getCurrentRound().getTargetPosition());
+        assertEquals(revealed.getResults().size(), state.getCurrentRound().getResults().size());
+        assertEquals(points(revealed, guest), score(state, guest));
+        assertEquals("host@example.com", state.getHostEmail());
+        after.joinRoom(code, "Third", "third@example.com");
+        after.joinRoom(code, "Fourth", "fourth@example.com");
+        assertThrows(IllegalStateException.class, () -> after.joinRoom(code, "Fifth", "fifth@example.com"),
+                "Restored players keep their seats");
+        after.startRound(code);
+        assertThrows(IllegalArgumentException.class,
+                () -> after.submitGuess(code, guest, 0.5, false, "host@example.com"),
+                "Restored players keep their accounts");
+        after.submitGuess(code, guest, 0.5, false, "guest@example.com");
+    }
+
+    @Test
+    void closedRoomsStayClosedAndNewRoomsKeepJournaling() {
+        RoomService before = service();
+        RoomJournal journal = start(before);
+        String closed = before.createRoom("Gone", "gone@example.com").getCode();
+        String kept = before.createRoom("Kept", "kept@example.com").getCode();
+        before.closeRoom(closed);
+        journal.close();
+
+        RoomService after = service();
+        RoomJournal reopened = start(after);
+        String added = after.createRoom("New", "new@example.com").getCode();
+        after.joinRoom(kept, "Guest", "guest@example.com");
+        reopened.close();
+
+        RoomService last = service();
+        assertEquals(2, restart(last).rooms(), "Closed rooms are not restored");
+        assertEquals(2, last.getRoomState(kept).getPlayers().size());
+        assertNotNull(last.getRoomState(added));
+        assertThrows(IllegalArgumentException.class, () -> last.getRoomState(closed));
+    }
+
+    @Test
+    void finishedGamesStayFinished() {
+        RoomService before = service();
+        RoomJournal journal = start(before);
+        String code = before.createRoom("Host", "host@example.com").getCode();
+        before.startRound(code);
+        before.revealRound(code);
+        before.finishGame(code);
+        journal.close();
+
+        RoomService after = service();
+        restart(after);
+        assertEquals("finished", after.getRoomState(code).getState());
+    }
+
+    @Test
+    void compactionKeepsStateAndDropsOldSegments() throws Exception {
+        RoomService before = service();
+        RoomJournal journal = start(before);
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String code = before.createRoom("Host" + i, "host" + i + "@example.com").getCode();
+            before.startRound(code);
+            codes.add(code);
+        }
+        for (int i = 0; i < 100; i++) {
+            before.closeRoom(codes.get(i));
+        }
+        journal.flush().join();
+        int segments = journal.segmentCount();
+        assertTrue(segments > 1, "The small segments should have rolled");
+
+        assertEquals(200, journal.compact().join());
+        assertTrue(journal.segmentCount() < segments, "Segments before the compaction are deleted");
+        assertEquals(journal.segmentCount(), segmentFiles());
+        journal.close();
+
+        RoomService after = service();
+        assertEquals(200, restart(after).rooms());
+        assertEquals("in_round", after.getRoomState(codes.get(250)).getState());
+    }
+
+    @Test
+    void scheduledCompactionDoesNotWaitForTheRooms() throws Exception {
+        AtomicBoolean held = new AtomicBoolean();
+        Queue<Runnable> parked = new ConcurrentLinkedQueue<>();
+        RoomService before = new RoomService(new RoomCodeAllocator(0.75), task -> {
+            if (held.get()) {
+                parked.add(task);
+            } else {
+                task.run();
+            }
+        });
+        RoomJournal journal = start(before);
+        for (int i = 0; i < 100; i++) {
+            before.createRoom("Host" + i, "host" + i + "@example.com");
+        }
+        journal.flush().join();
+        int segments = journal.segmentCount();
+        assertTrue(segments > 1, "The small segments should have rolled");
+
+        held.set(true);
+        journal.compactIfNeeded();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (parked.size() < 100 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(100, parked.size(), "Every room is asked for its image");
+        assertEquals(0, journal.compact().join(), "A compaction is already under way");
+
+        held.set(false);
+        while (!parked.isEmpty()) {
+            parked.poll().run();
+        }
+        journal.flush().join();
+        assertEquals(100, journal.compact().join(), "The first compaction has finished");
+        assertEquals(journal.segmentCount(), segmentFiles());
+        journal.close();
+
+        assertEquals(100, restart(service()).rooms());
+    }
+
+    @Test
+    void tornTailIsIgnored() throws Exception {
+        RoomService before = service();
+        RoomJournal journal = start(before);
+        String code = before.createRoom("Host", "host@example.com").getCode();
+        before.joinRoom(code, "Guest", "guest@example.com");
+        journal.close();
+
+        // corrupt the last record's payload, as if the process died while writing it
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.sorted().reduce((a, b) -> b).orElseThrow();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            int offset = 0;
+            int last = 0;
+            while (true) {
+                file.seek(offset);
+                int length = file.readInt();
+                if (length == 0) {
+                    break;
+                }
+                last = offset;
+                offset += 8 + length;
+            }
+            file.seek(last + 8 + 2);
+            file.writeByte(0x7F);
+        }
+
+        RoomService after = service();
+        assertEquals(1, restart(after).rooms());
+        assertEquals(1, after.getRoomState(code).getPlayers().size(), "The torn join is not replayed");
+    }
+
+    private static RoomService service() {
+        return new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+    }
+
+    private RoomJournal start(RoomService roomService) {
+        RoomJournal journal = journal(roomService);
+        journal.open();
+        return journal;
+    }
+
+    private RoomJournal.Recovery restart(RoomService roomService) {
+        return journal(roomService).open();
+    }
+
+    // Small segments so that a few hundred rooms span several of them.
+    private RoomJournal journal(RoomService roomService) {
+        RoomJournal journal = new RoomJournal(roomService, dir, 4096, 0);
+        journals.add(journal);
+        return journal;
+    }
+
+    private long segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    private static int points(RoundDTO round, String playerId) {
+        return round.getResults().stream().filter(r -> r.getPlayerId().equals(playerId)).findFirst()
+                .orElseThrow().getPoints();
+    }
+
+    private static int score(RoomDTO room, String playerId) {
+        return room.getPlayers().stream().filter(p -> p.getId().equals(playerId)).findFirst()
+                .orElseThrow().getScore();
+    }
+}
@@ -0,0 +1,49 @@
+package com.cluewave.journal;
+
+import com.cluewave.service.RoomCodeAllocator;
+import com.cluewave.service.RoomService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark for {@link RoomSnapshotStore}: dump and restore time and file
+ * size for 100k live rooms with two players and a round each.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+class RoomSnapshotBenchmark {
+
+    private static final int ROOMS = 100_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void snapshotOf100kRooms() throws Exception {
+        RoomService before = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        for (int i = 0; i < ROOMS; i++) {
+            String code = before.createRoom("Host" + i, "host" + i + "@example.com").getCode();
+            before.joinRoom(code, "Guest" + i, "guest" + i + "@example.com");
+            before.startRound(code);
+        }
+
+        for (int pass = 0; pass < 2; pass++) {
+            Path file = dir.resolve("rooms-" + pass + ".snapshot");
+            long start = System.nanoTime();
+            assertEquals(ROOMS, new RoomSnapshotStore(before, file).dump());
+            long dumpMillis = (System.nanoTime() - start) / 1_000_000;
+
+            RoomService after = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+            RoomSnapshotStore.Restore restore = new RoomSnapshotStore(after, file).restore();
+            if (pass == 1) {
+                System.out.printf("room snapshot: %d rooms, dump %d ms, %.1f MB, restore %d ms%n",
+                        ROOMS, dumpMillis, Files.size(file) / 1e6, restore.millis());
+            }
+            assertEquals(ROOMS, restore.rooms());
+        }
+    }
+}
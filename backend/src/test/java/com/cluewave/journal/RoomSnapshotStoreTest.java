@@ -0,0 +1,143 @@
+package com.cluewave.journal;
+
+import com.cluewave.dto.GuessDTO;
+import com.cluewave.dto.PlayerDTO;
+import com.cluewave.dto.RoomDTO;
+import com.cluewave.dto.RoundDTO;
+import com.cluewave.service.RoomCodeAllocator;
+import com.cluewave.service.RoomService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RoomSnapshotStore}.  Each restore goes into a fresh
+ * {@link RoomService}, the way the next process would after a redeploy.
+ */
+class RoomSnapshotStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void stopThenStartRestoresRoomsAndDeletesTheSnapshot() {
+        Path file = dir.resolve("rooms.snapshot");
+        RoomService before = service();
+        RoomDTO created = before.createRoom("Host", "host@example.com", 4);
+        String code = created.getCode();
+        String host = created.getPlayers().get(0).getId();
+        String guest = before.joinRoom(code, "Guest", "guest@example.com").getId();
+        before.startRound(code);
+        before.submitGuess(code, guest, 0.7, true, "guest@example.com");
+        RoundDTO revealed = before.revealRound(code);
+        String lobby = before.createRoom("Other", "other@example.com").getCode();
+        new RoomSnapshotStore(before, file).stop();
+        assertTrue(Files.exists(file));
+
+        RoomService after = service();
+        RoomSnapshotStore store = new RoomSnapshotStore(after, file);
+        store.start();
+
+        assertTrue(store.isRunning());
+        assertFalse(Files.exists(file), "A restored snapshot is deleted");
+        RoomDTO state = after.getRoomState(code);
+        assertEquals("in_round", state.getState());
+        assertEquals(List.of(host, guest).stream().sorted().toList(),
+                state.getPlayers().stream().map(PlayerDTO::getId).sorted().toList());
+        assertEquals(revealed.getTargetPosition(), state.getCurrentRound().getTargetPosition());
+        assertEquals(revealed.getResults().size(), state.getCurrentRound().getResults().size());
+        assertEquals(revealed.getResults().stream().mapToInt(GuessDTO::getPoints).sum(),
+                state.getPlayers().stream().mapToInt(PlayerDTO::getScore).sum());
+        assertEquals("lobby", after.getRoomState(lobby).getState());
+        assertEquals("host@example.com", state.getHostEmail());
+        after.startRound(code);
+        assertThrows(IllegalArgumentException.class,
+                () -> after.submitGuess(code, guest, 0.5, false, "host@example.com"));
+        after.submitGuess(code, guest, 0.5, false, "guest@example.com");
+    }
+
+    @Test
+    void truncatedSnapshotKeepsTheRoomsReadSoFar() throws Exception {
+        Path file = dir.resolve("rooms.snapshot");
+        RoomService before = service();
+        for (int i = 0; i < 50; i++) {
+            before.createRoom("Host" + i, "host" + i + "@example.com");
+        }
+        RoomSnapshotStore store = new RoomSnapshotStore(before, file);
+        assertEquals(50, store.dump());
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+
+        RoomSnapshotStore.Restore restore = new RoomSnapshotStore(service(), file).restore();
+        assertTrue(restore.rooms() > 0 && restore.rooms() < 50, "Restored " + restore.rooms());
+    }
+
+    @Test
+    void roomsAlreadyLiveAreSkipped() throws Exception {
+        Path file = dir.resolve("rooms.snapshot");
+        RoomService service = service();
+        service.createRoom("Host", "host@example.com");
+        service.createRoom("Other", "other@example.com");
+        RoomSnapshotStore store = new RoomSnapshotStore(service, file);
+        store.dump();
+
+        RoomSnapshotStore.Restore restore = store.restore();
+        assertEquals(0, restore.rooms());
+        assertEquals(2, restore.skipped());
+    }
+
+    @Test
+    void snapshotRoomsAreJournaled() throws Exception {
+        Path file = dir.resolve("rooms.snapshot");
+        RoomService before = service();
+        String code = before.createRoom("Host", "host@example.com").getCode();
+        before.joinRoom(code, "Guest", "guest@example.com");
+        new RoomSnapshotStore(before, file).dump();
+
+        Path journalDir = dir.resolve("journal");
+        RoomService after = service();
+        RoomJournal journal = new RoomJournal(after, journalDir, 4096, 0);
+        journal.open();
+        assertEquals(1, new RoomSnapshotStore(after, file).restore().rooms());
+        journal.close();
+
+        RoomService last = service();
+        RoomJournal reopened = new RoomJournal(last, journalDir, 4096, 0);
+        try {
+            assertEquals(1, reopened.open().rooms());
+            assertEquals(2, last.getRoomState(code).getPlayers().size());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void foreignFilesAreRejected() throws Exception {
+        Path file = dir.resolve("rooms.snapshot");
+        Files.writeString(file, "not a snapshot");
+        assertThrows(IOException.class, () -> new RoomSnapshotStore(service(), file).restore());
+
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(RoomSnapshotStore.MAGIC);
+            out.writeShort(RoomSnapshotStore.FORMAT_VERSION + 1);
+            out.writeLong(0);
+        }
+        assertThrows(IOException.class, () -> new RoomSnapshotStore(service(), file).restore());
+
+        RoomSnapshotStore store = new RoomSnapshotStore(service(), file);
+        store.start();
+        assertTrue(Files.exists(file), "A snapshot that cannot be read is left for inspection");
+    }
+
+    private static RoomService service() {
+        return new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+    }
+}
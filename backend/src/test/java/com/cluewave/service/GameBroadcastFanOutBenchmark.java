@@ -0,0 +1,113 @@
+package com.cluewave.service;
+
+import com.cluewave.dto.PlayerDTO;
+import com.cluewave.dto.RoomDTO;
+import com.cluewave.dto.RoundDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fans one room update out to 1, 10, 100 and 1000 subscribers through the
+ * simple broker and a STOMP encoder, as the WebSocket session would.  Compares
+ * the serialize-once path of {@link GameBroadcastService} with encoding the
+ * payload again for every subscriber.  Run with {@code mvn test -Pbenchmark}.
+ */
+class GameBroadcastFanOutBenchmark {
+
+    private static final int ROUNDS = 100;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final StompEncoder stompEncoder = new StompEncoder();
+    private long sink;
+    private long messageId;
+
+    @Test
+    void broadcastCostPerSubscriber() throws Exception {
+        RoomDTO room = room(64);
+        for (int pass = 0; pass < 2; pass++) {
+            for (int subscribers : new int[] {1, 10, 100, 1000}) {
+                double once = measure(subscribers, room, false);
+                double perSubscriber = measure(subscribers, room, true);
+                if (pass == 1) {
+                    System.out.printf("%4d subscribers: serialize-once %.1f us/broadcast (%.0f ns/subscriber), "
+                                    + "serialize-per-subscriber %.1f us/broadcast (sink %d)%n",
+                            subscribers, once / 1000, once / subscribers, perSubscriber / 1000, sink);
+                }
+            }
+        }
+    }
+
+    private double measure(int subscribers, RoomDTO room, boolean reencode) throws Exception {
+        ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        clientOutbound.subscribe(message -> write(message, room, reencode));
+        SimpleBrokerMessageHandler broker =
+                new SimpleBrokerMessageHandler(clientInbound, clientOutbound, brokerChannel, List.of("/topic"));
+        broker.start();
+        for (int i = 0; i < subscribers; i++) {
+            SimpMessageHeaderAccessor connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+            connect.setSessionId("s" + i);
+            broker.handleMessage(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+            SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            subscribe.setSessionId("s" + i);
+            subscribe.setSubscriptionId("sub" + i);
+            subscribe.setDestination("/topic/room/ABCD");
+            broker.handleMessage(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()));
+        }
+        GameBroadcastService service = new GameBroadcastService(new SimpMessagingTemplate(brokerChannel), mapper);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            service.broadcastRoomClosed("ABCD", "closed");
+            service.broadcastRoomUpdate("ABCD", room);
+        }
+        double elapsed = (System.nanoTime() - start) / (double) (ROUNDS * 2);
+        broker.stop();
+        return elapsed;
+    }
+
+    private void write(Message<?> message, RoomDTO room, boolean reencode) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return;
+        }
+        byte[] payload = (byte[]) message.getPayload();
+        if (reencode) {
+            try {
+                payload = mapper.writeValueAsBytes(room);
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        // per-session frame headers, as the STOMP sub-protocol handler writes them
+        SimpMessageHeaderAccessor source = SimpMessageHeaderAccessor.wrap(message);
+        StompHeaderAccessor frame = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        frame.setSubscriptionId(source.getSubscriptionId());
+        frame.setDestination(source.getDestination());
+        frame.setMessageId(Long.toString(++messageId));
+        frame.setContentType(source.getContentType());
+        sink += stompEncoder.encode(frame.getMessageHeaders(), payload).length;
+    }
+
+    private static RoomDTO room(int size) {
+        List<PlayerDTO> players = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            players.add(new PlayerDTO("3f1c2a9e-0000-4000-8000-" + String.format("%012d", i), "Player" + i, i));
+        }
+        return new RoomDTO("ABCD", players, new RoundDTO("Froid", "Chaud", false), "in_round",
+                "Host", "host@example.com", 64, 1);
+    }
+}
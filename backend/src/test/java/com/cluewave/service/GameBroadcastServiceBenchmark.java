@@ -0,0 +1,47 @@
+package com.cluewave.service;
+
+import com.cluewave.dto.PlayerDTO;
+import com.cluewave.dto.RoomDTO;
+import com.cluewave.dto.RoundDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the JSON size of a full {@link RoomDTO} with the patch sent by
+ * {@link GameBroadcastService} when a single score changes, for several room
+ * sizes.  Run with {@code mvn test -Pbenchmark}.
+ */
+class GameBroadcastServiceBenchmark {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void patchesAreMuchSmallerThanFullSnapshots() throws Exception {
+        for (int size : new int[] {2, 8, 64}) {
+            RoomDTO before = room(size, 1, 0);
+            RoomDTO after = room(size, 2, 10);
+            int full = mapper.writeValueAsBytes(after).length;
+            int patch = mapper.writeValueAsBytes(GameBroadcastService.diff(before, after)).length;
+            System.out.printf("%d players: full %d bytes, patch %d bytes (%.1fx smaller)%n",
+                    size, full, patch, full / (double) patch);
+            if (size == 64) {
+                assertTrue(full >= patch * 10, "Patches should be an order of magnitude smaller for big rooms");
+            }
+        }
+    }
+
+    private static RoomDTO room(int size, long version, int lastScore) {
+        List<PlayerDTO> players = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            players.add(new PlayerDTO("3f1c2a9e-0000-4000-8000-" + String.format("%012d", i), "Player" + i,
+                    i == size - 1 ? lastScore : 0));
+        }
+        return new RoomDTO("ABCD", players, new RoundDTO("Froid", "Chaud", false), "in_round",
+                "Host", "host@example.com", 64, version);
+    }
+}
@@ -1,9 +1,27 @@
 package com.cluewave.service;
 
+import com.cluewave.dto.PlayerDTO;
 import com.cluewave.dto.RoomDTO;
+import com.cluewave.dto.RoomPatchDTO;
+import com.cluewave.dto.RoundDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 /**
@@ -12,19 +30,134 @@ import static org.mockito.Mockito.*;
  */
 class GameBroadcastServiceTest {
 
+    private final ObjectMapper mapper = new ObjectMapper();
+
     @Test
-    void broadcastRoomUpdate_sendsToCorrectDestination() {
+    void broadcastRoomUpdate_sendsToCorrectDestination() throws Exception {
         // Arrange
         SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
         GameBroadcastService service = new GameBroadcastService(messagingTemplate);
-
-        // On n'a pas besoin d'un vrai RoomDTO, un mock suffit
-        RoomDTO dto = mock(RoomDTO.class);
+        RoomDTO dto = new RoomDTO("ABCD", List.of(new PlayerDTO("h", "Host", 0)), null, "lobby",
+                "Host", "host@example.com", 2, 1);
 
         // Act
         service.broadcastRoomUpdate("ABCD", dto);
 
         // Assert
-        verify(messagingTemplate).convertAndSend("/topic/room/ABCD", dto);
+        ArgumentCaptor<Message<?>> sent = messageCaptor();
+        verify(messagingTemplate).send(eq("/topic/room/ABCD"), sent.capture());
+        assertEquals(MimeTypeUtils.APPLICATION_JSON, sent.getValue().getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        assertEquals(mapper.readTree(mapper.writeValueAsBytes(dto)), json(sent.getValue()));
+    }
+
+    @Test
+    void laterUpdatesAreSentAsPatchesWithOnlyChangedFields() throws Exception {
+        SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+        GameBroadcastService service = new GameBroadcastService(messagingTemplate);
+        PlayerDTO host = new PlayerDTO("h", "Host", 0);
+        PlayerDTO guest = new PlayerDTO("g", "Guest", 0);
+        RoomDTO v1 = new RoomDTO("ABCD", List.of(host, guest), null, "lobby", "Host", "host@example.com", 2, 1);
+        RoomDTO v2 = new RoomDTO("ABCD", List.of(host, new PlayerDTO("g", "Guest", 10)),
+                new RoundDTO("Froid", "Chaud", false), "in_round", "Host", "host@example.com", 2, 2);
+
+        service.broadcastRoomUpdate("ABCD", v1);
+        service.broadcastRoomUpdate("ABCD", v2);
+        service.broadcastRoomUpdate("ABCD", v1);
+
+        ArgumentCaptor<Message<?>> sent = messageCaptor();
+        verify(messagingTemplate, times(2)).send(eq("/topic/room/ABCD"), sent.capture());
+        assertEquals(mapper.readTree(mapper.writeValueAsBytes(v1)), json(sent.getAllValues().get(0)),
+                "The first update of a room is a full snapshot");
+        JsonNode patch = json(sent.getAllValues().get(1));
+        assertEquals(1, patch.get("fromVersion").asLong());
+        assertEquals(2, patch.get("version").asLong());
+        assertEquals("in_round", patch.get("state").asText());
+        assertEquals("Froid", patch.get("currentRound").get("promptLeft").asText());
+        assertEquals(1, patch.get("players").size(), "Only the player whose score changed is included");
+        assertEquals(10, patch.get("players").get(0).get("score").asInt());
+        assertFalse(patch.has("removedPlayers"));
+    }
+
+    @Test
+    void newRoundWithTheSamePromptsIsSent() throws Exception {
+        SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+        GameBroadcastService service = new GameBroadcastService(messagingTemplate);
+        List<PlayerDTO> players = List.of(new PlayerDTO("h", "Host", 0));
+        RoomDTO v1 = new RoomDTO("ABCD", players, new RoundDTO("Froid", "Chaud", false, null, null, 1),
+                "in_round", "Host", "host@example.com", 2, 1);
+        RoomDTO v2 = new RoomDTO("ABCD", players, new RoundDTO("Froid", "Chaud", false, null, null, 2),
+                "in_round", "Host", "host@example.com", 2, 2);
+
+        service.broadcastRoomUpdate("ABCD", v1);
+        service.broadcastRoomUpdate("ABCD", v2);
+
+        ArgumentCaptor<Message<?>> sent = messageCaptor();
+        verify(messagingTemplate, times(2)).send(eq("/topic/room/ABCD"), sent.capture());
+        JsonNode patch = json(sent.getAllValues().get(1));
+        assertTrue(patch.has("currentRound"), "The new round must reach clients even with repeated prompts");
+        assertFalse(patch.get("currentRound").has("roundId"), "The round id stays on the server");
+    }
+
+    @Test
+    void frameIsEncodedOnceAndSharedByAllSubscribers() {
+        List<Message<?>> delivered = new ArrayList<>();
+        ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        clientOutbound.subscribe(message -> {
+            if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE) {
+                delivered.add(message);
+            }
+        });
+        SimpleBrokerMessageHandler broker =
+                new SimpleBrokerMessageHandler(clientInbound, clientOutbound, brokerChannel, List.of("/topic"));
+        broker.start();
+        for (int i = 0; i < 3; i++) {
+            SimpMessageHeaderAccessor connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+            connect.setSessionId("s" + i);
+            broker.handleMessage(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+            SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            subscribe.setSessionId("s" + i);
+            subscribe.setSubscriptionId("sub" + i);
+            subscribe.setDestination("/topic/room/ABCD");
+            broker.handleMessage(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()));
+        }
+        GameBroadcastService service = new GameBroadcastService(new SimpMessagingTemplate(brokerChannel));
+
+        service.broadcastRoomUpdate("ABCD", new RoomDTO("ABCD", List.of(), null, "lobby", "Host", "h@x.com", 2, 1));
+
+        assertEquals(3, delivered.size());
+        Object payload = delivered.get(0).getPayload();
+        assertInstanceOf(byte[].class, payload);
+        for (Message<?> message : delivered) {
+            assertSame(payload, message.getPayload(), "Every subscriber must get the same encoded buffer");
+        }
+        broker.stop();
+    }
+
+    @Test
+    void unchangedFieldsAreLeftOutOfThePatch() {
+        PlayerDTO host = new PlayerDTO("h", "Host", 0);
+        PlayerDTO guest = new PlayerDTO("g", "Guest", 0);
+        RoundDTO round = new RoundDTO("Froid", "Chaud", false);
+        RoomDTO v3 = new RoomDTO("ABCD", List.of(host, guest), round, "in_round", "Host", "h@x.com", 2, 3);
+        RoomDTO v4 = new RoomDTO("ABCD", List.of(host), new RoundDTO("Froid", "Chaud", false),
+                "in_round", "Host", "h@x.com", 2, 4);
+
+        RoomPatchDTO patch = GameBroadcastService.diff(v3, v4);
+
+        assertNull(patch.getState());
+        assertNull(patch.getCurrentRound(), "An equal round should not be resent");
+        assertNull(patch.getPlayers());
+        assertEquals(List.of("g"), patch.getRemovedPlayers());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ArgumentCaptor<Message<?>> messageCaptor() {
+        return (ArgumentCaptor) ArgumentCaptor.forClass(Message.class);
+    }
+
+    private JsonNode json(Message<?> message) throws Exception {
+        return mapper.readTree((byte[]) message.getPayload());
     }
 }
@@ -0,0 +1,61 @@
+package com.cluewave.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link HostEmailIndex}.  They check email normalisation,
+ * ordering of a host's codes and that concurrent updates on the same key are
+ * never lost.
+ */
+class HostEmailIndexTest {
+
+    @Test
+    void latestReturnsNewestCodeForNormalizedEmail() {
+        HostEmailIndex index = new HostEmailIndex();
+        index.add("Host@Example.com", "AAAA");
+        index.add("host@example.com ", "BBBB");
+
+        assertEquals("BBBB", index.latest("HOST@example.COM"));
+        index.remove("host@example.com", "BBBB");
+        assertEquals("AAAA", index.latest("host@example.com"));
+        index.remove("host@example.com", "AAAA");
+        assertNull(index.latest("host@example.com"));
+        assertEquals(0, index.size(), "Empty entries should be dropped from the index");
+    }
+
+    @Test
+    void concurrentAddsAndRemovesStayConsistent() throws Exception {
+        HostEmailIndex index = new HostEmailIndex();
+        int threads = 8;
+        int perThread = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    String code = id + "-" + i;
+                    index.add("shared@example.com", code);
+                    if (i % 2 == 0) {
+                        index.remove("shared@example.com", code);
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(threads * perThread / 2, index.codes("shared@example.com").size(),
+                "Every add and remove on the same email should be applied exactly once");
+    }
+}
@@ -0,0 +1,105 @@
+package com.cluewave.service;
+
+import com.cluewave.model.PromptCursor;
+import com.cluewave.model.Round;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link PromptDeck}.  Catalogs are written to a temporary
+ * file so reloads can be exercised by rewriting it.
+ */
+class PromptDeckTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void bundledCatalogLoads() {
+        PromptDeck deck = new PromptDeck();
+
+        assertTrue(deck.size() >= 50, "The bundled catalog should hold the shipped prompts");
+    }
+
+    @Test
+    void roomNeverRepeatsAPairBeforeTheDeckIsExhausted() throws Exception {
+        PromptDeck deck = deck(pairs(37));
+        PromptCursor cursor = new PromptCursor();
+        Set<String> dealt = new HashSet<>();
+
+        for (int i = 0; i < 37; i++) {
+            assertTrue(dealt.add(deal(deck, cursor)), "Pair dealt twice in one pass");
+        }
+        assertEquals(37, dealt.size());
+        assertTrue(dealt.contains(deal(deck, cursor)), "The next pass starts over the same catalog");
+    }
+
+    @Test
+    void sharedPromptsAreStoredOnce() throws Exception {
+        PromptDeck deck = deck("Froid | Chaud\nFroid | Tiède\n");
+        PromptCursor cursor = new PromptCursor();
+        Round a = new Round(2);
+        Round b = new Round(2);
+
+        deck.deal(a, cursor);
+        deck.deal(b, cursor);
+
+        assertSame(a.getPromptLeft(), b.getPromptLeft());
+        assertNotEquals(a.getPromptRight(), b.getPromptRight());
+    }
+
+    @Test
+    void reloadSwapsTheCatalogAndRestartsWalks() throws Exception {
+        PromptDeck deck = deck(pairs(5));
+        PromptCursor cursor = new PromptCursor();
+        deal(deck, cursor);
+
+        Files.writeString(dir.resolve("prompts.txt"), "# replaced\nNuit | Jour\n");
+        assertTrue(deck.reload());
+
+        assertEquals(1, deck.size());
+        assertEquals("Nuit/Jour", deal(deck, cursor));
+        assertEquals(deck.generation(), cursor.getGeneration());
+    }
+
+    @Test
+    void malformedCatalogKeepsThePreviousOne() throws Exception {
+        PromptDeck deck = deck(pairs(5));
+
+        Files.writeString(dir.resolve("prompts.txt"), "Only one side\n");
+        assertFalse(deck.reload());
+        Files.writeString(dir.resolve("prompts.txt"), "# nothing\n");
+        assertFalse(deck.reload());
+
+        assertEquals(5, deck.size());
+        assertThrows(IllegalStateException.class, () -> deck("a | b | c\n"));
+    }
+
+    private PromptDeck deck(String content) throws Exception {
+        Path file = dir.resolve("prompts.txt");
+        Files.writeString(file, content);
+        return new PromptDeck(file.toUri().toString(), new DefaultResourceLoader());
+    }
+
+    private static String deal(PromptDeck deck, PromptCursor cursor) {
+        Round round = new Round(2);
+        deck.deal(round, cursor);
+        return round.getPromptLeft() + "/" + round.getPromptRight();
+    }
+
+    private static String pairs(int count) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            out.append("Left ").append(i).append(" | Right ").append(i).append('\n');
+        }
+        return out.toString();
+    }
+}
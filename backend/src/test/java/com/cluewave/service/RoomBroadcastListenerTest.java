@@ -0,0 +1,34 @@
+package com.cluewave.service;
+
+import com.cluewave.dto.RoomDTO;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link RoomBroadcastListener}.  Room mutations made through
+ * {@link RoomService} must reach the broadcast scheduler without the caller
+ * doing anything beyond the mutation itself.
+ */
+class RoomBroadcastListenerTest {
+
+    @Test
+    void mutationsArePushedToTheRoomTopic() {
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        RoomBroadcastScheduler scheduler = mock(RoomBroadcastScheduler.class);
+        new RoomBroadcastListener(roomService, scheduler);
+
+        String code = roomService.createRoom("Host", "host@example.com").getCode();
+        roomService.joinRoomByEmail("host@example.com", "Guest", "guest@example.com");
+        roomService.startRound(code);
+        roomService.closeRoom(code);
+
+        ArgumentCaptor<RoomDTO> submitted = ArgumentCaptor.forClass(RoomDTO.class);
+        verify(scheduler, times(3)).submit(submitted.capture());
+        assertEquals(3, submitted.getAllValues().get(2).getVersion());
+        assertEquals("in_round", submitted.getAllValues().get(2).getState());
+        verify(scheduler).close(code, "closed");
+    }
+}
@@ -0,0 +1,117 @@
+package com.cluewave.service;
+
+import com.cluewave.dto.RoomDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link RoomBroadcastScheduler}.  A burst of updates to one
+ * room inside the window must produce a single frame carrying the newest
+ * version, and nothing may be sent for a room after its close notice.
+ */
+class RoomBroadcastSchedulerTest {
+
+    private final GameBroadcastService broadcastService = mock(GameBroadcastService.class);
+    private final RoomBroadcastScheduler scheduler = new RoomBroadcastScheduler(broadcastService, 50, 2);
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void burstIsCoalescedIntoLatestVersion() {
+        RoomDTO v1 = room("ABCD", 1);
+        RoomDTO v2 = room("ABCD", 2);
+        RoomDTO v3 = room("ABCD", 3);
+
+        scheduler.submit(v1);
+        scheduler.submit(v3);
+        scheduler.submit(v2);
+
+        verify(broadcastService, timeout(1_000)).broadcastRoomUpdate("ABCD", v3);
+        verify(broadcastService, after(200).times(1)).broadcastRoomUpdate(eq("ABCD"), any());
+        assertEquals(3, scheduler.framesSubmitted());
+        assertEquals(1, scheduler.framesSent());
+        assertEquals(2, scheduler.framesSaved());
+    }
+
+    @Test
+    void roomsAreFlushedIndependently() {
+        RoomDTO a = room("AAAA", 1);
+        RoomDTO b = room("BBBB", 1);
+
+        scheduler.submit(a);
+        scheduler.submit(b);
+
+        verify(broadcastService, timeout(1_000)).broadcastRoomUpdate("AAAA", a);
+        verify(broadcastService, timeout(1_000)).broadcastRoomUpdate("BBBB", b);
+    }
+
+    @Test
+    void closeDropsPendingUpdate() {
+        scheduler.submit(room("ABCD", 1));
+        scheduler.close("ABCD", "expired");
+
+        verify(broadcastService, timeout(1_000)).broadcastRoomClosed("ABCD", "expired");
+        verify(broadcastService, after(200).never()).broadcastRoomUpdate(eq("ABCD"), any());
+    }
+
+    @Test
+    void roomReusingAClosedCodeGetsItsFirstFrame() throws Exception {
+        RoomBroadcastScheduler single = new RoomBroadcastScheduler(broadcastService, 0, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            RoomDTO closed = room("ABCD", 3);
+            single.submit(closed);
+            verify(broadcastService, timeout(1_000)).broadcastRoomUpdate("ABCD", closed);
+            doAnswer(invocation -> release.await(1, TimeUnit.SECONDS))
+                    .when(broadcastService).broadcastRoomClosed("ZZZZ", "expired");
+            // hold the stripe so the close notice is still queued when the code is reused
+            single.close("ZZZZ", "expired");
+
+            single.close("ABCD", "expired");
+            RoomDTO reused = room("ABCD", 1);
+            single.submit(reused);
+            release.countDown();
+
+            InOrder order = inOrder(broadcastService);
+            order.verify(broadcastService, timeout(1_000)).broadcastRoomClosed("ABCD", "expired");
+            order.verify(broadcastService, timeout(1_000)).broadcastRoomUpdate("ABCD", reused);
+        } finally {
+            release.countDown();
+            single.shutdown();
+        }
+    }
+
+    @Test
+    void framesOfOneRoomKeepVersionOrder() {
+        RoomBroadcastScheduler immediate = new RoomBroadcastScheduler(broadcastService, 0, 1);
+        try {
+            RoomDTO v1 = room("ABCD", 1);
+            RoomDTO v2 = room("ABCD", 2);
+            immediate.submit(v1);
+            verify(broadcastService, timeout(1_000)).broadcastRoomUpdate("ABCD", v1);
+            immediate.submit(v2);
+            verify(broadcastService, timeout(1_000)).broadcastRoomUpdate("ABCD", v2);
+
+            InOrder order = inOrder(broadcastService);
+            order.verify(broadcastService).broadcastRoomUpdate("ABCD", v1);
+            order.verify(broadcastService).broadcastRoomUpdate("ABCD", v2);
+        } finally {
+            immediate.shutdown();
+        }
+    }
+
+    private static RoomDTO room(String code, long version) {
+        return new RoomDTO(code, List.of(), null, "lobby", "Host", "host@example.com", 2, version);
+    }
+}
@@ -0,0 +1,63 @@
+package com.cluewave.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark comparing {@link RoomCodeAllocator} with the previous
+ * random-and-retry code generator as the 4-character code space fills up.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+class RoomCodeAllocatorBenchmark {
+
+    private static final int SPACE = 1 << 20;
+    private static final int SAMPLE = 10_000;
+
+    @Test
+    void allocationCostStaysFlatAsCodeSpaceFills() {
+        for (double fill : new double[] {0.10, 0.50, 0.90}) {
+            int prefill = (int) (SPACE * fill);
+
+            RoomCodeAllocator allocator = new RoomCodeAllocator(0.95);
+            for (int i = 0; i < prefill; i++) {
+                allocator.allocate();
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < SAMPLE; i++) {
+                assertEquals(4, allocator.allocate().length());
+            }
+            double allocatorNs = (System.nanoTime() - start) / (double) SAMPLE;
+
+            Set<String> taken = new HashSet<>(prefill * 2);
+            Random random = new Random(42);
+            while (taken.size() < prefill) {
+                taken.add(randomCode(random));
+            }
+            start = System.nanoTime();
+            for (int i = 0; i < SAMPLE; i++) {
+                String code;
+                do {
+                    code = randomCode(random);
+                } while (taken.contains(code));
+                taken.add(code);
+            }
+            double retryNs = (System.nanoTime() - start) / (double) SAMPLE;
+
+            System.out.printf("fill %.0f%%: allocator %.1f ns/op, random retry %.1f ns/op%n",
+                    fill * 100, allocatorNs, retryNs);
+        }
+    }
+
+    private static String randomCode(Random random) {
+        StringBuilder sb = new StringBuilder(4);
+        for (int i = 0; i < 4; i++) {
+            sb.append(RoomCodeAllocator.ALPHABET.charAt(random.nextInt(32)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,114 @@
+package com.cluewave.service;
+
+import com.cluewave.cluster.RoomAffinity;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RoomCodeAllocator}.  They cover code format,
+ * recycling of released codes, the switch to 5-character codes,
+ * cluster ownership and uniqueness under concurrent allocation.
+ */
+class RoomCodeAllocatorTest {
+
+    @Test
+    void allocatesFourCharacterCodesFromTheAlphabet() {
+        RoomCodeAllocator allocator = new RoomCodeAllocator(0.75);
+        String code = allocator.allocate();
+
+        assertEquals(4, code.length());
+        for (char c : code.toCharArray()) {
+            assertTrue(RoomCodeAllocator.ALPHABET.indexOf(c) >= 0, "Unexpected character in code: " + c);
+        }
+        assertEquals(1, allocator.allocated());
+    }
+
+    @Test
+    void releasedCodesAreRecycledOnce() {
+        RoomCodeAllocator allocator = new RoomCodeAllocator(0.75);
+        String code = allocator.allocate();
+
+        assertTrue(allocator.release(code));
+        assertFalse(allocator.release(code), "A code cannot be released twice");
+        assertEquals(code, allocator.allocate(), "Released codes should be handed out again");
+        assertFalse(allocator.release("????"), "Codes outside the alphabet are rejected");
+    }
+
+    @Test
+    void reservedCodesAreNeverAllocated() {
+        RoomCodeAllocator allocator = new RoomCodeAllocator(0.75);
+        String code = allocator.allocate();
+        allocator.release(code);
+
+        assertTrue(allocator.reserve(code));
+        assertFalse(allocator.reserve(code));
+        assertNotEquals(code, allocator.allocate(), "A reserved code must not be handed out");
+    }
+
+    @Test
+    void fallsBackToFiveCharactersAboveThreshold() {
+        RoomCodeAllocator allocator = new RoomCodeAllocator(0.001);
+        int shortCodes = (int) Math.ceil(0.001 * (1 << 20));
+        for (int i = 0; i < shortCodes; i++) {
+            assertEquals(4, allocator.allocate().length());
+        }
+        String overflow = allocator.allocate();
+        assertEquals(5, overflow.length(), "Codes should grow once the threshold is reached");
+        assertTrue(allocator.utilization() >= 0.001);
+
+        assertTrue(allocator.release(overflow));
+        assertEquals(shortCodes, allocator.allocated());
+    }
+
+    @Test
+    void clusterNodesOnlyAllocateCodesTheyOwn() {
+        RoomAffinity a = new RoomAffinity("a", "a,b,c");
+        RoomAffinity b = new RoomAffinity("b", "a,b,c");
+        RoomCodeAllocator first = new RoomCodeAllocator(0.75, a);
+        RoomCodeAllocator second = new RoomCodeAllocator(0.75, b);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals("a", a.owner(first.allocate()));
+            assertEquals("b", b.owner(second.allocate()));
+        }
+        assertEquals(1_000 / ((1 << 20) / 3.0), first.utilization(), 1e-6,
+                "Utilization should be measured against the node's share of the code space");
+    }
+
+    @Test
+    void concurrentAllocationsAreUnique() throws Exception {
+        RoomCodeAllocator allocator = new RoomCodeAllocator(0.75);
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 10_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    String code = allocator.allocate();
+                    assertTrue(codes.add(code), "Duplicate code " + code);
+                    if (i % 3 == 0) {
+                        codes.remove(code);
+                        allocator.release(code);
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(codes.size(), allocator.allocated(), "Live code count should match the codes handed out");
+    }
+}
@@ -0,0 +1,88 @@
+package com.cluewave.service;
+
+import com.cluewave.model.GameRoom;
+import com.cluewave.model.Player;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contention benchmark for the per-room single-writer model.  Many caller
+ * threads update player scores spread over a set of rooms, once by mutating
+ * the model directly from the caller threads as the old code path did, and
+ * once through each room's mailbox.  Reports throughput and lost updates.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+class RoomMailboxBenchmark {
+
+    private static final int ROOMS = 256;
+    private static final int CALLERS = Runtime.getRuntime().availableProcessors() * 2;
+    private static final int OPS_PER_CALLER = 200_000;
+
+    @Test
+    void mailboxKeepsUpdatesWithoutLocks() throws Exception {
+        ExecutorService roomExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            Result direct = run(roomExecutor, false);
+            Result mailbox = run(roomExecutor, true);
+            System.out.printf("direct mutation: %.0f ops/s, %d lost updates%n", direct.opsPerSecond, direct.lost);
+            System.out.printf("room mailbox:    %.0f ops/s, %d lost updates%n", mailbox.opsPerSecond, mailbox.lost);
+            assertEquals(0, mailbox.lost, "The mailbox must never lose updates");
+        } finally {
+            roomExecutor.shutdownNow();
+        }
+    }
+
+    private Result run(ExecutorService roomExecutor, boolean viaMailbox) throws Exception {
+        GameRoom[] rooms = new GameRoom[ROOMS];
+        Player[] players = new Player[ROOMS];
+        for (int i = 0; i < ROOMS; i++) {
+            rooms[i] = new GameRoom("R" + i, "Host", "host@example.com", 0, GameRoom.DEFAULT_CAPACITY, roomExecutor);
+            players[i] = new Player("p" + i, "Player", "player" + i + "@example.com");
+        }
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch applied = new CountDownLatch(CALLERS * OPS_PER_CALLER);
+        for (int c = 0; c < CALLERS; c++) {
+            callers.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPS_PER_CALLER; i++) {
+                    int r = random.nextInt(ROOMS);
+                    Player player = players[r];
+                    if (viaMailbox) {
+                        rooms[r].getMailbox().execute(() -> {
+                            player.addScore(1);
+                            applied.countDown();
+                        });
+                    } else {
+                        player.addScore(1);
+                        applied.countDown();
+                    }
+                }
+                return null;
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        assertTrue(applied.await(120, TimeUnit.SECONDS));
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        callers.shutdown();
+
+        long total = 0;
+        for (int i = 0; i < ROOMS; i++) {
+            Player player = players[i];
+            total += rooms[i].getMailbox().ask(player::getScore).join();
+        }
+        long expected = (long) CALLERS * OPS_PER_CALLER;
+        return new Result(expected / seconds, expected - total);
+    }
+
+    private record Result(double opsPerSecond, long lost) {}
+}
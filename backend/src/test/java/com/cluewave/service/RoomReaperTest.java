@@ -0,0 +1,143 @@
+package com.cluewave.service;
+
+import com.cluewave.dto.RoomDTO;
+import com.cluewave.model.GameRoom;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RoomReaper}.  Sweeps are driven with explicit
+ * timestamps so TTL behaviour can be checked without waiting.
+ */
+class RoomReaperTest {
+
+    private static final long LOBBY_TTL = 60_000;
+    private static final long ACTIVE_TTL = 120_000;
+    private static final long FINISHED_TTL = 10_000;
+
+    @Test
+    void idleLobbyIsClosedAndBroadcast() {
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        List<RoomEvent> closed = closedEvents(roomService);
+        RoomReaper reaper = new RoomReaper(roomService, LOBBY_TTL, ACTIVE_TTL, FINISHED_TTL, 1_000);
+
+        RoomDTO dto = roomService.createRoom("Host", "host@example.com");
+        GameRoom room = roomService.findRoom(dto.getCode());
+        long created = room.getLastActivity();
+
+        assertEquals(0, reaper.sweep(created + LOBBY_TTL - 5_000));
+        assertNotNull(roomService.findRoom(dto.getCode()));
+
+        assertEquals(1, reaper.sweep(created + LOBBY_TTL + 1_000));
+        assertNull(roomService.findRoom(dto.getCode()), "Idle lobby should be removed");
+        assertThrows(IllegalArgumentException.class,
+                () -> roomService.joinRoomByEmail("host@example.com", "Guest", "guest@example.com"),
+                "Closed rooms should also leave the host email index");
+        assertEquals(1, closed.size());
+        assertEquals(dto.getCode(), closed.get(0).code());
+        assertEquals("expired", closed.get(0).reason(), "Expired rooms should publish a close event");
+    }
+
+    @Test
+    void activityPushesTheDeadlineBack() {
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        List<RoomEvent> closed = closedEvents(roomService);
+        RoomReaper reaper = new RoomReaper(roomService, LOBBY_TTL, ACTIVE_TTL, FINISHED_TTL, 1_000);
+
+        RoomDTO dto = roomService.createRoom("Host", "host@example.com");
+        GameRoom room = roomService.findRoom(dto.getCode());
+        long created = room.getLastActivity();
+        roomService.startRound(dto.getCode());
+        room.touch(created + 30_000);
+
+        assertEquals(0, reaper.sweep(created + LOBBY_TTL + 1_000), "An active round uses the longer TTL");
+        assertEquals(1, reaper.trackedRooms(), "The timeout should be re-armed for the new deadline");
+        assertEquals(1, reaper.sweep(created + 30_000 + ACTIVE_TTL + 1_000));
+        assertNull(roomService.findRoom(dto.getCode()));
+    }
+
+    @Test
+    void finishedGamesUseTheirOwnTtlAndClosedRoomsAreDropped() {
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        List<RoomEvent> closed = closedEvents(roomService);
+        RoomReaper reaper = new RoomReaper(roomService, LOBBY_TTL, ACTIVE_TTL, FINISHED_TTL, 1_000);
+
+        RoomDTO finished = roomService.createRoom("Host", "host@example.com");
+        RoomDTO lobby = roomService.createRoom("Guest", "guest@example.com");
+        RoomDTO manual = roomService.createRoom("Other", "other@example.com");
+        GameRoom finishedRoom = roomService.findRoom(finished.getCode());
+        GameRoom lobbyRoom = roomService.findRoom(lobby.getCode());
+        long created = finishedRoom.getLastActivity();
+        finishedRoom.setState("finished");
+        finishedRoom.touch(created + 50_000);
+        lobbyRoom.touch(created + 50_000);
+        roomService.closeRoom(manual.getCode());
+
+        assertEquals(1, reaper.sweep(created + LOBBY_TTL + 1_000),
+                "Only the finished game is past its (shorter) TTL");
+        assertNotNull(roomService.findRoom(lobby.getCode()));
+        assertEquals(List.of(manual.getCode(), finished.getCode()), closed.stream().map(RoomEvent::code).toList());
+        assertEquals("closed", closed.get(0).reason());
+        assertEquals("expired", closed.get(1).reason());
+        assertEquals(1, reaper.trackedRooms(), "Only the lobby should still be tracked");
+    }
+
+    @Test
+    void finishingAGameSwitchesToTheFinishedTtl() {
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        RoomReaper reaper = new RoomReaper(roomService, LOBBY_TTL, ACTIVE_TTL, FINISHED_TTL, 1_000);
+
+        String code = roomService.createRoom("Host", "host@example.com").getCode();
+        roomService.startRound(code);
+        roomService.revealRound(code);
+        roomService.finishGame(code);
+        GameRoom room = roomService.findRoom(code);
+        long finished = room.getLastActivity();
+
+        assertEquals(1, reaper.sweep(finished + FINISHED_TTL + 1_000),
+                "The finished game must not wait for the lobby timeout armed at creation");
+        assertNull(roomService.findRoom(code));
+        assertEquals(0, reaper.sweep(finished + LOBBY_TTL + 1_000), "The replaced timeout never fires");
+    }
+
+    @Test
+    void roomClosedDuringASweepIsNotRearmed() {
+        AtomicBoolean closeOnLookup = new AtomicBoolean();
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run) {
+            @Override
+            GameRoom findRoom(String code) {
+                GameRoom room = super.findRoom(code);
+                if (room != null && closeOnLookup.getAndSet(false)) {
+                    // the host closes the room right after the sweep saw it live
+                    closeRoom(room, "closed");
+                }
+                return room;
+            }
+        };
+        RoomReaper reaper = new RoomReaper(roomService, LOBBY_TTL, ACTIVE_TTL, FINISHED_TTL, 1_000);
+
+        String code = roomService.createRoom("Host", "host@example.com").getCode();
+        GameRoom room = roomService.findRoom(code);
+        long created = room.getLastActivity();
+        room.touch(created + 30_000);
+        closeOnLookup.set(true);
+
+        assertEquals(0, reaper.sweep(created + LOBBY_TTL + 1_000));
+        assertEquals(0, reaper.trackedRooms(), "A closed room must not be put back in the wheel");
+    }
+
+    private static List<RoomEvent> closedEvents(RoomService roomService) {
+        List<RoomEvent> closed = new ArrayList<>();
+        roomService.addListener(event -> {
+            if (event.type() == RoomEvent.Type.CLOSED) {
+                closed.add(event);
+            }
+        });
+        return closed;
+    }
+}
@@ -0,0 +1,45 @@
+package com.cluewave.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark for host email lookups in {@link RoomService}.  Lookup latency is
+ * measured with 1k and 100k live rooms; with the host-email index the two
+ * should stay within the same order of magnitude.  Run with
+ * {@code mvn test -Pbenchmark}.
+ */
+class RoomServiceBenchmark {
+
+    private static final int LOOKUPS = 200_000;
+
+    @Test
+    void joinByEmailLookupStaysFlatAsRoomsGrow() {
+        double small = nanosPerLookup(1_000);
+        double large = nanosPerLookup(100_000);
+        System.out.printf("findRoomByHostEmail: %.1f ns/op at 1k rooms, %.1f ns/op at 100k rooms%n",
+                small, large);
+        assertTrue(large < small * 10, "Lookup latency should not scale with the number of rooms");
+    }
+
+    private double nanosPerLookup(int roomCount) {
+        RoomService service = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        for (int i = 0; i < roomCount; i++) {
+            service.createRoom("Host" + i, "host" + i + "@example.com");
+        }
+        String[] emails = new String[1024];
+        for (int i = 0; i < emails.length; i++) {
+            emails[i] = "HOST" + (i * 7919 % roomCount) + "@example.com";
+        }
+        // warm-up pass before timing
+        for (int i = 0; i < LOOKUPS; i++) {
+            assertNotNull(service.findRoomByHostEmail(emails[i & 1023]));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            service.findRoomByHostEmail(emails[i & 1023]);
+        }
+        return (System.nanoTime() - start) / (double) LOOKUPS;
+    }
+}
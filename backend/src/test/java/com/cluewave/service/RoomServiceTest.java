@@ -1,20 +1,28 @@
 package com.cluewave.service;
 
+import com.cluewave.dto.GuessDTO;
 import com.cluewave.dto.PlayerDTO;
 import com.cluewave.dto.RoomDTO;
 import com.cluewave.dto.RoundDTO;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * Unit tests for the {@link RoomService} class.  These tests exercise the core
  * business logic around creating rooms, joining rooms by code or email,
- * limiting the number of players and starting rounds.  They do not rely on
+ * limiting the number of players, starting rounds and scoring guesses.  They do not rely on
  * Spring infrastructure and can be executed as plain JUnit 5 tests.
  */
 public class RoomServiceTest {
@@ -25,7 +33,7 @@ public class RoomServiceTest {
      */
     @Test
     void createRoomCreatesHost() {
-        RoomService roomService = new RoomService();
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
         RoomDTO dto = roomService.createRoom("Alice", "alice@example.com");
 
         assertNotNull(dto.getCode(), "Room code should not be null");
@@ -45,12 +53,12 @@ public class RoomServiceTest {
      */
     @Test
     void joinRoomAddsPlayerAndEnforcesLimit() {
-        RoomService roomService = new RoomService();
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
         RoomDTO dto = roomService.createRoom("Host", "host@example.com");
         String code = dto.getCode();
 
         // join first guest
-        PlayerDTO p1 = roomService.joinRoom(code, "Bob");
+        PlayerDTO p1 = roomService.joinRoom(code, "Bob", "bob@example.com");
         assertNotNull(p1.getId(), "Joining player should have a generated ID");
         assertEquals("Bob", p1.getName(), "Joining player's name should match");
 
@@ -60,7 +68,7 @@ public class RoomServiceTest {
 
         // Attempt to add third player should throw exception
         IllegalStateException ex = assertThrows(IllegalStateException.class,
-                () -> roomService.joinRoom(code, "Charlie"),
+                () -> roomService.joinRoom(code, "Charlie", "charlie@example.com"),
                 "Joining a full room should throw an exception");
         assertEquals("Room is full", ex.getMessage());
     }
@@ -72,35 +80,36 @@ public class RoomServiceTest {
      */
     @Test
     void joinRoomByEmailFindsRoom() {
-        RoomService roomService = new RoomService();
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
         RoomDTO dto = roomService.createRoom("Host", "host@game.com");
 
         // Join by host email
-        RoomDTO updated = roomService.joinRoomByEmail("host@game.com", "Guest");
+        RoomDTO updated = roomService.joinRoomByEmail("host@game.com", "Guest", "guest@example.com");
         assertEquals(2, updated.getPlayers().size(), "Room should have two players after joining by email");
         assertEquals(dto.getCode(), updated.getCode(), "Room code should remain unchanged");
 
         // Non‑existent email
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
-                () -> roomService.joinRoomByEmail("none@game.com", "Test"),
+                () -> roomService.joinRoomByEmail("none@game.com", "Test", "test@example.com"),
                 "Joining with an unknown host email should throw an exception");
         assertTrue(ex.getMessage().contains("Room not found"));
     }
 
     /**
-     * Starting a round should initialise the round with placeholder prompts,
-     * set the room state to "in_round" and leave the round unrevealed.  The
-     * returned {@link RoundDTO} should reflect these values.
+     * Starting a round should initialise the round with a prompt pair dealt
+     * from the bundled catalog, set the room state to "in_round" and leave the
+     * round unrevealed.  The returned {@link RoundDTO} should reflect these values.
      */
     @Test
     void startRoundInitialisesRound() {
-        RoomService roomService = new RoomService();
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
         RoomDTO dto = roomService.createRoom("Host", "host@example.com");
 
         RoundDTO round = roomService.startRound(dto.getCode());
         assertNotNull(round, "startRound should return a non‑null RoundDTO");
-        assertEquals("Froid", round.getPromptLeft(), "Prompt left should be the placeholder value");
-        assertEquals("Chaud", round.getPromptRight(), "Prompt right should be the placeholder value");
+        assertFalse(round.getPromptLeft().isBlank(), "Prompt left should come from the catalog");
+        assertFalse(round.getPromptRight().isBlank(), "Prompt right should come from the catalog");
+        assertNotEquals(round.getPromptLeft(), round.getPromptRight());
         assertFalse(round.isRevealed(), "New rounds should not be revealed");
 
         RoomDTO state = roomService.getRoomState(dto.getCode());
@@ -115,7 +124,7 @@ public class RoomServiceTest {
      */
     @Test
     void generatedCodesAreUnique() {
-        RoomService service = new RoomService();
+        RoomService service = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
         Set<String> codes = new HashSet<>();
         for (int i = 0; i < 100; i++) {
             RoomDTO dto = service.createRoom("Host" + i, "host" + i + "@example.com");
@@ -123,4 +132,287 @@ public class RoomServiceTest {
         }
         assertEquals(100, codes.size(), "All room codes should be unique");
     }
-}
\ No newline at end of file
+
+    /**
+     * When a host owns several rooms, joining by email should target the most
+     * recently created one, match the email case-insensitively and stop
+     * resolving a room once it has been closed.
+     */
+    @Test
+    void joinRoomByEmailUsesNewestLiveRoom() {
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        RoomDTO first = roomService.createRoom("Host", "host@game.com");
+        RoomDTO second = roomService.createRoom("Host", "host@game.com");
+
+        RoomDTO joined = roomService.joinRoomByEmail("  HOST@Game.com ", "Guest", "guest@example.com");
+        assertEquals(second.getCode(), joined.getCode(), "Join by email should pick the newest room");
+
+        roomService.closeRoom(second.getCode());
+        RoomDTO fallback = roomService.joinRoomByEmail("host@game.com", "Other", "other@example.com");
+        assertEquals(first.getCode(), fallback.getCode(), "Closing a room should fall back to the host's older room");
+
+        roomService.closeRoom(first.getCode());
+        assertThrows(IllegalArgumentException.class,
+                () -> roomService.joinRoomByEmail("host@game.com", "Late", "late@example.com"),
+                "No room should be found once all of the host's rooms are closed");
+    }
+
+    /**
+     * Joins racing from many request threads are serialized through the
+     * room's mailbox, so the two-player limit holds under contention.
+     */
+    @Test
+    void concurrentJoinsNeverOverfillRoom() throws Exception {
+        ExecutorService roomExecutor = Executors.newFixedThreadPool(4);
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        try {
+            RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), roomExecutor);
+            String code = roomService.createRoom("Host", "host@example.com").getCode();
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger joined = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                String name = "Guest" + i;
+                futures.add(callers.submit(() -> {
+                    start.await();
+                    try {
+                        roomService.joinRoom(code, name, name + "@example.com");
+                        joined.incrementAndGet();
+                    } catch (IllegalStateException full) {
+                        // expected for all but one guest
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(10, TimeUnit.SECONDS);
+            }
+
+            assertEquals(1, joined.get(), "Exactly one guest should get the free seat");
+            assertEquals(2, roomService.getRoomState(code).getPlayers().size());
+        } finally {
+            callers.shutdownNow();
+            roomExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Party rooms take their capacity from the create call.  Concurrent joins
+     * reserve seats atomically, so exactly {@code capacity - 1} guests get in
+     * and everyone else is told the room is full.
+     */
+    @Test
+    void largeRoomCapacityIsNeverExceeded() throws Exception {
+        ExecutorService roomExecutor = Executors.newFixedThreadPool(4);
+        ExecutorService callers = Executors.newFixedThreadPool(32);
+        try {
+            RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), roomExecutor);
+            RoomDTO created = roomService.createRoom("Host", "host@example.com", 64);
+            assertEquals(64, created.getCapacity());
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger joined = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String name = "Guest" + i;
+                futures.add(callers.submit(() -> {
+                    start.await();
+                    try {
+                        roomService.joinRoom(created.getCode(), name, name + "@example.com");
+                        joined.incrementAndGet();
+                    } catch (IllegalStateException full) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(10, TimeUnit.SECONDS);
+            }
+
+            assertEquals(63, joined.get());
+            assertEquals(137, rejected.get());
+            assertEquals(64, roomService.getRoomState(created.getCode()).getPlayers().size());
+        } finally {
+            callers.shutdownNow();
+            roomExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Capacities outside the supported 2 to 64 range are rejected.
+     */
+    @Test
+    void createRoomRejectsUnsupportedCapacity() {
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        assertThrows(IllegalArgumentException.class, () -> roomService.createRoom("Host", "host@example.com", 1));
+        assertThrows(IllegalArgumentException.class, () -> roomService.createRoom("Host", "host@example.com", 65));
+        assertEquals(2, roomService.createRoom("Host", "host@example.com").getCapacity(),
+                "Rooms default to two seats");
+    }
+
+    /**
+     * Reads between mutations share one immutable snapshot; each mutation
+     * bumps the room version and the next read builds a fresh snapshot.
+     */
+    @Test
+    void roomStateIsCachedPerVersion() {
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        RoomDTO created = roomService.createRoom("Host", "host@example.com");
+        String code = created.getCode();
+
+        RoomDTO first = roomService.getRoomState(code);
+        assertSame(first, roomService.getRoomState(code), "Unchanged rooms should reuse the snapshot");
+        assertThrows(UnsupportedOperationException.class, () -> first.getPlayers().clear(),
+                "Snapshots must be immutable");
+
+        roomService.joinRoom(code, "Guest", "guest@example.com");
+        RoomDTO afterJoin = roomService.getRoomState(code);
+        assertNotSame(first, afterJoin);
+        assertEquals(first.getVersion() + 1, afterJoin.getVersion());
+        assertEquals(2, afterJoin.getPlayers().size());
+        assertEquals(1, first.getPlayers().size(), "Older snapshots are not affected by later changes");
+
+        roomService.startRound(code);
+        assertEquals(afterJoin.getVersion() + 1, roomService.getRoomState(code).getVersion());
+    }
+
+    /**
+     * Every committed change publishes one event carrying the snapshot of
+     * the version it produced.  A rejected join commits nothing and so
+     * publishes nothing.
+     */
+    @Test
+    void committedChangesPublishEventsInVersionOrder() {
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        List<RoomEvent> events = new ArrayList<>();
+        roomService.addListener(events::add);
+
+        String code = roomService.createRoom("Host", "host@example.com").getCode();
+        roomService.joinRoom(code, "Guest", "guest@example.com");
+        assertThrows(IllegalStateException.class, () -> roomService.joinRoom(code, "Late", "late@example.com"));
+        roomService.startRound(code);
+        roomService.closeRoom(code);
+
+        assertEquals(List.of(RoomEvent.Type.CREATED, RoomEvent.Type.PLAYER_JOINED,
+                        RoomEvent.Type.ROUND_STARTED, RoomEvent.Type.CLOSED),
+                events.stream().map(RoomEvent::type).toList());
+        assertEquals(List.of(1L, 2L, 3L), events.subList(0, 3).stream()
+                .map(e -> e.snapshot().getVersion()).toList());
+        assertEquals("in_round", events.get(2).snapshot().getState());
+    }
+
+    /**
+     * Revealing scores every seated player once against the round's target,
+     * publishes a single ROUND_REVEALED event and rejects later guesses.
+     */
+    @Test
+    void revealScoresEveryGuessInOnePass() {
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        List<RoomEvent> events = new ArrayList<>();
+        roomService.addListener(events::add);
+        RoomDTO created = roomService.createRoom("Host", "host@example.com", 4);
+        String code = created.getCode();
+        String host = created.getPlayers().get(0).getId();
+        String near = roomService.joinRoom(code, "Near", "near@example.com").getId();
+        String silent = roomService.joinRoom(code, "Silent", "silent@example.com").getId();
+        roomService.startRound(code);
+        roomService.findRoom(code).getCurrentRound().setTargetPosition(0.5);
+
+        roomService.submitGuess(code, host, 0.9, false, "host@example.com");
+        roomService.submitGuess(code, near, 0.2, false, "near@example.com");
+        roomService.submitGuess(code, near, 0.52, true, "near@example.com");
+        events.clear();
+        RoundDTO round = roomService.revealRound(code);
+
+        assertTrue(round.isRevealed());
+        assertEquals(0.5, round.getTargetPosition());
+        assertEquals(3, round.getResults().size());
+        GuessDTO nearResult = result(round, near);
+        assertEquals(0.52, nearResult.getPosition());
+        assertEquals(4, nearResult.getPoints(), "A guess right next to the target scores the most");
+        assertEquals(0, result(round, host).getPoints(), "A guess outside the scoring width scores nothing");
+        assertNull(result(round, silent).getPosition(), "A player who did not guess has no position");
+        assertEquals(List.of(RoomEvent.Type.ROUND_REVEALED), events.stream().map(RoomEvent::type).toList());
+        assertEquals(4, roomService.getRoomState(code).getPlayers().stream()
+                .filter(p -> p.getId().equals(near)).findFirst().orElseThrow().getScore());
+        assertThrows(IllegalStateException.class,
+                () -> roomService.submitGuess(code, host, 0.5, false, "host@example.com"));
+        assertThrows(IllegalStateException.class, () -> roomService.revealRound(code));
+    }
+
+    /**
+     * A locked guess cannot be changed, and guesses outside a round or the
+     * slider's range are rejected.
+     */
+    @Test
+    void guessesAreValidated() {
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        RoomDTO created = roomService.createRoom("Host", "host@example.com");
+        String code = created.getCode();
+        String host = created.getPlayers().get(0).getId();
+
+        assertThrows(IllegalStateException.class,
+                () -> roomService.submitGuess(code, host, 0.5, false, "host@example.com"),
+                "No guesses before a round starts");
+        roomService.startRound(code);
+        assertThrows(IllegalArgumentException.class,
+                () -> roomService.submitGuess(code, host, 1.5, false, "host@example.com"));
+        assertThrows(IllegalArgumentException.class,
+                () -> roomService.submitGuess(code, "nobody", 0.5, false, "host@example.com"));
+        roomService.submitGuess(code, host, 0.3, true, "host@example.com");
+        IllegalStateException locked = assertThrows(IllegalStateException.class,
+                () -> roomService.submitGuess(code, host, 0.6, false, "host@example.com"));
+        assertEquals("Guess already locked", locked.getMessage());
+    }
+
+    /**
+     * A player taking over a seat freed mid-round does not inherit the
+     * previous player's guess.
+     */
+    @Test
+    void reusedSeatStartsWithoutAGuess() {
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        String code = roomService.createRoom("Host", "host@example.com").getCode();
+        String leaving = roomService.joinRoom(code, "Leaving", "leaving@example.com").getId();
+        roomService.startRound(code);
+        roomService.submitGuess(code, leaving, 0.5, true, "leaving@example.com");
+        roomService.removePlayer(code, leaving);
+        String newcomer = roomService.joinRoom(code, "Newcomer", "newcomer@example.com").getId();
+
+        RoundDTO round = roomService.revealRound(code);
+
+        assertNull(result(round, newcomer).getPosition());
+        assertTrue(round.getResults().stream().noneMatch(r -> r.getPlayerId().equals(leaving)));
+    }
+
+    /**
+     * A game can only finish after a revealed round, finishes once, and
+     * starts no further rounds.
+     */
+    @Test
+    void finishingAGameEndsItWithItsScores() {
+        RoomService roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        String code = roomService.createRoom("Host", "host@example.com").getCode();
+        List<RoomEvent.Type> events = new ArrayList<>();
+        roomService.addListener(event -> events.add(event.type()));
+
+        assertThrows(IllegalStateException.class, () -> roomService.finishGame(code), "Nothing played yet");
+        roomService.startRound(code);
+        assertThrows(IllegalStateException.class, () -> roomService.finishGame(code), "Round not revealed");
+        roomService.revealRound(code);
+
+        RoomDTO finished = roomService.finishGame(code);
+        assertEquals("finished", finished.getState());
+        assertNotNull(finished.getCurrentRound().getResults());
+        assertEquals(RoomEvent.Type.GAME_FINISHED, events.get(events.size() - 1));
+        assertThrows(IllegalStateException.class, () -> roomService.finishGame(code));
+        assertThrows(IllegalStateException.class, () -> roomService.startRound(code));
+    }
+
+    private static GuessDTO result(RoundDTO round, String playerId) {
+        return round.getResults().stream().filter(r -> r.getPlayerId().equals(playerId)).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,101 @@
+package com.cluewave.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput benchmark for guesses and reveals in {@link RoomService}.  Caller
+ * threads play full rounds (start, eight lock-free guesses, reveal) on a set of
+ * rooms of eight players, with rooms running on virtual-thread mailboxes and a
+ * listener counting one broadcast per reveal.  Reports guesses and reveals per
+ * second.  Run with {@code mvn test -Pbenchmark}.
+ */
+class RoundRevealBenchmark {
+
+    private static final int ROOMS = 512;
+    private static final int PLAYERS = 8;
+    private static final int CALLERS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final int ROUNDS_PER_CALLER = 10_000;
+
+    @Test
+    void revealsPerSecond() throws Exception {
+        ExecutorService roomExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            RoomService service = new RoomService(new RoomCodeAllocator(0.75), roomExecutor);
+            AtomicLong reveals = new AtomicLong();
+            service.addListener(event -> {
+                if (event.type() == RoomEvent.Type.ROUND_REVEALED) {
+                    reveals.incrementAndGet();
+                }
+            });
+            String[] codes = new String[ROOMS];
+            String[][] players = new String[ROOMS][PLAYERS];
+            String[] accounts = new String[ROOMS];
+            for (int r = 0; r < ROOMS; r++) {
+                // every seat of a room is played from the host's account
+                accounts[r] = "host" + r + "@example.com";
+                var room = service.createRoom("Host", accounts[r], PLAYERS);
+                codes[r] = room.getCode();
+                players[r][0] = room.getPlayers().get(0).getId();
+                for (int p = 1; p < PLAYERS; p++) {
+                    players[r][p] = service.joinRoom(codes[r], "P" + p, accounts[r]).getId();
+                }
+            }
+            play(service, codes, players, accounts, ROUNDS_PER_CALLER / 10);
+            reveals.set(0);
+
+            long start = System.nanoTime();
+            long rounds = play(service, codes, players, accounts, ROUNDS_PER_CALLER);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%d callers, %d rooms of %d: %.0f reveals/s, %.0f guesses/s%n",
+                    CALLERS, ROOMS, PLAYERS, rounds / seconds, rounds * PLAYERS / seconds);
+            assertEquals(rounds, reveals.get(), "Every reveal should publish exactly one event");
+        } finally {
+            roomExecutor.shutdownNow();
+        }
+    }
+
+    // Each caller owns its own slice of rooms, so rounds never collide.
+    private long play(RoomService service, String[] codes, String[][] players,
+                      String[] accounts, int rounds) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Long>> done = new ArrayList<>();
+            for (int c = 0; c < CALLERS; c++) {
+                int caller = c;
+                done.add(callers.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    int owned = ROOMS / CALLERS;
+                    long played = 0;
+                    for (int i = 0; i < rounds; i++) {
+                        int r = caller + (i % owned) * CALLERS;
+                        service.startRound(codes[r]);
+                        for (String player : players[r]) {
+                            service.submitGuess(codes[r], player, random.nextDouble(), true, accounts[r]);
+                        }
+                        service.revealRound(codes[r]);
+                        played++;
+                    }
+                    return played;
+                }));
+            }
+            long played = 0;
+            for (Future<Long> f : done) {
+                played += f.get();
+            }
+            return played;
+        } finally {
+            callers.shutdown();
+        }
+    }
+}
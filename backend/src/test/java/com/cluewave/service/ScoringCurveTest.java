@@ -0,0 +1,47 @@
+package com.cluewave.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ScoringCurve}: every curve gives the most points on
+ * the target, never gains points further away and reaches zero at the
+ * configured width.
+ */
+class ScoringCurveTest {
+
+    @Test
+    void bandsLoseOnePointPerBand() {
+        ScoringCurve curve = new ScoringCurve("bands", 4, 0.2);
+
+        assertEquals(4, curve.points(0));
+        assertEquals(4, curve.points(0.04));
+        assertEquals(3, curve.points(0.06));
+        assertEquals(1, curve.points(0.19));
+        assertEquals(0, curve.points(0.2));
+        assertEquals(0, curve.points(1));
+    }
+
+    @Test
+    void curvesFallOffMonotonically() {
+        for (String name : new String[] {"bands", "linear", "gaussian"}) {
+            ScoringCurve curve = new ScoringCurve(name, 10, 0.3);
+            assertEquals(10, curve.points(0), name);
+            int previous = Integer.MAX_VALUE;
+            for (double d = 0; d <= 1; d += 0.01) {
+                int points = curve.points(d);
+                assertTrue(points <= previous, name + " gained points at distance " + d);
+                previous = points;
+            }
+            assertEquals(0, curve.points(0.31), name);
+        }
+    }
+
+    @Test
+    void rejectsBadSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new ScoringCurve("cubic", 4, 0.25));
+        assertThrows(IllegalArgumentException.class, () -> new ScoringCurve("bands", 0, 0.25));
+        assertThrows(IllegalArgumentException.class, () -> new ScoringCurve("bands", 4, 0));
+    }
+}
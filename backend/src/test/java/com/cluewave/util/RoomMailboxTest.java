@@ -0,0 +1,66 @@
+package com.cluewave.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RoomMailbox}.  Commands submitted from many threads
+ * must run one at a time and in submission order per thread.
+ */
+class RoomMailboxTest {
+
+    @Test
+    void commandsNeverOverlap() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        RoomMailbox mailbox = new RoomMailbox(pool);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        int[] counter = new int[1];
+        int threads = 8;
+        int perThread = 5_000;
+        CountDownLatch done = new CountDownLatch(threads * perThread);
+
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    mailbox.execute(() -> {
+                        if (running.incrementAndGet() > 1) {
+                            overlaps.incrementAndGet();
+                        }
+                        counter[0]++;
+                        running.decrementAndGet();
+                        done.countDown();
+                    });
+                }
+            });
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get(), "Commands of one mailbox must never run concurrently");
+        assertEquals(threads * perThread, mailbox.ask(() -> counter[0]).join(),
+                "Unsynchronized state written only by the mailbox must not lose updates");
+        pool.shutdown();
+    }
+
+    @Test
+    void askReturnsResultsAndPropagatesFailures() {
+        RoomMailbox mailbox = new RoomMailbox(Runnable::run);
+
+        assertEquals(42, mailbox.ask(() -> 42).join());
+        CompletableFuture<Object> failed = mailbox.ask(() -> {
+            throw new IllegalStateException("Room is full");
+        });
+        CompletionException ex = assertThrows(CompletionException.class, failed::join);
+        assertInstanceOf(IllegalStateException.class, ex.getCause());
+        assertEquals(0, mailbox.pending());
+    }
+}
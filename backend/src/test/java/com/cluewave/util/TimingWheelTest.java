@@ -0,0 +1,52 @@
+package com.cluewave.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link TimingWheel}.  Time is driven explicitly so the
+ * tests are deterministic.
+ */
+class TimingWheelTest {
+
+    @Test
+    void firesTimeoutsOnlyOnceTheirDeadlinePasses() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+        wheel.schedule("soon", 250);
+        wheel.schedule("later", 5_000);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(200, fired::add);
+        assertTrue(fired.isEmpty(), "Nothing should fire before its deadline");
+
+        wheel.advance(300, fired::add);
+        assertEquals(List.of("soon"), fired);
+
+        // "later" is several revolutions away and must survive the intermediate sweeps
+        wheel.advance(4_900, fired::add);
+        assertEquals(List.of("soon"), fired);
+        wheel.advance(5_000, fired::add);
+        assertEquals(List.of("soon", "later"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledAndOverdueTimeoutsAreHandled() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 1_000);
+        TimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 1_200);
+        wheel.schedule("overdue", 500);
+        cancelled.cancel();
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(1_100, fired::add);
+        assertEquals(List.of("overdue"), fired, "Deadlines already in the past should fire on the next tick");
+
+        wheel.advance(10_000, fired::add);
+        assertEquals(List.of("overdue"), fired, "Cancelled timeouts must never fire");
+        assertEquals(0, wheel.size());
+    }
+}
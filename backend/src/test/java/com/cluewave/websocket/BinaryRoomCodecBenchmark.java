@@ -0,0 +1,56 @@
+package com.cluewave.websocket;
+
+import com.cluewave.dto.PlayerDTO;
+import com.cluewave.dto.RoomDTO;
+import com.cluewave.dto.RoundDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compares frame size and encoding time of {@link BinaryRoomCodec} with
+ * Jackson JSON for full rooms of several sizes.  Run with
+ * {@code mvn test -Pbenchmark}.
+ */
+class BinaryRoomCodecBenchmark {
+
+    private static final int ITERATIONS = 100_000;
+
+    @Test
+    void binaryFramesAreSmallerAndCheaper() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        long sink = 0;
+        for (int size : new int[] {2, 8, 64}) {
+            RoomDTO room = room(size);
+            for (int pass = 0; pass < 2; pass++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    sink += mapper.writeValueAsBytes(room).length;
+                }
+                double jsonNs = (System.nanoTime() - start) / (double) ITERATIONS;
+                start = System.nanoTime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    sink += BinaryRoomCodec.encode(room).length;
+                }
+                double binaryNs = (System.nanoTime() - start) / (double) ITERATIONS;
+                if (pass == 1) {
+                    System.out.printf("%2d players: json %d bytes %.0f ns, binary %d bytes %.0f ns (sink %d)%n",
+                            size, mapper.writeValueAsBytes(room).length, jsonNs,
+                            BinaryRoomCodec.encode(room).length, binaryNs, sink);
+                }
+            }
+        }
+    }
+
+    private static RoomDTO room(int size) {
+        List<PlayerDTO> players = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            players.add(new PlayerDTO(UUID.randomUUID().toString(), "Player" + i, i * 10));
+        }
+        return new RoomDTO("ABCD", players, new RoundDTO("Froid", "Chaud", false), "in_round",
+                "Player0", "host@example.com", 64, 17);
+    }
+}
@@ -0,0 +1,81 @@
+package com.cluewave.websocket;
+
+import com.cluewave.dto.PlayerDTO;
+import com.cluewave.dto.RoomClosedDTO;
+import com.cluewave.dto.RoomDTO;
+import com.cluewave.dto.RoomPatchDTO;
+import com.cluewave.dto.RoundDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BinaryRoomCodec}.  Checks the exact layout of small
+ * frames and that real rooms encode far smaller than their JSON.
+ */
+class BinaryRoomCodecTest {
+
+    @Test
+    void closedFrameLayout() {
+        byte[] bytes = BinaryRoomCodec.encode(new RoomClosedDTO("ABCD", "expired"));
+
+        assertEquals(BinaryRoomCodec.FORMAT_VERSION, bytes[0], "Every frame starts with the format version");
+        assertEquals(BinaryRoomCodec.CLOSED, bytes[1]);
+        assertEquals(5, bytes[2], "Strings are prefixed by their length + 1");
+        assertEquals("ABCD", new String(bytes, 3, 4, StandardCharsets.US_ASCII));
+        assertEquals(8, bytes[7]);
+        assertEquals("expired", new String(bytes, 8, 7, StandardCharsets.US_ASCII));
+        assertEquals(15, bytes.length);
+    }
+
+    @Test
+    void patchOnlyCarriesPresentFields() {
+        String id = "3f1c2a9e-0000-4000-8000-000000000001";
+        RoomPatchDTO patch = new RoomPatchDTO("ABCD", 300, 301, null, null,
+                List.of(new PlayerDTO(id, "P", -1)), null);
+
+        byte[] bytes = BinaryRoomCodec.encode(patch);
+
+        assertEquals(BinaryRoomCodec.FORMAT_VERSION, bytes[0]);
+        assertEquals(BinaryRoomCodec.PATCH, bytes[1]);
+        // code (5 bytes), fromVersion 300 and version 301 as two-byte varints
+        assertEquals((byte) 0xAC, bytes[7]);
+        assertEquals(0x02, bytes[8]);
+        assertEquals((byte) 0xAD, bytes[9]);
+        assertEquals(0x02, bytes[10]);
+        assertEquals(BinaryRoomCodec.HAS_PLAYERS, bytes[11]);
+        assertEquals(1, bytes[12], "One changed player");
+        assertEquals(0, bytes[13], "UUID ids are sent as 16 raw bytes");
+        assertEquals(UUID.fromString(id).getMostSignificantBits() >>> 56, bytes[14] & 0xFF);
+        assertEquals(0, bytes[bytes.length - 2], "Present players carry a zero away byte");
+        assertEquals(1, bytes[bytes.length - 1], "Score -1 is zigzag encoded as 1");
+        assertEquals(14 + 16 + 2 + 1 + 1, bytes.length);
+    }
+
+    @Test
+    void fullRoomIsMuchSmallerThanJson() throws Exception {
+        List<PlayerDTO> players = List.of(
+                new PlayerDTO(UUID.randomUUID().toString(), "Alice", 12),
+                new PlayerDTO(UUID.randomUUID().toString(), "Bob", 7),
+                new PlayerDTO("custom-id", "Carol", 0));
+        RoomDTO room = new RoomDTO("ABCD", players, new RoundDTO("Froid", "Chaud", false), "in_round",
+                "Alice", "alice@example.com", 8, 42);
+
+        byte[] binary = BinaryRoomCodec.encode(room);
+        byte[] json = new ObjectMapper().writeValueAsBytes(room);
+
+        assertEquals(BinaryRoomCodec.FULL, binary[1]);
+        assertTrue(binary.length * 2 < json.length,
+                "binary " + binary.length + " bytes vs json " + json.length + " bytes");
+    }
+
+    @Test
+    void unknownFramesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> BinaryRoomCodec.encode("not a frame"));
+    }
+}
@@ -0,0 +1,141 @@
+package com.cluewave.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for {@link FrameCompressionInterceptor}.  Compressed bodies are
+ * inflated again the way a permessage-deflate client would, by appending the
+ * removed 00 00 FF FF tail.
+ */
+class FrameCompressionInterceptorTest {
+
+    private final MessageChannel channel = mock(MessageChannel.class);
+
+    @Test
+    void largeBodiesAreDeflatedOnceAndShared() throws Exception {
+        FrameCompressionInterceptor interceptor = new FrameCompressionInterceptor("frame", 256, false, 6);
+        connect(interceptor, "a", "gzip, deflate");
+        connect(interceptor, "b", "deflate");
+        byte[] body = roomJson(40);
+
+        Message<?> first = interceptor.preSend(frame(body, "a"), channel);
+        Message<?> second = interceptor.preSend(frame(body, "b"), channel);
+
+        assertEquals("deflate", StompHeaderAccessor.wrap(first).getFirstNativeHeader("content-encoding"));
+        assertEquals(MimeTypeUtils.APPLICATION_OCTET_STREAM, first.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        assertSame(first.getPayload(), second.getPayload(), "A shared body should be deflated only once");
+        assertArrayEquals(body, inflate(new Inflater(true), (byte[]) first.getPayload()));
+        assertTrue(interceptor.ratio() < 0.5, "Room JSON should compress well, ratio " + interceptor.ratio());
+        assertEquals(2, interceptor.framesCompressed());
+    }
+
+    @Test
+    void smallBodiesAndOtherSessionsAreLeftAlone() {
+        FrameCompressionInterceptor interceptor = new FrameCompressionInterceptor("frame", 256, false, 6);
+        connect(interceptor, "a", "deflate");
+        connect(interceptor, "plain", null);
+        Message<byte[]> small = frame("{\"code\":\"ABCD\"}".getBytes(StandardCharsets.UTF_8), "a");
+        Message<byte[]> large = frame(roomJson(40), "plain");
+
+        assertSame(small, interceptor.preSend(small, channel));
+        assertSame(large, interceptor.preSend(large, channel));
+        assertEquals(1, interceptor.framesSkipped());
+        assertFalse(interceptor.isCompressing("plain"));
+    }
+
+    @Test
+    void contextTakeoverKeepsOneStreamPerSession() throws Exception {
+        FrameCompressionInterceptor interceptor = new FrameCompressionInterceptor("frame", 64, true, 6);
+        connect(interceptor, "a", "deflate");
+        byte[] body = roomJson(20);
+
+        byte[] first = (byte[]) interceptor.preSend(frame(body, "a"), channel).getPayload();
+        byte[] second = (byte[]) interceptor.preSend(frame(body.clone(), "a"), channel).getPayload();
+
+        assertTrue(second.length < first.length / 4, "A repeated body should mostly refer back to the window");
+        Inflater inflater = new Inflater(true);
+        assertArrayEquals(body, inflate(inflater, first));
+        assertArrayEquals(body, inflate(inflater, second));
+    }
+
+    @Test
+    void disconnectReleasesTheSession() {
+        FrameCompressionInterceptor interceptor = new FrameCompressionInterceptor("frame", 64, true, 6);
+        connect(interceptor, "a", "deflate");
+
+        StompHeaderAccessor disconnect = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        disconnect.setSessionId("a");
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], disconnect.getMessageHeaders()), channel);
+
+        assertFalse(interceptor.isCompressing("a"));
+    }
+
+    @Test
+    void onlyFrameModeCompresses() {
+        FrameCompressionInterceptor interceptor = new FrameCompressionInterceptor("native", 0, false, 6);
+        connect(interceptor, "a", "deflate");
+
+        assertFalse(interceptor.isCompressing("a"));
+        assertThrows(IllegalArgumentException.class, () -> new FrameCompressionInterceptor("gzip", 0, false, 6));
+        assertThrows(IllegalArgumentException.class, () -> new FrameCompressionInterceptor("frame", 0, false, 0));
+    }
+
+    private void connect(FrameCompressionInterceptor interceptor, String sessionId, String accept) {
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setSessionId(sessionId);
+        if (accept != null) {
+            connect.setNativeHeader(FrameCompressionInterceptor.ACCEPT_HEADER, accept);
+        }
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()), channel);
+    }
+
+    private static Message<byte[]> frame(byte[] body, String sessionId) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setDestination("/topic/room/ABCD");
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(body, headers.getMessageHeaders());
+    }
+
+    private static byte[] inflate(Inflater inflater, byte[] deflated) throws Exception {
+        byte[] input = new byte[deflated.length + 4];
+        System.arraycopy(deflated, 0, input, 0, deflated.length);
+        input[input.length - 2] = (byte) 0xFF;
+        input[input.length - 1] = (byte) 0xFF;
+        inflater.setInput(input);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = inflater.inflate(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] roomJson(int players) {
+        StringBuilder json = new StringBuilder("{\"code\":\"ABCD\",\"state\":\"in_round\",\"players\":[");
+        for (int i = 0; i < players; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"id\":\"3f1c2a9e-0000-4000-8000-").append(String.format("%012d", i))
+                    .append("\",\"name\":\"Player").append(i).append("\",\"score\":").append(i * 7)
+                    .append(",\"away\":false}");
+        }
+        return json.append("],\"version\":12}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,155 @@
+package com.cluewave.websocket;
+
+import com.cluewave.auth.model.User;
+import com.cluewave.auth.security.UserPrincipal;
+import com.cluewave.cluster.RoomRouter;
+import com.cluewave.dto.PlayerDTO;
+import com.cluewave.dto.RoomDTO;
+import com.cluewave.service.RoomCodeAllocator;
+import com.cluewave.service.RoomEvent;
+import com.cluewave.service.RoomService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link PresenceTracker}.  Disconnects and sweeps are driven
+ * with explicit timestamps so the grace period can be checked without waiting.
+ */
+class PresenceTrackerTest {
+
+    private static final long GRACE = 30_000;
+
+    private RoomService roomService;
+    private PresenceTracker tracker;
+    private final List<RoomEvent> events = new ArrayList<>();
+    private String code;
+    private String playerId;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        roomService = new RoomService(new RoomCodeAllocator(0.75), Runnable::run);
+        roomService.addListener(events::add);
+        tracker = new PresenceTracker(RoomRouter.local(roomService), GRACE, 1_000);
+        code = roomService.createRoom("Host", "host@example.com", 2).getCode();
+        playerId = roomService.joinRoom(code, "Guest", "guest@example.com").getId();
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    void disconnectMarksAwayAndReleasesTheSeatAfterGrace() {
+        tracker.bind("s1", code, playerId, now);
+        tracker.disconnected("s1", now);
+
+        assertTrue(player().isAway());
+        assertEquals(RoomEvent.Type.PLAYER_PRESENCE, events.get(events.size() - 1).type());
+        assertThrows(IllegalStateException.class, () -> roomService.joinRoom(code, "Late", "late@example.com"));
+
+        assertEquals(0, tracker.sweep(now + GRACE - 2_000), "Still within the grace period");
+        assertEquals(1, tracker.sweep(now + GRACE + 1_000));
+
+        assertEquals(1, roomService.getRoomState(code).getPlayers().size());
+        assertEquals(RoomEvent.Type.PLAYER_LEFT, events.get(events.size() - 1).type());
+        assertDoesNotThrow(
+                () -> roomService.joinRoom(code, "Late", "late@example.com"), "The seat should be free again");
+        assertEquals(0, tracker.awayPlayers());
+        assertEquals(1, tracker.seatsReleased());
+    }
+
+    @Test
+    void reconnectWithinGraceKeepsThePlayer() {
+        tracker.bind("s1", code, playerId, now);
+        tracker.disconnected("s1", now);
+        tracker.bind("s2", code, playerId, now + 5_000);
+
+        assertFalse(player().isAway());
+        assertEquals(0, tracker.sweep(now + GRACE + 1_000));
+        assertEquals(2, roomService.getRoomState(code).getPlayers().size());
+    }
+
+    @Test
+    void playerStaysPresentWhileAnySessionIsOpen() {
+        tracker.bind("s1", code, playerId, now);
+        tracker.bind("s2", code, playerId, now);
+        long version = roomService.getRoomState(code).getVersion();
+
+        tracker.disconnected("s1", now);
+
+        assertFalse(player().isAway());
+        assertEquals(version, roomService.getRoomState(code).getVersion(), "No change should be committed");
+        tracker.disconnected("s2", now);
+        assertTrue(player().isAway());
+    }
+
+    @Test
+    void subscribeWithPlayerHeaderBindsTheSession() {
+        Message<byte[]> subscribe = subscribe("s1", playerId, "guest@example.com");
+
+        tracker.onSubscribe(new SessionSubscribeEvent(this, subscribe));
+        assertEquals(1, tracker.boundSessions());
+
+        tracker.onDisconnect(new SessionDisconnectEvent(this, subscribe, "s1", CloseStatus.GOING_AWAY));
+        assertTrue(player().isAway());
+    }
+
+    @Test
+    void unknownPlayersAreNotBound() {
+        tracker.onSubscribe(new SessionSubscribeEvent(this, subscribe("s1", "someone-else", "guest@example.com")));
+
+        assertEquals(0, tracker.boundSessions());
+    }
+
+    @Test
+    void foreignSessionsCannotClaimAPlayer() {
+        Message<byte[]> subscribe = subscribe("s1", playerId, "mallory@example.com");
+
+        tracker.onSubscribe(new SessionSubscribeEvent(this, subscribe));
+        assertEquals(0, tracker.boundSessions(), "Only the account that joined may bind the player");
+
+        tracker.onDisconnect(new SessionDisconnectEvent(this, subscribe, "s1", CloseStatus.GOING_AWAY));
+        assertFalse(player().isAway());
+        assertEquals(0, tracker.sweep(now + GRACE + 1_000));
+        assertEquals(2, roomService.getRoomState(code).getPlayers().size());
+    }
+
+    @Test
+    void closedRoomsAreSkipped() {
+        tracker.bind("s1", code, playerId, now);
+        roomService.closeRoom(code);
+
+        tracker.disconnected("s1", now);
+
+        assertEquals(0, tracker.sweep(now + GRACE + 1_000));
+        assertEquals(0, tracker.awayPlayers());
+    }
+
+    private Message<byte[]> subscribe(String sessionId, String player, String email) {
+        User user = new User();
+        user.setEmail(email);
+        UserPrincipal principal = new UserPrincipal(user);
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        headers.setSessionId(sessionId);
+        headers.setDestination("/topic/room/" + code);
+        headers.setNativeHeader(PresenceTracker.PLAYER_HEADER, player);
+        headers.setUser(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+
+    private PlayerDTO player() {
+        RoomDTO room = roomService.getRoomState(code);
+        return room.getPlayers().stream().filter(p -> p.getId().equals(playerId)).findFirst().orElseThrow();
+    }
+}
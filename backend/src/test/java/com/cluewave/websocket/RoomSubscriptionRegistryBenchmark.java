@@ -0,0 +1,89 @@
+package com.cluewave.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry;
+import org.springframework.messaging.simp.broker.SubscriptionRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Registers 100k rooms with two subscribers each and compares subscribe,
+ * lookup and disconnect cost of {@link RoomSubscriptionRegistry} with Spring's
+ * {@link DefaultSubscriptionRegistry}.  Lookups hit random rooms, as
+ * broadcasts do.  Run with {@code mvn test -Pbenchmark}.
+ */
+class RoomSubscriptionRegistryBenchmark {
+
+    private static final int ROOMS = 100_000;
+    // The default registry scans every session on a destination cache miss and its
+    // destination cache on every disconnect, so it gets far fewer timed operations.
+    private static final int ROOM_LOOKUPS = 200_000;
+    private static final int DEFAULT_LOOKUPS = 200;
+    private static final int DISCONNECTS = 2_000;
+
+    @Test
+    void hundredThousandRooms() {
+        Message<?>[] subscribes = new Message<?>[ROOMS * 2];
+        Message<?>[] broadcasts = new Message<?>[ROOMS];
+        for (int room = 0; room < ROOMS; room++) {
+            String destination = "/topic/room/R" + room;
+            subscribes[room * 2] = subscribe("p" + room, destination);
+            subscribes[room * 2 + 1] = subscribe("s" + room, destination);
+            broadcasts[room] = broadcast(destination);
+        }
+        for (int pass = 0; pass < 2; pass++) {
+            run("default", new DefaultSubscriptionRegistry(), DEFAULT_LOOKUPS, subscribes, broadcasts, pass == 1);
+            run("room", new RoomSubscriptionRegistry(), ROOM_LOOKUPS, subscribes, broadcasts, pass == 1);
+        }
+    }
+
+    private static void run(String name, SubscriptionRegistry registry, int lookups, Message<?>[] subscribes,
+                            Message<?>[] broadcasts, boolean print) {
+        long start = System.nanoTime();
+        for (Message<?> subscribe : subscribes) {
+            registry.registerSubscription(subscribe);
+        }
+        double subscribeNs = (System.nanoTime() - start) / (double) subscribes.length;
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long found = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            found += registry.findSubscriptions(broadcasts[random.nextInt(ROOMS)]).size();
+        }
+        double lookupNs = (System.nanoTime() - start) / (double) lookups;
+
+        start = System.nanoTime();
+        for (int room = 0; room < DISCONNECTS; room++) {
+            registry.unregisterAllSubscriptions("p" + room);
+            registry.unregisterAllSubscriptions("s" + room);
+        }
+        double disconnectNs = (System.nanoTime() - start) / (double) (DISCONNECTS * 2);
+
+        if (found != lookups * 2L) {
+            throw new IllegalStateException(name + " found " + found + " subscriptions");
+        }
+        if (print) {
+            System.out.printf("%-7s subscribe %.0f ns, lookup %.0f ns, disconnect %.0f ns%n",
+                    name, subscribeNs, lookupNs, disconnectNs);
+        }
+    }
+
+    private static Message<?> subscribe(String sessionId, String destination) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId("sub-0");
+        headers.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+
+    private static Message<?> broadcast(String destination) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,117 @@
+package com.cluewave.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MultiValueMap;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RoomSubscriptionRegistry}: exact room topics, the
+ * fallback for other destinations and cleanup on unsubscribe and disconnect.
+ */
+class RoomSubscriptionRegistryTest {
+
+    private final RoomSubscriptionRegistry registry = new RoomSubscriptionRegistry();
+
+    @Test
+    void roomTopicsMatchExactlyAndOnlyTheirSubscribers() {
+        registry.registerSubscription(subscribe("s1", "a", "/topic/room/ABCD"));
+        registry.registerSubscription(subscribe("s1", "b", "/topic/room/ABCD"));
+        registry.registerSubscription(subscribe("s2", "a", "/topic/room/ABCD"));
+        registry.registerSubscription(subscribe("s3", "a", "/topic/room/WXYZ"));
+
+        MultiValueMap<String, String> found = registry.findSubscriptions(message("/topic/room/ABCD"));
+
+        assertEquals(List.of("a", "b"), found.get("s1"));
+        assertEquals(List.of("a"), found.get("s2"));
+        assertNull(found.get("s3"));
+        assertTrue(registry.findSubscriptions(message("/topic/room/ABC")).isEmpty());
+    }
+
+    @Test
+    void unsubscribeAndDisconnectUnlinkEmptyRooms() {
+        registry.registerSubscription(subscribe("s1", "a", "/topic/room/ABCD"));
+        registry.registerSubscription(subscribe("s2", "a", "/topic/room/ABCD"));
+        registry.registerSubscription(subscribe("s2", "b", "/topic/room/WXYZ"));
+
+        registry.unregisterSubscription(unsubscribe("s1", "a"));
+        assertEquals(1, registry.findSubscriptions(message("/topic/room/ABCD")).size());
+
+        registry.unregisterAllSubscriptions("s2");
+        assertTrue(registry.findSubscriptions(message("/topic/room/ABCD")).isEmpty());
+        assertEquals(0, registry.roomCount(), "Rooms without subscribers must not linger");
+    }
+
+    @Test
+    void otherDestinationsAndPatternsUseTheFallback() {
+        registry.registerSubscription(subscribe("s1", "a", "/topic/lobby"));
+        registry.registerSubscription(subscribe("s2", "a", "/topic/room/*"));
+        registry.registerSubscription(subscribe("s3", "a", "/topic/room/ABCD"));
+
+        assertEquals(List.of("a"), registry.findSubscriptions(message("/topic/lobby")).get("s1"));
+        MultiValueMap<String, String> room = registry.findSubscriptions(message("/topic/room/ABCD"));
+        assertEquals(2, room.size(), "Pattern subscribers also receive room frames");
+
+        registry.unregisterSubscription(unsubscribe("s2", "a"));
+        assertEquals(1, registry.findSubscriptions(message("/topic/room/ABCD")).size());
+    }
+
+    @Test
+    void patternSubscriptionsStopCostingRoomDispatchOnceGone() {
+        registry.registerSubscription(subscribe("s1", "a", "/topic/room/ABCD"));
+        registry.registerSubscription(subscribe("s2", "a", "/topic/**"));
+        registry.registerSubscription(subscribe("s2", "b", "/topic/room/*"));
+        registry.registerSubscription(subscribe("s3", "a", "/topic/chat/*"));
+        assertEquals(2, registry.roomPatternCount(), "Only patterns that can match a room are counted");
+        assertEquals(2, registry.findSubscriptions(message("/topic/room/ABCD")).size());
+
+        registry.unregisterSubscription(unsubscribe("s2", "a"));
+        assertEquals(1, registry.roomPatternCount());
+        registry.unregisterAllSubscriptions("s2");
+        assertEquals(0, registry.roomPatternCount(), "Room dispatch skips the fallback again");
+        assertEquals(List.of("s1"), List.copyOf(registry.findSubscriptions(message("/topic/room/ABCD")).keySet()));
+
+        registry.registerSubscription(subscribe("s4", "a", "/topic/room/*"));
+        registry.registerSubscription(subscribe("s4", "a", "/topic/lobby"));
+        assertEquals(0, registry.roomPatternCount(), "A reused subscription id replaces the pattern");
+    }
+
+    @Test
+    void selectorHeadersAreNotEvaluated() {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        headers.setSessionId("s1");
+        headers.setSubscriptionId("a");
+        headers.setDestination("/topic/lobby");
+        headers.setNativeHeader("selector", "headers['never'] == 'set'");
+        registry.registerSubscription(MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders()));
+
+        assertEquals(List.of("a"), registry.findSubscriptions(message("/topic/lobby")).get("s1"));
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+
+    private static Message<byte[]> unsubscribe(String sessionId, String subscriptionId) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+
+    private static Message<byte[]> message(String destination) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,200 @@
+package com.cluewave.websocket;
+
+import com.cluewave.dto.PlayerDTO;
+import com.cluewave.dto.RoomDTO;
+import com.cluewave.dto.RoundDTO;
+import com.cluewave.service.GameBroadcastService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link SlowConsumerGuard}.  The outbound channel runs on a
+ * manual executor, so a write stays "in progress" until the test runs it.
+ */
+class SlowConsumerGuardTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Queue<Runnable> writes = new ArrayDeque<>();
+    private final List<Object> written = new ArrayList<>();
+    private final WebSocketSession session = mock(WebSocketSession.class);
+
+    @Test
+    void queuedRoomFramesAreReplacedByNewerOnes() {
+        SlowConsumerGuard guard = new SlowConsumerGuard(16, 10_000);
+        ExecutorSubscribableChannel channel = channel(guard);
+
+        channel.send(frame("room-sub", "/topic/room/ABCD", "v1"));
+        channel.send(frame("room-sub", "/topic/room/ABCD", "v2"));
+        channel.send(frame("other-sub", "/topic/lobby", "news"));
+        channel.send(frame("room-sub", "/topic/room/ABCD", "v3"));
+        assertEquals(2, guard.framesPending());
+        runWrites();
+
+        assertEquals(List.of("v1", "v3", "news"), written);
+        assertEquals(1, guard.framesDropped());
+        assertEquals(0, guard.framesPending());
+        verifyNoMoreInteractions(ignoreStubs(session));
+    }
+
+    @Test
+    void queuedRoomPatchesAreMergedSoNoVersionIsSkipped() throws Exception {
+        SlowConsumerGuard guard = new SlowConsumerGuard(16, 10_000);
+        ExecutorSubscribableChannel channel = channel(guard);
+        PlayerDTO host = new PlayerDTO("h", "Host", 0);
+        PlayerDTO ann = new PlayerDTO("a", "Ann", 0);
+        PlayerDTO bob = new PlayerDTO("b", "Bob", 0);
+        List<Message<?>> frames = broadcast(
+                new RoomDTO("ABCD", List.of(host), null, "lobby", "Host", "host@example.com", 4, 1),
+                new RoomDTO("ABCD", List.of(host, ann), null, "lobby", "Host", "host@example.com", 4, 2),
+                new RoomDTO("ABCD", List.of(host, ann, bob), null, "lobby", "Host", "host@example.com", 4, 3),
+                new RoomDTO("ABCD", List.of(host, bob), new RoundDTO("Froid", "Chaud", false), "in_round",
+                        "Host", "host@example.com", 4, 4),
+                new RoomDTO("ABCD", List.of(host, bob, new PlayerDTO("c", "Cyd", 0)),
+                        new RoundDTO("Froid", "Chaud", false), "in_round", "Host", "host@example.com", 4, 5));
+
+        // v2 to v4 queue behind v1 while it is being written
+        channel.send(onSession(frames.get(0)));
+        channel.send(onSession(frames.get(1)));
+        channel.send(onSession(frames.get(2)));
+        channel.send(onSession(frames.get(3)));
+        writes.poll().run();
+        // v5 queues while the merged frame is in flight
+        channel.send(onSession(frames.get(4)));
+        runWrites();
+
+        assertEquals(3, written.size());
+        assertEquals(2, guard.framesDropped());
+        JsonNode merged = mapper.readTree((byte[]) written.get(1));
+        assertEquals(1, merged.get("fromVersion").asLong(), "The merged patch applies on top of v1");
+        assertEquals(4, merged.get("version").asLong());
+        assertEquals("in_round", merged.get("state").asText());
+        assertEquals("Froid", merged.get("currentRound").get("promptLeft").asText());
+        assertEquals(List.of("b"), ids(merged.get("players")), "Ann joined and left within the merged span");
+        JsonNode last = mapper.readTree((byte[]) written.get(2));
+        assertEquals(4, last.get("fromVersion").asLong(), "The next patch follows the merged one without a gap");
+        assertEquals(5, last.get("version").asLong());
+    }
+
+    @Test
+    void aQueuedFullStateAbsorbsLaterPatches() throws Exception {
+        SlowConsumerGuard guard = new SlowConsumerGuard(16, 10_000);
+        ExecutorSubscribableChannel channel = channel(guard);
+        PlayerDTO host = new PlayerDTO("h", "Host", 0);
+        List<Message<?>> frames = broadcast(
+                new RoomDTO("ABCD", List.of(host), null, "lobby", "Host", "host@example.com", 4, 1),
+                new RoomDTO("ABCD", List.of(host, new PlayerDTO("a", "Ann", 0)), null, "lobby",
+                        "Host", "host@example.com", 4, 2));
+
+        channel.send(frame("lobby-sub", "/topic/lobby", "news"));
+        channel.send(onSession(frames.get(0)));
+        channel.send(onSession(frames.get(1)));
+        runWrites();
+
+        assertEquals(2, written.size());
+        JsonNode state = mapper.readTree((byte[]) written.get(1));
+        assertEquals(2, state.get("version").asLong());
+        assertFalse(state.has("fromVersion"), "A full state stays a full state");
+        assertEquals(List.of("h", "a"), ids(state.get("players")));
+        assertEquals("host@example.com", state.get("hostEmail").asText());
+    }
+
+    @Test
+    void backlogBeyondTheBoundEvictsTheSession() throws Exception {
+        SlowConsumerGuard guard = new SlowConsumerGuard(1, 10_000);
+        ExecutorSubscribableChannel channel = channel(guard);
+
+        channel.send(frame("a", "/topic/room/AAAA", "1"));
+        channel.send(frame("b", "/topic/room/BBBB", "1"));
+        channel.send(frame("c", "/topic/room/CCCC", "1"));
+        channel.send(frame("a", "/topic/room/AAAA", "2"));
+        runWrites();
+
+        verify(session, timeout(1_000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(1, guard.sessionsEvicted());
+        assertEquals(List.of("1"), written, "Nothing queued is written once the session is evicted");
+        assertEquals(0, guard.framesPending());
+    }
+
+    @Test
+    void stalledWriteEvictsOnTheNextFrame() throws Exception {
+        SlowConsumerGuard guard = new SlowConsumerGuard(16, 0);
+        ExecutorSubscribableChannel channel = channel(guard);
+
+        channel.send(frame("a", "/topic/room/AAAA", "1"));
+        Thread.sleep(2);
+        channel.send(frame("a", "/topic/room/AAAA", "2"));
+
+        verify(session, timeout(1_000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(1, guard.sessionsEvicted());
+    }
+
+    private ExecutorSubscribableChannel channel(SlowConsumerGuard guard) {
+        when(session.getId()).thenReturn("s1");
+        guard.register(session);
+        ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(writes::add);
+        channel.addInterceptor(guard);
+        channel.subscribe(message -> written.add(message.getPayload()));
+        return channel;
+    }
+
+    private void runWrites() {
+        Runnable write;
+        while ((write = writes.poll()) != null) {
+            write.run();
+        }
+    }
+
+    // The frames a broadcast service sends for consecutive versions of one room.
+    private static List<Message<?>> broadcast(RoomDTO... versions) {
+        SimpMessagingTemplate template = mock(SimpMessagingTemplate.class);
+        GameBroadcastService service = new GameBroadcastService(template);
+        for (RoomDTO version : versions) {
+            service.broadcastRoomUpdate(version.getCode(), version);
+        }
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Message<?>> sent = ArgumentCaptor.forClass(Message.class);
+        verify(template, times(versions.length)).send(anyString(), sent.capture());
+        return sent.getAllValues();
+    }
+
+    // A broker frame as delivered to subscription "room-sub" of session s1.
+    private static Message<?> onSession(Message<?> frame) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(frame);
+        headers.setSessionId("s1");
+        headers.setSubscriptionId("room-sub");
+        headers.setDestination("/topic/room/ABCD");
+        return MessageBuilder.createMessage(frame.getPayload(), headers.getMessageHeaders());
+    }
+
+    private static List<String> ids(JsonNode players) {
+        List<String> ids = new ArrayList<>();
+        players.forEach(p -> ids.add(p.get("id").asText()));
+        return ids;
+    }
+
+    private static Message<String> frame(String subscriptionId, String destination, String payload) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId("s1");
+        headers.setSubscriptionId(subscriptionId);
+        headers.setDestination(destination);
+        return MessageBuilder.createMessage(payload, headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,83 @@
+package com.cluewave.websocket;
+
+import com.cluewave.dto.RoomClosedDTO;
+import com.cluewave.service.GameBroadcastService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link WireFormatInterceptor}.  Only sessions that asked for
+ * the binary format at CONNECT get their room frames rewritten.
+ */
+class WireFormatInterceptorTest {
+
+    private final WireFormatInterceptor interceptor = new WireFormatInterceptor();
+    private final MessageChannel channel = mock(MessageChannel.class);
+
+    @Test
+    void binarySessionsReceiveSharedBinaryBody() {
+        connect("bin", "binary");
+        connect("json", null);
+        Message<?> frame = roomFrame();
+
+        Message<?> binary = interceptor.preSend(forSession(frame, "bin"), channel);
+        Message<?> again = interceptor.preSend(forSession(frame, "bin"), channel);
+        Message<?> json = interceptor.preSend(forSession(frame, "json"), channel);
+
+        assertEquals(MimeTypeUtils.APPLICATION_OCTET_STREAM, binary.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        assertArrayEquals(BinaryRoomCodec.encode(new RoomClosedDTO("ABCD", "closed")), (byte[]) binary.getPayload());
+        assertSame(binary.getPayload(), again.getPayload(), "The binary body is encoded once per frame");
+        assertSame(frame.getPayload(), json.getPayload(), "JSON sessions are left untouched");
+    }
+
+    @Test
+    void disconnectForgetsTheSession() {
+        connect("bin", "binary");
+        assertTrue(interceptor.isBinary("bin"));
+
+        StompHeaderAccessor disconnect = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        disconnect.setSessionId("bin");
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], disconnect.getMessageHeaders()), channel);
+
+        assertFalse(interceptor.isBinary("bin"));
+    }
+
+    private void connect(String sessionId, String format) {
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setSessionId(sessionId);
+        if (format != null) {
+            connect.setNativeHeader(WireFormatInterceptor.FORMAT_HEADER, format);
+        }
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()), channel);
+    }
+
+    private static Message<?> roomFrame() {
+        SimpMessagingTemplate template = mock(SimpMessagingTemplate.class);
+        new GameBroadcastService(template).broadcastRoomClosed("ABCD", "closed");
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ArgumentCaptor<Message<?>> sent = (ArgumentCaptor) ArgumentCaptor.forClass(Message.class);
+        verify(template).send(eq("/topic/room/ABCD"), sent.capture());
+        return sent.getValue();
+    }
+
+    // The broker copies the headers per subscriber but keeps the payload and header values.
+    private static Message<?> forSession(Message<?> frame, String sessionId) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(frame);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId("sub-" + sessionId);
+        return MessageBuilder.createMessage(frame.getPayload(), headers.getMessageHeaders());
+    }
+}